@@ -0,0 +1,75 @@
+package org.springframework.samples.petclinic.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.util.EntityIndex;
+import org.springframework.samples.petclinic.util.EntityUtils;
+
+/**
+ * Resolving one owner per pet, as the JDBC pet listing does: {@link EntityUtils#getById} linear scans against
+ * {@link EntityIndex} (building the index is part of the measured work).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityLookupBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int owners;
+
+    @Param({"2"})
+    public int petsPerOwner;
+
+    private List<Owner> ownerList;
+
+    private int[] petOwnerIds;
+
+    @Setup
+    public void setUp() {
+        this.ownerList = new ArrayList<>(this.owners);
+        for (int id = 1; id <= this.owners; id++) {
+            Owner owner = new Owner();
+            owner.setId(id);
+            this.ownerList.add(owner);
+        }
+        this.petOwnerIds = new int[this.owners * this.petsPerOwner];
+        for (int i = 0; i < this.petOwnerIds.length; i++) {
+            // 37 is coprime with the owner count most of the time: spreads lookups over the whole list
+            this.petOwnerIds[i] = (int) ((i * 37L) % this.owners) + 1;
+        }
+    }
+
+    @Benchmark
+    public void linearScan(Blackhole blackhole) {
+        for (int ownerId : this.petOwnerIds) {
+            blackhole.consume(EntityUtils.getById(this.ownerList, Owner.class, ownerId));
+        }
+    }
+
+    @Benchmark
+    public void entityIndex(Blackhole blackhole) {
+        EntityIndex<Owner> index = EntityIndex.of(this.ownerList);
+        for (int ownerId : this.petOwnerIds) {
+            blackhole.consume(index.getById(Owner.class, ownerId));
+        }
+    }
+
+}
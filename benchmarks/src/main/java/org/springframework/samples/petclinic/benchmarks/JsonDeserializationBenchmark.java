@@ -0,0 +1,92 @@
+package org.springframework.samples.petclinic.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * The <code>JacksonCustom*Deserializer</code>s, fed with request bodies as produced by the matching serializers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonDeserializationBenchmark {
+
+    private ObjectReader ownerReader;
+
+    private ObjectReader petReader;
+
+    private ObjectReader visitReader;
+
+    private ObjectReader visitsReader;
+
+    private byte[] ownerJson;
+
+    private byte[] petJson;
+
+    private byte[] visitJson;
+
+    private byte[] visitsJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        this.ownerReader = objectMapper.readerFor(Owner.class);
+        this.petReader = objectMapper.readerFor(Pet.class);
+        this.visitReader = objectMapper.readerFor(Visit.class);
+        Owner owner = SyntheticDataSet.owner(1, 1, 1);
+        Pet pet = owner.getPets().get(0);
+        this.ownerJson = objectMapper.writeValueAsBytes(owner);
+        this.petJson = objectMapper.writeValueAsBytes(pet);
+        this.visitJson = objectMapper.writeValueAsBytes(pet.getVisits().get(0));
+        // a bulk import: 100 visits of the 5 pets of one owner
+        this.visitsReader = objectMapper.readerFor(new TypeReference<List<Visit>>() {
+        });
+        List<Visit> visits = new ArrayList<>();
+        SyntheticDataSet.owner(2, 5, 20).getPets().forEach(p -> visits.addAll(p.getVisits()));
+        this.visitsJson = objectMapper.writeValueAsBytes(visits);
+    }
+
+    @Benchmark
+    public Owner deserializeOwner() throws IOException {
+        return this.ownerReader.readValue(this.ownerJson);
+    }
+
+    @Benchmark
+    public Pet deserializePet() throws IOException {
+        return this.petReader.readValue(this.petJson);
+    }
+
+    @Benchmark
+    public Visit deserializeVisit() throws IOException {
+        return this.visitReader.readValue(this.visitJson);
+    }
+
+    @Benchmark
+    public List<Visit> deserializeVisitBatch() throws IOException {
+        return this.visitsReader.readValue(this.visitsJson);
+    }
+
+}
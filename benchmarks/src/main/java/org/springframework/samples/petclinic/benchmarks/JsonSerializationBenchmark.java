@@ -0,0 +1,71 @@
+package org.springframework.samples.petclinic.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.rest.JacksonCustomOwnerSerializer;
+import org.springframework.samples.petclinic.rest.JacksonCustomVisitSerializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * {@link JacksonCustomOwnerSerializer} and {@link JacksonCustomVisitSerializer}, written to a discarding stream so
+ * that only serialization is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"1", "5"})
+    public int petsPerOwner;
+
+    @Param({"2", "20"})
+    public int visitsPerPet;
+
+    private ObjectWriter ownerWriter;
+
+    private ObjectWriter visitWriter;
+
+    private Owner owner;
+
+    private Visit visit;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        this.ownerWriter = objectMapper.writerFor(Owner.class);
+        this.visitWriter = objectMapper.writerFor(Visit.class);
+        this.owner = SyntheticDataSet.owner(1, this.petsPerOwner, this.visitsPerPet);
+        this.visit = this.owner.getPets().get(0).getVisits().get(0);
+    }
+
+    @Benchmark
+    public void serializeOwner() throws IOException {
+        this.ownerWriter.writeValue(OutputStream.nullOutputStream(), this.owner);
+    }
+
+    @Benchmark
+    public void serializeVisit() throws IOException {
+        this.visitWriter.writeValue(OutputStream.nullOutputStream(), this.visit);
+    }
+
+}
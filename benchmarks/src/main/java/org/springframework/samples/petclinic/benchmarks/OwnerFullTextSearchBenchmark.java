@@ -0,0 +1,79 @@
+package org.springframework.samples.petclinic.benchmarks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcOwnerRepositoryImpl;
+import org.springframework.samples.petclinic.service.OwnerSearchServiceImpl;
+
+/**
+ * Full-text owner search as served by <code>/api/owners/search?q=</code>, against an in-memory index of seeded
+ * owners (names from the load generator pools). Sampled, so that JMH reports percentiles: the index is built once per
+ * trial and the number of hits of the query is printed when the trial starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OwnerFullTextSearchBenchmark {
+
+    @Param({"1000000"})
+    public int owners;
+
+    @Param({"1"})
+    public int petsPerOwner;
+
+    /** An exact last name, a prefix, a typo, two words and a two-letter prefix matching many terms. */
+    @Param({"kneller", "knel", "knellar", "jordan kneller", "bo"})
+    public String query;
+
+    @Param({"20"})
+    public int limit;
+
+    private EmbeddedDatabase database;
+
+    private OwnerSearchServiceImpl ownerSearchService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.database = SyntheticDataSet.createDatabase(this.owners, this.petsPerOwner, 0);
+        this.ownerSearchService = new OwnerSearchServiceImpl(new JdbcOwnerRepositoryImpl(this.database),
+            new DataSourceTransactionManager(this.database), "", Duration.ofHours(1));
+        long start = System.nanoTime();
+        long indexed = this.ownerSearchService.rebuild();
+        System.out.printf("%nIndexed %d owners in %d ms; \"%s\" returns %d of at most %d owners%n", indexed,
+            (System.nanoTime() - start) / 1_000_000, this.query,
+            this.ownerSearchService.search(this.query, this.limit).size(), this.limit);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        this.ownerSearchService.close();
+        this.database.shutdown();
+    }
+
+    @Benchmark
+    public List<OwnerSummary> search() {
+        return this.ownerSearchService.search(this.query, this.limit);
+    }
+}
@@ -0,0 +1,112 @@
+package org.springframework.samples.petclinic.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcOwnerRepositoryImpl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * What <code>GET /api/owners</code> does below the HTTP layer with the jdbc profile: load every owner with pets and
+ * visits and serialize the list; and the keyset page (<code>?limit=100</code>) that replaces it for large data sets.
+ * <p>
+ * The <code>statements</code> and <code>invocations</code> secondary results count the SQL statements executed and
+ * the benchmark calls of each iteration (JMH sums them over the iterations): their ratio is the number of statements
+ * per call, which should not grow with the number of owners.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OwnerListingBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int owners;
+
+    @Param({"2"})
+    public int petsPerOwner;
+
+    @Param({"2"})
+    public int visitsPerPet;
+
+    private EmbeddedDatabase database;
+
+    private StatementCountingDataSource dataSource;
+
+    private OwnerRepository ownerRepository;
+
+    private ObjectWriter ownersWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.database = SyntheticDataSet.createDatabase(this.owners, this.petsPerOwner, this.visitsPerPet);
+        this.dataSource = new StatementCountingDataSource(this.database);
+        this.ownerRepository = new JdbcOwnerRepositoryImpl(this.dataSource);
+        this.ownersWriter = new ObjectMapper().writerFor(new TypeReference<Collection<Owner>>() {
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.database.shutdown();
+    }
+
+    @Benchmark
+    public void listAllOwners(StatementCounters counters) throws IOException {
+        long statements = this.dataSource.getStatements();
+        this.ownersWriter.writeValue(OutputStream.nullOutputStream(), this.ownerRepository.findAll());
+        counters.count(this.dataSource.getStatements() - statements);
+    }
+
+    @Benchmark
+    public void listOwnersPage(StatementCounters counters) throws IOException {
+        long statements = this.dataSource.getStatements();
+        this.ownersWriter.writeValue(OutputStream.nullOutputStream(), this.ownerRepository.findAllAfter(this.owners / 2, 100));
+        counters.count(this.dataSource.getStatements() - statements);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class StatementCounters {
+
+        public long statements;
+
+        public long invocations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.statements = 0;
+            this.invocations = 0;
+        }
+
+        void count(long statements) {
+            this.statements += statements;
+            this.invocations++;
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.springframework.samples.petclinic.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+
+/**
+ * {@link Owner#getPets()}, which copies and sorts the pets by name on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerPetsBenchmark {
+
+    @Param({"1", "5", "50"})
+    public int petsPerOwner;
+
+    private Owner owner;
+
+    @Setup
+    public void setUp() {
+        this.owner = SyntheticDataSet.owner(1, this.petsPerOwner, 0);
+    }
+
+    @Benchmark
+    public List<Pet> getPets() {
+        return this.owner.getPets();
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.springframework.samples.petclinic.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcOwnerRepositoryImpl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Last name search as served by <code>/api/owners/lastname/{lastName}</code> (owners with pets and visits) and by
+ * <code>/api/owners/search</code> (summaries with pet names), from the query to the JSON response. The
+ * size of both responses is printed when the trial starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OwnerSearchBenchmark {
+
+    @Param({"10000"})
+    public int owners;
+
+    @Param({"2"})
+    public int petsPerOwner;
+
+    @Param({"5"})
+    public int visitsPerPet;
+
+    /** Prefixes matching about 3% ("Ma") and 10% ("S") of the generated owners. */
+    @Param({"Ma", "S"})
+    public String lastName;
+
+    private EmbeddedDatabase database;
+
+    private OwnerRepository ownerRepository;
+
+    private ObjectWriter ownersWriter;
+
+    private ObjectWriter summariesWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.database = SyntheticDataSet.createDatabase(this.owners, this.petsPerOwner, this.visitsPerPet);
+        this.ownerRepository = new JdbcOwnerRepositoryImpl(this.database);
+        ObjectMapper objectMapper = new ObjectMapper();
+        this.ownersWriter = objectMapper.writerFor(new TypeReference<Collection<Owner>>() {
+        });
+        this.summariesWriter = objectMapper.writerFor(new TypeReference<Collection<OwnerSummary>>() {
+        });
+        System.out.printf("%nResponse size for \"%s\": %d bytes (owners), %d bytes (summaries)%n", this.lastName,
+            this.ownersWriter.writeValueAsBytes(this.ownerRepository.findByLastName(this.lastName)).length,
+            this.summariesWriter.writeValueAsBytes(this.ownerRepository.findSummariesByLastName(this.lastName)).length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.database.shutdown();
+    }
+
+    @Benchmark
+    public void searchOwners() throws IOException {
+        this.ownersWriter.writeValue(OutputStream.nullOutputStream(), this.ownerRepository.findByLastName(this.lastName));
+    }
+
+    @Benchmark
+    public void searchOwnerSummaries() throws IOException {
+        this.summariesWriter.writeValue(OutputStream.nullOutputStream(),
+            this.ownerRepository.findSummariesByLastName(this.lastName));
+    }
+}
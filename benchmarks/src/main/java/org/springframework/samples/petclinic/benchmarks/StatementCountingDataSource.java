@@ -0,0 +1,70 @@
+package org.springframework.samples.petclinic.benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Counts the statements executed through its connections (every <code>execute*</code> call, a batch counting once),
+ * so that a benchmark can report how many round trips an operation makes next to how long it takes.
+ */
+final class StatementCountingDataSource extends DelegatingDataSource {
+
+    private final AtomicLong statements = new AtomicLong();
+
+    StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    long getStatements() {
+        return this.statements.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countStatements(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countStatements(super.getConnection(username, password));
+    }
+
+    private Connection countStatements(Connection connection) {
+        return proxy(Connection.class, connection, (method, result) ->
+            result instanceof Statement statement && method.getReturnType().isInterface()
+                ? proxy(method.getReturnType(), statement, (statementMethod, statementResult) -> {
+                    if (statementMethod.getName().startsWith("execute")) {
+                        this.statements.incrementAndGet();
+                    }
+                    return statementResult;
+                })
+                : result);
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, ResultHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), new Class<?>[] {type},
+            (proxy, method, args) -> {
+                try {
+                    return handler.handle(method, method.invoke(target, args));
+                } catch (InvocationTargetException ex) {
+                    throw ex.getTargetException();
+                }
+            }));
+    }
+
+    @FunctionalInterface
+    private interface ResultHandler {
+
+        Object handle(Method method, Object result);
+    }
+
+}
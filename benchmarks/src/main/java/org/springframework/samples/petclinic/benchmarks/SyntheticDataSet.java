@@ -0,0 +1,109 @@
+package org.springframework.samples.petclinic.benchmarks;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.seed.DataSeeder;
+import org.springframework.samples.petclinic.seed.NamePools;
+import org.springframework.samples.petclinic.seed.SeedPlan;
+
+/**
+ * Deterministic synthetic data for the benchmarks: an in-memory HSQLDB created from the application's
+ * <code>db/hsqldb/initDB.sql</code> and filled by its {@link DataSeeder}, or detached object graphs of the same shape.
+ * <p>
+ * Sizes come from the JMH <code>@Param</code>s of each benchmark, e.g. <code>-p owners=100000 -p petsPerOwner=2</code>.
+ */
+public final class SyntheticDataSet {
+
+    static final String[] PET_TYPES = {"cat", "dog", "lizard", "snake", "bird", "hamster"};
+
+    private static final String[] FIRST_NAMES = {"George", "Betty", "Eduardo", "Harold", "Peter", "Jean", "Jeff", "Maria", "David", "Carlos"};
+
+    private static final String[] LAST_NAMES = {"Franklin", "Davis", "Rodriquez", "Black", "McTavish", "Coleman", "Escobito", "Schroeder", "Estaban", "Garcia"};
+
+    private static final String[] PET_NAMES = {"Leo", "Basil", "Rosy", "Jewel", "Iggy", "George", "Samantha", "Max", "Lucky", "Mulligan", "Freddy", "Sly"};
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2010, 1, 1);
+
+    private SyntheticDataSet() {
+    }
+
+    /**
+     * Create a new in-memory database holding <code>owners</code> owners, each with <code>petsPerOwner</code> pets
+     * with <code>visitsPerPet</code> visits, loaded by the application's {@link DataSeeder}.
+     */
+    public static EmbeddedDatabase createDatabase(int owners, int petsPerOwner, int visitsPerPet) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .generateUniqueName(true)
+            .setType(EmbeddedDatabaseType.HSQL)
+            .addScript("db/hsqldb/initDB.sql")
+            .build();
+        new DataSeeder(database, new DataSourceTransactionManager(database), NamePools.load())
+            .seed(new SeedPlan(owners, petsPerOwner, visitsPerPet, 0, 0, PET_TYPES.length, 1000, 1));
+        return database;
+    }
+
+    /**
+     * Build a detached owner graph with the same shape as the rows written by {@link #createDatabase}.
+     */
+    public static Owner owner(int ownerId, int pets, int visitsPerPet) {
+        Owner owner = new Owner();
+        owner.setId(ownerId);
+        owner.setFirstName(FIRST_NAMES[ownerId % FIRST_NAMES.length]);
+        owner.setLastName(LAST_NAMES[(ownerId / FIRST_NAMES.length) % LAST_NAMES.length]);
+        owner.setAddress(ownerId + " Main St.");
+        owner.setCity("Madison");
+        owner.setState("WI");
+        owner.setZipCode(zipCode(ownerId));
+        owner.setTelephone(telephone(ownerId));
+        for (int p = 0; p < pets; p++) {
+            int petId = ownerId * pets + p;
+            Pet pet = new Pet();
+            pet.setId(petId);
+            pet.setName(PET_NAMES[petId % PET_NAMES.length]);
+            pet.setBirthDate(date(petId));
+            pet.setType(petType(petId % PET_TYPES.length + 1));
+            owner.addPet(pet);
+            for (int v = 0; v < visitsPerPet; v++) {
+                Visit visit = new Visit();
+                visit.setId(petId * visitsPerPet + v);
+                visit.setDate(date(v));
+                visit.setDescription("visit " + v);
+                pet.addVisit(visit);
+            }
+        }
+        return owner;
+    }
+
+    public static PetType petType(int id) {
+        PetType petType = new PetType();
+        petType.setId(id);
+        petType.setName(PET_TYPES[id - 1]);
+        return petType;
+    }
+
+    static String zipCode(int ownerId) {
+        return String.format("%05d", ownerId % 100000);
+    }
+
+    private static String telephone(int ownerId) {
+        return String.format("608%07d", ownerId % 10000000);
+    }
+
+    private static java.util.Date date(int n) {
+        return new java.util.Date(Date.valueOf(day(n)).getTime());
+    }
+
+    private static LocalDate day(int n) {
+        return FIRST_DAY.plusDays(n % 5000);
+    }
+
+}
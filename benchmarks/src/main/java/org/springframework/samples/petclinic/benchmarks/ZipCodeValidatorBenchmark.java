@@ -0,0 +1,46 @@
+package org.springframework.samples.petclinic.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.samples.petclinic.validation.ZipCodeValidator;
+
+/**
+ * {@link ZipCodeValidator#isValid} on accepted and rejected zip codes (rejected ones also report to the APM API,
+ * which is a no-op without the agent).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZipCodeValidatorBenchmark {
+
+    @Param({"53703", "53703-1234", "5370A", "123456789012345678901234"})
+    public String zipCode;
+
+    private ZipCodeValidator validator;
+
+    @Setup
+    public void setUp() {
+        this.validator = new ZipCodeValidator();
+        this.validator.initialize(null);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return this.validator.isValid(this.zipCode, null);
+    }
+
+}
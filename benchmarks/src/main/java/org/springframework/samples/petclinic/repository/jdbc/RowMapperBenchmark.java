@@ -0,0 +1,74 @@
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.samples.petclinic.benchmarks.SyntheticDataSet;
+import org.springframework.samples.petclinic.model.Visit;
+
+/**
+ * {@link JdbcPetRowMapper} and {@link JdbcVisitRowMapper} over a full-table result set of the synthetic HSQLDB.
+ * Lives in the repository package because the visit row mapper is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    @Param({"10000"})
+    public int owners;
+
+    @Param({"2"})
+    public int petsPerOwner;
+
+    @Param({"2"})
+    public int visitsPerPet;
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.database = SyntheticDataSet.createDatabase(this.owners, this.petsPerOwner, this.visitsPerPet);
+        this.jdbcTemplate = new JdbcTemplate(this.database);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.database.shutdown();
+    }
+
+    @Benchmark
+    public List<JdbcPet> mapPets() {
+        return this.jdbcTemplate.query(
+            "SELECT pets.id as pets_id, name, birth_date, type_id, owner_id FROM pets",
+            new JdbcPetRowMapper());
+    }
+
+    @Benchmark
+    public List<Visit> mapVisits() {
+        return this.jdbcTemplate.query(
+            "SELECT id AS visit_id, visit_date, description, pet_id FROM visits",
+            new JdbcVisitRowMapper());
+    }
+
+}
@@ -0,0 +1,72 @@
+#!/bin/bash
+# Compara vazão e latência p99 do servidor com threads de plataforma (pool do Tomcat) e com virtual threads
+# (profile virtual-threads), rodando o mesmo plano JMeter contra cada modo.
+#
+# Pré-requisitos: jar construído (mvn package), Java 21 e jmeter no PATH (ou JMETER_HOME).
+# Uso: docker/server-loadgen/compare-threading.sh [threads] [duração em segundos]
+#
+# Variáveis: PROFILES (banco e camada de repositório, padrão hsqldb,jdbc), PORT, JAVA_OPTS, e as mesmas
+# TIMER_* do entrypoint.sh (zeradas por padrão para saturar o servidor).
+set -e
+
+THREADS=${1:-200}
+DURATION=${2:-120}
+PROFILES=${PROFILES:-hsqldb,jdbc}
+PORT=${PORT:-9966}
+
+HERE=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(cd "${HERE}/../.." && pwd)
+JAR=$(ls "${ROOT}"/target/*.jar | grep -v original | head -1)
+JMETER=${JMETER_HOME:+${JMETER_HOME}/bin/}jmeter
+RESULTS=${RESULTS:-${ROOT}/target/loadtest}
+mkdir -p "${RESULTS}"
+
+run() {
+    local mode=$1 profiles=$2
+    echo "== ${mode}: ${THREADS} threads JMeter por grupo, ${DURATION}s"
+    java ${JAVA_OPTS} -jar "${JAR}" --spring.profiles.active="${profiles}" --server.port="${PORT}" \
+        > "${RESULTS}/server-${mode}.log" 2>&1 &
+    local pid=$!
+    until curl -sf "http://localhost:${PORT}/api/pettypes" > /dev/null; do
+        kill -0 ${pid} 2> /dev/null || { echo "servidor não subiu, ver ${RESULTS}/server-${mode}.log"; exit 1; }
+        sleep 1
+    done
+
+    rm -f "${RESULTS}/${mode}.jtl"
+    timeout --signal=INT "${DURATION}" "${JMETER}" -n -t "${HERE}/jmeter-petclinic-server.jmx" \
+        -JTHREADS="${THREADS}" -JDATA_FILES="${HERE}" \
+        -JENDPOINT_BASE=localhost -JENDPOINT_PORT="${PORT}" -JENDPOINT_PROTOCOL=http \
+        -JTIMER_OFFSET=${TIMER_OFFSET:-0} -JTIMER_DEVIATION=${TIMER_DEVIATION:-0} \
+        -JERROR_TIMER_OFFSET=${ERROR_TIMER_OFFSET:-0} -JERROR_TIMER_DEVIATION=${ERROR_TIMER_DEVIATION:-0} \
+        -Jjmeter.save.saveservice.output_format=csv -l "${RESULTS}/${mode}.jtl" -j "${RESULTS}/jmeter-${mode}.log" \
+        > /dev/null || true
+
+    kill ${pid}
+    wait ${pid} 2> /dev/null || true
+}
+
+# timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success,...
+summary() {
+    local mode=$1
+    local jtl="${RESULTS}/${mode}.jtl"
+    local n=$(($(wc -l < "${jtl}") - 1))
+    if [ ${n} -le 0 ]; then
+        printf "%-10s sem amostras\n" "${mode}"
+        return
+    fi
+    local errors=$(tail -n +2 "${jtl}" | awk -F, '$8 != "true"' | wc -l)
+    local window=$(tail -n +2 "${jtl}" | awk -F, 'NR == 1 || $1 < f { f = $1 } $1 + $2 > l { l = $1 + $2 } END { print l - f }')
+    local sorted=$(tail -n +2 "${jtl}" | cut -d, -f2 | sort -n)
+    local p50=$(echo "${sorted}" | sed -n "$(( (n * 50 + 99) / 100 ))p")
+    local p99=$(echo "${sorted}" | sed -n "$(( (n * 99 + 99) / 100 ))p")
+    printf "%-10s %10d %8d %12s %8d %8d\n" "${mode}" ${n} ${errors} \
+        "$(awk -v n=${n} -v w=${window} 'BEGIN { printf "%.1f", n * 1000 / w }')" ${p50} ${p99}
+}
+
+run platform "${PROFILES}"
+run virtual "${PROFILES},virtual-threads"
+
+echo
+printf "%-10s %10s %8s %12s %8s %8s\n" mode samples errors "req/s" "p50 ms" "p99 ms"
+summary platform
+summary virtual
@@ -11,5 +11,5 @@ echo "START Running Jmeter on `date`"
 echo "JVM_ARGS=${JVM_ARGS}"
 echo "jmeter args=$@"
 
-jmeter -Dlog_level.jmeter=DEBUG -JTIMER_DEVIATION=${TIMER_DEVIATION:-2000} -JTIMER_OFFSET=${TIMER_OFFSET:-500} -JERROR_TIMER_DEVIATION=${ERROR_TIMER_DEVIATION:-30000} -JERROR_TIME_OFFSET=${ERROR_TIME_OFFSET:-15000} -JDATA_FILES=${DATA_FILES:-/opt/data_files} -JENDPOINT_BASE=${ENDPOINT_BASE:-localhost} -JENDPOINT_PORT=${ENDPOINT_PORT:-3000} -JENDPOINT_PROTOCOL=${ENDPOINT_PROTOCOL:-http} -n -t ${JMETER_HOME}/jmeter-petclinic-server.jmx -j /dev/stdout
+jmeter -Dlog_level.jmeter=DEBUG -JTIMER_DEVIATION=${TIMER_DEVIATION:-2000} -JTIMER_OFFSET=${TIMER_OFFSET:-500} -JERROR_TIMER_DEVIATION=${ERROR_TIMER_DEVIATION:-30000} -JERROR_TIME_OFFSET=${ERROR_TIME_OFFSET:-15000} -JDATA_FILES=${DATA_FILES:-/opt/data_files} -JENDPOINT_BASE=${ENDPOINT_BASE:-localhost} -JENDPOINT_PORT=${ENDPOINT_PORT:-3000} -JENDPOINT_PROTOCOL=${ENDPOINT_PROTOCOL:-http} -JTHREADS=${THREADS:-1} -n -t ${JMETER_HOME}/jmeter-petclinic-server.jmx -j /dev/stdout ${RESULTS_FILE:+-l ${RESULTS_FILE}} "$@"
 echo "END Running Jmeter on `date`"
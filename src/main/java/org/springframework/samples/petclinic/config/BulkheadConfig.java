@@ -0,0 +1,26 @@
+package org.springframework.samples.petclinic.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.util.DatabaseBulkheadAspect;
+
+/**
+ * Bounds concurrent database access with a {@link DatabaseBulkheadAspect} when
+ * <code>petclinic.db.bulkhead.enabled=true</code> (set by the <code>virtual-threads</code> profile).
+ * <p>
+ * <code>petclinic.db.bulkhead.max-concurrent</code> defaults to the Hikari pool size, so that a thread holding a
+ * permit never has to wait for a connection; <code>petclinic.db.bulkhead.acquire-timeout</code> is in milliseconds.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.db.bulkhead.enabled", havingValue = "true")
+public class BulkheadConfig {
+
+    @Bean
+    public DatabaseBulkheadAspect databaseBulkheadAspect(
+        @Value("${petclinic.db.bulkhead.max-concurrent:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent,
+        @Value("${petclinic.db.bulkhead.acquire-timeout:5000}") long acquireTimeout) {
+        return new DatabaseBulkheadAspect(maxConcurrent, acquireTimeout);
+    }
+}
@@ -0,0 +1,83 @@
+package org.springframework.samples.petclinic.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.samples.petclinic.rest.ETagCache;
+import org.springframework.samples.petclinic.util.ResourceVersions;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Bounded in-process caches used by {@link org.springframework.samples.petclinic.service.ClinicServiceImpl}.
+ * <p>
+ * Each cache is a Caffeine cache whose size/TTL can be overridden with
+ * <code>petclinic.cache.&lt;name&gt;.spec</code> (Caffeine spec syntax). Set <code>petclinic.cache.type=none</code> to
+ * switch caching off. Puts are deferred until the surrounding transaction commits, so a rolled back transaction never
+ * leaves its reads behind in the cache; writes evict both immediately and after commit (see ClinicServiceImpl).
+ * <p>
+ * The <code>etags</code> cache holds the ETags of the {@link ETagCache}, checked against the {@link ResourceVersions}
+ * maintained by the writes of ClinicServiceImpl.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String VETS = "vets";
+
+    public static final String SPECIALTIES = "specialties";
+
+    public static final String PET_TYPES = "petTypes";
+
+    public static final String OWNERS = "owners";
+
+    public static final String ETAGS = "etags";
+
+    static final String REFERENCE_DATA_SPEC = "maximumSize=1000,expireAfterWrite=1h";
+
+    static final String OWNERS_SPEC = "maximumSize=10000,expireAfterWrite=10m";
+
+    static final String ETAGS_SPEC = "maximumSize=10000,expireAfterWrite=10m";
+
+    @Bean
+    @ConditionalOnProperty(name = "petclinic.cache.type", havingValue = "caffeine", matchIfMissing = true)
+    public CacheManager cacheManager(Environment environment) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        registerCache(cacheManager, environment, VETS, REFERENCE_DATA_SPEC);
+        registerCache(cacheManager, environment, SPECIALTIES, REFERENCE_DATA_SPEC);
+        registerCache(cacheManager, environment, PET_TYPES, REFERENCE_DATA_SPEC);
+        registerCache(cacheManager, environment, OWNERS, OWNERS_SPEC);
+        registerCache(cacheManager, environment, ETAGS, ETAGS_SPEC);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "petclinic.cache.type", havingValue = "none")
+    public CacheManager noOpCacheManager() {
+        return new NoOpCacheManager();
+    }
+
+    @Bean
+    public ResourceVersions resourceVersions() {
+        return new ResourceVersions();
+    }
+
+    @Bean
+    public ETagCache eTagCache(CacheManager cacheManager, ResourceVersions resourceVersions, ObjectMapper objectMapper) {
+        return new ETagCache(cacheManager.getCache(ETAGS), resourceVersions, objectMapper);
+    }
+
+    private static void registerCache(CaffeineCacheManager cacheManager, Environment environment,
+                                      String name, String defaultSpec) {
+        String spec = environment.getProperty("petclinic.cache." + name + ".spec", defaultSpec);
+        cacheManager.registerCustomCache(name, Caffeine.from(spec).recordStats().build());
+    }
+}
@@ -0,0 +1,46 @@
+package org.springframework.samples.petclinic.config;
+
+import java.time.Duration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.util.ConnectionPoolMonitor;
+
+/**
+ * Plugs the {@link ConnectionPoolMonitor} into every Hikari DataSource bean, before its pool starts, and exports it
+ * over JMX as <code>petclinic:type=ConnectionPools</code>. Pools copied from a monitored one (the read replicas of
+ * {@link ReadReplicaConfig}) are monitored too.
+ * <p>
+ * <code>petclinic.db.pool.acquire-warn-threshold</code> is the connection acquisition time above which a warning is
+ * logged, at most once per <code>petclinic.db.pool.warn-interval</code> and per pool.
+ */
+@Configuration
+public class ConnectionPoolConfig {
+
+    @Bean
+    public ConnectionPoolMonitor connectionPoolMonitor(
+        @Value("${petclinic.db.pool.acquire-warn-threshold:100ms}") Duration acquireWarnThreshold,
+        @Value("${petclinic.db.pool.warn-interval:10s}") Duration warnInterval) {
+        return new ConnectionPoolMonitor(acquireWarnThreshold, warnInterval);
+    }
+
+    @Bean
+    public static BeanPostProcessor connectionPoolMonitorPostProcessor(ObjectProvider<ConnectionPoolMonitor> monitor) {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // left alone if metrics are already collected some other way
+                if (bean instanceof HikariDataSource dataSource && dataSource.getMetricsTrackerFactory() == null
+                    && dataSource.getMetricRegistry() == null) {
+                    dataSource.setMetricsTrackerFactory(monitor.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
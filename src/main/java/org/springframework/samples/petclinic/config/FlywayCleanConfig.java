@@ -0,0 +1,26 @@
+package org.springframework.samples.petclinic.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Drops everything in the schema before migrating it when <code>petclinic.schema.clean-on-start=true</code> (set by
+ * the <code>hsqldb</code> profile, along with <code>spring.flyway.clean-disabled=false</code>).
+ * <p>
+ * The in-memory database outlives an application context when several share the JVM (e.g. test contexts): each one
+ * starts from the sample data, as <code>initDB.sql</code> used to do by dropping the tables first.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.schema.clean-on-start", havingValue = "true")
+public class FlywayCleanConfig {
+
+    @Bean
+    public FlywayMigrationStrategy cleanMigrationStrategy() {
+        return flyway -> {
+            flyway.clean();
+            flyway.migrate();
+        };
+    }
+}
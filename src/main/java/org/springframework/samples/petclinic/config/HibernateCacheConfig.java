@@ -0,0 +1,90 @@
+package org.springframework.samples.petclinic.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+import javax.cache.CacheManager;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Hibernate second-level and query cache of the <code>jpa</code> and <code>spring-data-jpa</code> profiles: reference
+ * data entities ({@link org.springframework.samples.petclinic.model.PetType PetType},
+ * {@link org.springframework.samples.petclinic.model.Specialty Specialty},
+ * {@link org.springframework.samples.petclinic.model.Vet Vet} and its specialties) and the results of the reference
+ * data queries, held in JCache caches provided by Caffeine.
+ * <p>
+ * Every region is created here, bounded by <code>petclinic.hibernate.cache.maximum-size</code> entries and
+ * <code>petclinic.hibernate.cache.expire-after-write</code>; Hibernate fails to start on a region that is not listed.
+ * The update timestamps region holds one entry per table and never expires, otherwise cached query results could
+ * outlive a write. Statistics are published as JCache MBeans (<code>javax.cache:type=CacheStatistics</code>) and
+ * through <code>GET /api/caches/hibernate</code>.
+ * <p>
+ * Writes made through Hibernate, including bulk HQL and native statements, invalidate the affected regions; writes
+ * made outside the application are picked up when the entries expire.
+ */
+@Configuration
+@Profile({"jpa", "spring-data-jpa"})
+public class HibernateCacheConfig {
+
+    public static final String PET_TYPE_REGION = "petType";
+
+    public static final String SPECIALTY_REGION = "specialty";
+
+    public static final String VET_REGION = "vet";
+
+    public static final String VET_SPECIALTIES_REGION = "vet.specialties";
+
+    static final List<String> DATA_REGIONS = List.of(PET_TYPE_REGION, SPECIALTY_REGION, VET_REGION,
+        VET_SPECIALTIES_REGION, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+
+    /**
+     * A provider of its own rather than the JVM-wide one from <code>Caching.getCachingProvider()</code>, which hands
+     * out the same cache manager to every application context that asks for the same URI (e.g. test contexts).
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+        @Value("${petclinic.hibernate.cache.maximum-size:1000}") long maximumSize,
+        @Value("${petclinic.hibernate.cache.expire-after-write:1h}") Duration expireAfterWrite) {
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        for (String region : DATA_REGIONS) {
+            CaffeineConfiguration<Object, Object> configuration = configuration();
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+            cacheManager.createCache(region, configuration);
+        }
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, configuration());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuration() {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStatisticsEnabled(true);
+        configuration.setManagementEnabled(true);
+        configuration.setNativeStatisticsEnabled(true);
+        return configuration;
+    }
+}
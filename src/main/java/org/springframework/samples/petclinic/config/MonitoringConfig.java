@@ -0,0 +1,28 @@
+package org.springframework.samples.petclinic.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableMBeanExport;
+import org.springframework.jmx.support.RegistrationPolicy;
+import org.springframework.samples.petclinic.util.CallMonitoringAspect;
+
+/**
+ * Registers the {@link CallMonitoringAspect} around every repository and exports it over JMX as
+ * <code>petclinic:type=CallMonitor</code>. Set <code>petclinic.monitoring.enabled=false</code> to start with
+ * monitoring switched off; it can be switched on again at runtime through the <code>Enabled</code> JMX attribute.
+ * <p>
+ * Several application contexts (e.g. one per test profile) may share a JVM, so an existing MBean is replaced rather
+ * than failing the context.
+ */
+@Configuration
+@EnableMBeanExport(registration = RegistrationPolicy.REPLACE_EXISTING)
+public class MonitoringConfig {
+
+    @Bean
+    public CallMonitoringAspect callMonitoringAspect(@Value("${petclinic.monitoring.enabled:true}") boolean enabled) {
+        CallMonitoringAspect callMonitoringAspect = new CallMonitoringAspect();
+        callMonitoringAspect.setEnabled(enabled);
+        return callMonitoringAspect;
+    }
+}
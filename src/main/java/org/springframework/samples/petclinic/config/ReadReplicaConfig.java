@@ -0,0 +1,108 @@
+package org.springframework.samples.petclinic.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.samples.petclinic.rest.ReadYourWritesFilter;
+import org.springframework.samples.petclinic.util.PrimaryCacheLoadAspect;
+import org.springframework.samples.petclinic.util.ReadReplicaDataSource;
+import org.springframework.samples.petclinic.util.ReadReplicaDataSource.Selection;
+import org.springframework.samples.petclinic.util.ReadYourWrites;
+import org.springframework.util.StringUtils;
+
+/**
+ * Sends read-only transactions to read replicas when <code>petclinic.read-replicas.enabled=true</code>.
+ * <p>
+ * The primary is the usual <code>spring.datasource</code> Hikari pool. Each of <code>petclinic.read-replicas.urls</code>
+ * gets a read-only pool with the same settings (and credentials, unless <code>petclinic.read-replicas.username</code>
+ * and <code>password</code> are set). The application's DataSource is a {@link LazyConnectionDataSourceProxy}: it only
+ * takes a connection at the first statement of a transaction, once it knows whether the transaction is read-only
+ * (<code>@Transactional(readOnly = true)</code>), and takes it from the {@link ReadReplicaDataSource} if so.
+ * <p>
+ * The <code>@Cacheable</code> methods of the services are loaded from the primary all the same (see
+ * {@link PrimaryCacheLoadAspect}): what a lagging replica returns right after a write would otherwise stay in the
+ * caches, and be served to the writer too, for their whole TTL.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.read-replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(@Value("${petclinic.read-replicas.sticky-window:5s}") Duration stickyWindow) {
+        return new ReadYourWrites(stickyWindow.toMillis());
+    }
+
+    @Bean
+    public ReadReplicaDataSource readReplicaDataSource(
+        HikariDataSource primaryDataSource, ReadYourWrites readYourWrites,
+        @Value("${petclinic.read-replicas.urls}") List<String> urls,
+        @Value("${petclinic.read-replicas.username:}") String username,
+        @Value("${petclinic.read-replicas.password:}") String password,
+        @Value("${petclinic.read-replicas.selection:round-robin}") Selection selection,
+        @Value("${petclinic.read-replicas.connection-timeout:2s}") Duration connectionTimeout,
+        @Value("${petclinic.read-replicas.check-interval:10s}") Duration checkInterval,
+        @Value("${petclinic.read-replicas.lag-query:}") String lagQuery,
+        @Value("${petclinic.read-replicas.max-lag:30s}") Duration maxLag) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            HikariDataSource replica = new HikariDataSource();
+            // the primary's settings, connection pool monitor included
+            primaryDataSource.copyStateTo(replica);
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setJdbcUrl(url);
+            if (StringUtils.hasText(username)) {
+                replica.setUsername(username);
+                replica.setPassword(password);
+            }
+            replica.setReadOnly(true);
+            // a replica that is down is ejected quickly instead of holding the request for the primary's timeout,
+            // and does not prevent the application from starting
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReadReplicaDataSource(primaryDataSource, replicas, selection, readYourWrites, lagQuery, maxLag,
+            checkInterval);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReadReplicaDataSource readReplicaDataSource,
+                                 ReadYourWrites readYourWrites) {
+        LazyConnectionDataSourceProxy dataSource =
+            new LazyConnectionDataSourceProxy(readYourWrites.trackWrites(primaryDataSource));
+        dataSource.setReadOnlyDataSource(readReplicaDataSource);
+        return dataSource;
+    }
+
+    @Bean
+    public PrimaryCacheLoadAspect primaryCacheLoadAspect(ReadYourWrites readYourWrites) {
+        return new PrimaryCacheLoadAspect(readYourWrites);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReadYourWrites readYourWrites) {
+        return new ReadYourWritesFilter(readYourWrites);
+    }
+}
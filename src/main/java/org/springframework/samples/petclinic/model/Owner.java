@@ -25,6 +25,9 @@ import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.Digits;
@@ -50,9 +53,19 @@ import org.springframework.samples.petclinic.validation.ZipCodeConstraint;
  */
 @Entity
 @Table(name = "owners")
+@NamedEntityGraph(name = Owner.DETAIL_GRAPH,
+    attributeNodes = @NamedAttributeNode(value = "pets", subgraph = "pets"),
+    subgraphs = @NamedSubgraph(name = "pets", attributeNodes = {@NamedAttributeNode("type"), @NamedAttributeNode("visits")}))
 @JsonSerialize(using = JacksonCustomOwnerSerializer.class)
 @JsonDeserialize(using = JacksonCustomOwnerDeserializer.class)
 public class Owner extends Person {
+
+    /**
+     * Fetch plan of the owner detail and owner lists: pets with their type and visits, everything the owner
+     * representation shows.
+     */
+    public static final String DETAIL_GRAPH = "Owner.detail";
+
     @Column(name = "address")
     @NotBlank(message = "may not be empty")
     private String address;
@@ -75,7 +88,7 @@ public class Owner extends Person {
     @Digits(fraction = 0, integer = 10)
     private String telephone;
 
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "owner", fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "owner", fetch = FetchType.LAZY)
     private Set<Pet> pets;
 
 
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.util.List;
+
+/**
+ * Read model of an owner for search results: the fields of the owner list plus the names of its pets, without pet
+ * types, birth dates or visits.
+ *
+ * @param pets names of the owner's pets, in alphabetical order
+ */
+public record OwnerSummary(int id, String firstName, String lastName, String address, String city, String telephone,
+                           List<String> pets) {
+
+    public OwnerSummary {
+        pets = List.copyOf(pets);
+    }
+}
@@ -15,15 +15,22 @@
  */
 package org.springframework.samples.petclinic.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.samples.petclinic.config.HibernateCacheConfig;
+
 /**
  * @author Juergen Hoeller
  *         Can be Cat, Dog, Hamster...
  */
 @Entity
 @Table(name = "types")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.PET_TYPE_REGION)
 public class PetType extends NamedEntity {
 
 }
@@ -15,9 +15,14 @@
  */
 package org.springframework.samples.petclinic.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.samples.petclinic.config.HibernateCacheConfig;
+
 /**
  * Models a {@link Vet Vet's} specialty (for example, dentistry).
  *
@@ -25,6 +30,8 @@ import jakarta.persistence.Table;
  */
 @Entity
 @Table(name = "specialties")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.SPECIALTY_REGION)
 public class Specialty extends NamedEntity {
 
 }
@@ -24,7 +24,7 @@ public class User implements Persistable<String> {
     @Column(name = "enabled")
     private Boolean enabled;
 
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "user", fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "user", fetch = FetchType.LAZY, orphanRemoval = true)
     @NotNull(message = "may not be null")
     @NotEmpty(message = "may not be empty")
     private Set<Role> roles = new HashSet<>();
@@ -21,16 +21,22 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.Table;
 import jakarta.xml.bind.annotation.XmlElement;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.beans.support.MutableSortDefinition;
 import org.springframework.beans.support.PropertyComparator;
+import org.springframework.samples.petclinic.config.HibernateCacheConfig;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -44,9 +50,18 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  */
 @Entity
 @Table(name = "vets")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.VET_REGION)
+@NamedEntityGraph(name = Vet.LIST_GRAPH, attributeNodes = @NamedAttributeNode("specialties"))
 public class Vet extends Person {
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    /**
+     * Fetch plan of vet lists and the vet detail: specialties.
+     */
+    public static final String LIST_GRAPH = "Vet.list";
+
+    @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.VET_SPECIALTIES_REGION)
     @JoinTable(name = "vet_specialties", joinColumns = @JoinColumn(name = "vet_id"),
         inverseJoinColumns = @JoinColumn(name = "specialty_id"))
     private Set<Specialty> specialties;
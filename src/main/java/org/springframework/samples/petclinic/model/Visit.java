@@ -19,8 +19,12 @@ import java.util.Date;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
@@ -41,10 +45,18 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
  */
 @Entity
 @Table(name = "visits")
+@NamedEntityGraph(name = Visit.LIST_GRAPH,
+    attributeNodes = @NamedAttributeNode(value = "pet", subgraph = "pet"),
+    subgraphs = @NamedSubgraph(name = "pet", attributeNodes = {@NamedAttributeNode("type"), @NamedAttributeNode("owner")}))
 @JsonSerialize(using = JacksonCustomVisitSerializer.class)
 @JsonDeserialize(using = JacksonCustomVisitDeserializer.class)
 public class Visit extends BaseEntity {
 
+    /**
+     * Fetch plan of visit lists and the visit detail: the pet with its type and owner, but not the pet's other visits.
+     */
+    public static final String LIST_GRAPH = "Visit.list";
+
     /**
      * Holds value of property date.
      */
@@ -64,7 +76,7 @@ public class Visit extends BaseEntity {
     /**
      * Holds value of property pet.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "pet_id")
     private Pet pet;
 
@@ -21,16 +21,55 @@ import java.util.Collection;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 
+/**
+ * Repository class for <code>Owner</code> domain objects. Owners are returned with their pets, pet types and visits
+ * ({@link Owner#DETAIL_GRAPH}), except by {@link #findSummariesByLastName}.
+ */
 public interface OwnerRepository {
 
     Collection<Owner> findByLastName(String lastName) throws DataAccessException;
 
+    /**
+     * Retrieve lightweight {@link OwnerSummary} projections (owner fields and pet names only) of the owners whose last
+     * name starts with the given name, ordered by last name, first name and id.
+     *
+     * @param lastName Value to search for
+     * @return a <code>Collection</code> of matching summaries (or an empty <code>Collection</code> if none found)
+     */
+    Collection<OwnerSummary> findSummariesByLastName(String lastName) throws DataAccessException;
+
     Owner findById(int id) throws DataAccessException;
 
     void save(Owner owner) throws DataAccessException;
 
+    /**
+     * Insert the given new <code>Owner</code>s together with their new pets, in as few round trips as the persistence
+     * technology allows. Owners and pets get their generated ids. Meant to be called within a transaction, with a
+     * bounded number of owners.
+     *
+     * @param owners new <code>Owner</code>s, whose pets each have a type with an id
+     */
+    void insertAll(Collection<Owner> owners) throws DataAccessException;
+
     Collection<Owner> findAll() throws DataAccessException;
 
+    /**
+     * Retrieve a page of <code>Owner</code>s ordered by id, starting after the given id (keyset pagination).
+     *
+     * @param afterId the id of the last <code>Owner</code> of the previous page, or 0 for the first page
+     * @param limit   the maximum number of <code>Owner</code>s to return
+     * @return a <code>Collection</code> of at most <code>limit</code> <code>Owner</code>s
+     */
+    Collection<Owner> findAllAfter(int afterId, int limit) throws DataAccessException;
+
+    /**
+     * Count the <code>Owner</code>s in the data store.
+     *
+     * @return the number of <code>Owner</code>s
+     */
+    long count() throws DataAccessException;
+
     void delete(Owner owner) throws DataAccessException;
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.samples.petclinic.model.OwnerSummary;
+
+/**
+ * Assembles {@link OwnerSummary} projections from the rows of a query joining owners with the names of their pets,
+ * one row per pet (or a single row with a <code>null</code> pet name for an owner without pets). The rows of an owner
+ * must be consecutive and in pet name order.
+ */
+public final class OwnerSummaryRows {
+
+    /**
+     * JPQL returning the rows expected by {@link #add(Object[])}, for owners whose last name is <code>LIKE</code> the
+     * <code>lastName</code> parameter.
+     */
+    public static final String JPQL = "SELECT owner.id, owner.firstName, owner.lastName, owner.address, owner.city, " +
+        "owner.telephone, pet.name FROM Owner owner LEFT JOIN owner.pets pet WHERE owner.lastName LIKE :lastName " +
+        "ORDER BY owner.lastName, owner.firstName, owner.id, pet.name";
+
+    private final List<OwnerSummary> summaries = new ArrayList<>();
+
+    private final List<String> pets = new ArrayList<>();
+
+    /** The owner whose rows are being read, with its pets still in {@link #pets}. */
+    private OwnerSummary owner;
+
+    public void add(int id, String firstName, String lastName, String address, String city, String telephone,
+                    String petName) {
+        if (this.owner == null || this.owner.id() != id) {
+            flush();
+            this.owner = new OwnerSummary(id, firstName, lastName, address, city, telephone, List.of());
+        }
+        if (petName != null) {
+            this.pets.add(petName);
+        }
+    }
+
+    /**
+     * @param row the columns of {@link #JPQL}
+     */
+    public void add(Object[] row) {
+        add((Integer) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4], (String) row[5],
+            (String) row[6]);
+    }
+
+    public List<OwnerSummary> toList() {
+        flush();
+        return this.summaries;
+    }
+
+    private void flush() {
+        if (this.owner != null) {
+            this.summaries.add(new OwnerSummary(this.owner.id(), this.owner.firstName(), this.owner.lastName(),
+                this.owner.address(), this.owner.city(), this.owner.telephone(), this.pets));
+            this.owner = null;
+            this.pets.clear();
+        }
+    }
+}
@@ -26,6 +26,8 @@ import org.springframework.samples.petclinic.model.PetType;
 /**
  * Repository class for <code>Pet</code> domain objects All method names are compliant with Spring Data naming
  * conventions so this interface can easily be extended for Spring Data See here: http://static.springsource.org/spring-data/jpa/docs/current/reference/html/jpa.repositories.html#jpa.query-methods.query-creation
+ * <p>
+ * Pets are returned with their type, owner and visits ({@link Pet#DETAIL_GRAPH}).
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
@@ -67,6 +69,15 @@ public interface PetRepository {
      */
 	Collection<Pet> findAll() throws DataAccessException;
 
+    /**
+     * Retrieve a page of <code>Pet</code>s ordered by id, starting after the given id (keyset pagination).
+     *
+     * @param afterId the id of the last <code>Pet</code> of the previous page, or 0 for the first page
+     * @param limit   the maximum number of <code>Pet</code>s to return
+     * @return a <code>Collection</code> of at most <code>limit</code> <code>Pet</code>s
+     */
+	Collection<Pet> findAllAfter(int afterId, int limit) throws DataAccessException;
+
     /**
      * Delete an <code>Pet</code> to the data store by <code>Pet</code>.
      *
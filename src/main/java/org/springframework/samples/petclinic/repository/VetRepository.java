@@ -23,6 +23,8 @@ import org.springframework.samples.petclinic.model.Vet;
 /**
  * Repository class for <code>Vet</code> domain objects All method names are compliant with Spring Data naming
  * conventions so this interface can easily be extended for Spring Data See here: http://static.springsource.org/spring-data/jpa/docs/current/reference/html/jpa.repositories.html#jpa.query-methods.query-creation
+ * <p>
+ * Vets are returned with their specialties ({@link Vet#LIST_GRAPH}).
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
@@ -15,6 +15,7 @@
  */
 package org.springframework.samples.petclinic.repository;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 
@@ -25,6 +26,8 @@ import org.springframework.samples.petclinic.model.Visit;
 /**
  * Repository class for <code>Visit</code> domain objects All method names are compliant with Spring Data naming
  * conventions so this interface can easily be extended for Spring Data See here: http://static.springsource.org/spring-data/jpa/docs/current/reference/html/jpa.repositories.html#jpa.query-methods.query-creation
+ * <p>
+ * Visits are returned with their pet, its type and owner ({@link Visit#LIST_GRAPH}).
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
@@ -42,12 +45,62 @@ public interface VisitRepository {
      */
     void save(Visit visit) throws DataAccessException;
 
+    /**
+     * Save the given <code>Visit</code>s to the data store in as few round trips as the persistence technology allows,
+     * inserting the new ones (which get their generated id) and updating the others. Meant to be called within a
+     * transaction, with a bounded number of visits.
+     *
+     * @param visits the <code>Visit</code>s to save, each with a pet that has an id
+     * @throws org.springframework.orm.ObjectRetrievalFailureException if a <code>Visit</code> to update does not
+     *                                                                 exist
+     * @see BaseEntity#isNew
+     */
+    void saveAll(Collection<Visit> visits) throws DataAccessException;
+
     List<Visit> findByPetId(Integer petId);
+
+    /**
+     * Retrieve a page of the <code>Visit</code>s of a period, ordered by date then id, starting after the given
+     * <code>(date, id)</code> (keyset pagination). The dates are compared as <code>[afterDate, to + 1 day)</code>,
+     * which the index on <code>visit_date</code> serves.
+     *
+     * @param afterDate the date of the last <code>Visit</code> of the previous page, or the first day of the period
+     *                  for the first page
+     * @param afterId   the id of the last <code>Visit</code> of the previous page, or 0 for the first page
+     * @param to        the last day of the period, included
+     * @param limit     the maximum number of <code>Visit</code>s to return
+     * @return at most <code>limit</code> <code>Visit</code>s of the period
+     */
+    List<Visit> findByDateRange(LocalDate afterDate, int afterId, LocalDate to, int limit) throws DataAccessException;
+
+    /**
+     * Retrieve a page of the <code>Visit</code>s of a pet in a period, ordered by date then id, see
+     * {@link #findByDateRange(LocalDate, int, LocalDate, int)}.
+     *
+     * @param petId     the id of the pet
+     * @param afterDate the date of the last <code>Visit</code> of the previous page, or the first day of the period
+     *                  for the first page
+     * @param afterId   the id of the last <code>Visit</code> of the previous page, or 0 for the first page
+     * @param to        the last day of the period, included
+     * @param limit     the maximum number of <code>Visit</code>s to return
+     * @return at most <code>limit</code> <code>Visit</code>s of the pet in the period
+     */
+    List<Visit> findByPetIdAndDateRange(int petId, LocalDate afterDate, int afterId, LocalDate to, int limit)
+        throws DataAccessException;
     
 	Visit findById(int id) throws DataAccessException;
 	
 	Collection<Visit> findAll() throws DataAccessException;
 
+    /**
+     * Retrieve a page of <code>Visit</code>s ordered by id, starting after the given id (keyset pagination).
+     *
+     * @param afterId the id of the last <code>Visit</code> of the previous page, or 0 for the first page
+     * @param limit   the maximum number of <code>Visit</code>s to return
+     * @return a <code>Collection</code> of at most <code>limit</code> <code>Visit</code>s
+     */
+	Collection<Visit> findAllAfter(int afterId, int limit) throws DataAccessException;
+
 	void delete(Visit visit) throws DataAccessException;
 
 }
@@ -17,6 +17,7 @@
 
 package org.springframework.samples.petclinic.repository.jdbc;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -33,22 +34,36 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
-import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.repository.OwnerSummaryRows;
+import org.springframework.samples.petclinic.util.EntityIndex;
 import org.springframework.stereotype.Repository;
 
 @Repository
 @Profile("jdbc")
 public class JdbcOwnerRepositoryImpl implements OwnerRepository {
 
+    /**
+     * Máximo de ids por cláusula IN (...) ao carregar pets e visitas em lote.
+     */
+    static final int IN_CLAUSE_BATCH_SIZE = 1000;
+
+    private static final JdbcVisitRowMapper VISIT_ROW_MAPPER = new JdbcVisitRowMapper();
+
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final SimpleJdbcInsert insertOwner;
 
@@ -75,6 +90,22 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
         return owners;
     }
 
+    @Override
+    public Collection<OwnerSummary> findSummariesByLastName(String lastName) throws DataAccessException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("lastName", lastName + "%");
+        OwnerSummaryRows rows = new OwnerSummaryRows();
+        this.namedParameterJdbcTemplate.query(
+            "SELECT owners.id, first_name, last_name, address, city, telephone, pets.name AS pet_name " +
+            "FROM owners LEFT JOIN pets ON pets.owner_id = owners.id WHERE last_name LIKE :lastName " +
+            "ORDER BY last_name, first_name, owners.id, pets.name",
+            params,
+            (RowCallbackHandler) rs -> rows.add(rs.getInt("id"), rs.getString("first_name"), rs.getString("last_name"),
+                rs.getString("address"), rs.getString("city"), rs.getString("telephone"), rs.getString("pet_name"))
+        );
+        return rows.toList();
+    }
+
     @Override
     public Owner findById(int id) throws DataAccessException {
         try {
@@ -95,43 +126,12 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
 
     /**
      * Carrega pets e visitas de um Owner.
-     * Consulta pets primeiro e, para cada pet, carrega as visitas em uma segunda query.
      */
     public void loadPetsAndVisits(final Owner owner) throws DataAccessException {
         if (owner == null || owner.getId() == null) {
             return;
         }
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("ownerId", owner.getId());
-
-        // 1) Pets do Owner
-        final List<JdbcPet> pets = this.namedParameterJdbcTemplate.query(
-            "SELECT p.id AS pets_id, p.name, p.birth_date, p.type_id, p.owner_id " +
-            "FROM pets p WHERE p.owner_id = :ownerId ORDER BY p.id",
-            params,
-            new JdbcPetRowMapper()
-        );
-
-        // Tipos de Pet para mapear type_id -> PetType
-        Collection<PetType> petTypes = getPetTypes();
-
-        for (JdbcPet pet : pets) {
-            // Seta o PetType do pet
-            pet.setType(EntityUtils.getById(petTypes, PetType.class, pet.getTypeId()));
-            owner.addPet(pet);
-
-            // 2) Visitas do pet
-            Map<String, Object> vParams = Collections.singletonMap("petId", pet.getId());
-            List<Visit> visits = this.namedParameterJdbcTemplate.query(
-                "SELECT id, visit_date, description, pet_id FROM visits WHERE pet_id = :petId ORDER BY visit_date",
-                vParams,
-                new JdbcVisitRowMapper()
-            );
-            for (Visit v : visits) {
-                pet.addVisit(v);
-            }
-        }
+        loadOwnersPetsAndVisits(Collections.singletonList(owner));
     }
 
     @Override
@@ -150,6 +150,55 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
         }
     }
 
+    /**
+     * Owners are inserted with one JDBC batch whose generated keys are read back, then their pets with another.
+     */
+    @Override
+    public void insertAll(Collection<Owner> owners) throws DataAccessException {
+        List<Pet> pets = new ArrayList<>();
+        BeanPropertySqlParameterSource[] ownerParams = new BeanPropertySqlParameterSource[owners.size()];
+        int i = 0;
+        for (Owner owner : owners) {
+            ownerParams[i++] = new BeanPropertySqlParameterSource(owner);
+            pets.addAll(owner.getPets());
+        }
+        List<Integer> ownerIds = insertBatch(
+            "INSERT INTO owners (first_name, last_name, address, city, state, zip_code, telephone) " +
+                "VALUES (:firstName, :lastName, :address, :city, :state, :zipCode, :telephone)", ownerParams);
+        i = 0;
+        for (Owner owner : owners) {
+            owner.setId(ownerIds.get(i++));
+        }
+        if (pets.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource[] petParams = new MapSqlParameterSource[pets.size()];
+        for (i = 0; i < petParams.length; i++) {
+            Pet pet = pets.get(i);
+            petParams[i] = new MapSqlParameterSource()
+                .addValue("name", pet.getName())
+                .addValue("birth_date", pet.getBirthDate())
+                .addValue("type_id", pet.getType().getId())
+                .addValue("owner_id", pet.getOwner().getId());
+        }
+        List<Integer> petIds = insertBatch(
+            "INSERT INTO pets (name, birth_date, type_id, owner_id) VALUES (:name, :birth_date, :type_id, :owner_id)",
+            petParams);
+        for (i = 0; i < petIds.size(); i++) {
+            pets.get(i).setId(petIds.get(i));
+        }
+    }
+
+    private List<Integer> insertBatch(String sql, SqlParameterSource[] batch) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        this.namedParameterJdbcTemplate.batchUpdate(sql, batch, keyHolder, new String[]{"id"});
+        List<Integer> ids = new ArrayList<>(batch.length);
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.values().iterator().next()).intValue());
+        }
+        return ids;
+    }
+
     public Collection<PetType> getPetTypes() throws DataAccessException {
         return this.namedParameterJdbcTemplate.query(
             "SELECT id, name FROM types ORDER BY name",
@@ -158,10 +207,62 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
         );
     }
 
+    /**
+     * Carrega pets e visitas de um conjunto de Owners com um número fixo de queries por lote:
+     * uma para os tipos, uma para os pets de até {@link #IN_CLAUSE_BATCH_SIZE} owners e uma para
+     * as visitas de até {@link #IN_CLAUSE_BATCH_SIZE} pets. O grafo é montado em memória.
+     */
     private void loadOwnersPetsAndVisits(List<Owner> owners) throws DataAccessException {
+        if (owners.isEmpty()) {
+            return;
+        }
+
+        // 1) Tipos de Pet para mapear type_id -> PetType (uma única query)
+        EntityIndex<PetType> petTypes = EntityIndex.of(getPetTypes());
+
+        EntityIndex<Owner> ownersById = EntityIndex.of(owners);
+        List<Integer> ownerIdList = new ArrayList<>(owners.size());
         for (Owner owner : owners) {
-            loadPetsAndVisits(owner);
+            ownerIdList.add(owner.getId());
+        }
+
+        // 2) Pets de todos os owners, em lotes de IN (...)
+        EntityIndex<JdbcPet> petsById = new EntityIndex<>(owners.size());
+        List<Integer> petIdList = new ArrayList<>();
+        for (List<Integer> ownerIds : partition(ownerIdList)) {
+            List<JdbcPet> pets = this.namedParameterJdbcTemplate.query(
+                "SELECT p.id AS pets_id, p.name, p.birth_date, p.type_id, p.owner_id " +
+                "FROM pets p WHERE p.owner_id IN (:ownerIds) ORDER BY p.id",
+                Collections.singletonMap("ownerIds", ownerIds),
+                new JdbcPetRowMapper()
+            );
+            for (JdbcPet pet : pets) {
+                pet.setType(petTypes.getById(PetType.class, pet.getTypeId()));
+                ownersById.get(pet.getOwnerId()).addPet(pet);
+                petsById.put(pet);
+                petIdList.add(pet.getId());
+            }
         }
+
+        // 3) Visitas de todos os pets, em lotes de IN (...)
+        for (List<Integer> petIds : partition(petIdList)) {
+            this.namedParameterJdbcTemplate.query(
+                "SELECT id AS visit_id, visit_date, description, pet_id FROM visits WHERE pet_id IN (:petIds) ORDER BY visit_date",
+                Collections.singletonMap("petIds", petIds),
+                (RowCallbackHandler) rs -> {
+                    Visit visit = VISIT_ROW_MAPPER.mapRow(rs, 0);
+                    petsById.get(rs.getInt("pet_id")).addVisit(visit);
+                }
+            );
+        }
+    }
+
+    private static List<List<Integer>> partition(List<Integer> ids) {
+        List<List<Integer>> batches = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += IN_CLAUSE_BATCH_SIZE) {
+            batches.add(ids.subList(i, Math.min(i + IN_CLAUSE_BATCH_SIZE, ids.size())));
+        }
+        return batches;
     }
 
     @Override
@@ -171,39 +272,42 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
             Collections.emptyMap(),
             BeanPropertyRowMapper.newInstance(Owner.class)
         );
-        for (Owner owner : owners) {
-            loadPetsAndVisits(owner);
-        }
+        loadOwnersPetsAndVisits(owners);
         return owners;
     }
 
     @Override
-    @Transactional
-    public void delete(Owner owner) throws DataAccessException {
-        if (owner == null || owner.getId() == null) return;
-
-        Map<String, Object> ownerParams = new HashMap<>();
-        ownerParams.put("id", owner.getId());
-
-        // Carrega pets para deletar em cascata
+    public Collection<Owner> findAllAfter(int afterId, int limit) throws DataAccessException {
         Map<String, Object> params = new HashMap<>();
-        params.put("ownerId", owner.getId());
-        final List<Pet> pets = this.namedParameterJdbcTemplate.query(
-            "SELECT id, name, birth_date, type_id, owner_id FROM pets WHERE owner_id = :ownerId",
+        params.put("afterId", afterId);
+        params.put("limit", limit);
+        List<Owner> owners = this.namedParameterJdbcTemplate.query(
+            "SELECT id, first_name, last_name, address, city, telephone, state, zip_code " +
+            "FROM owners WHERE id > :afterId ORDER BY id LIMIT :limit",
             params,
-            new BeanPropertyRowMapper<>(Pet.class)
+            BeanPropertyRowMapper.newInstance(Owner.class)
         );
+        loadOwnersPetsAndVisits(owners);
+        return owners;
+    }
 
-        for (Pet pet : pets) {
-            Map<String, Object> petParams = Collections.singletonMap("id", pet.getId());
+    @Override
+    public long count() throws DataAccessException {
+        return this.namedParameterJdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM owners", Collections.emptyMap(), Long.class);
+    }
 
-            // Apaga visitas do pet
-            this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE pet_id = :id", petParams);
-            // Apaga o pet
-            this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id = :id", petParams);
-        }
+    @Override
+    @Transactional
+    public void delete(Owner owner) throws DataAccessException {
+        if (owner == null || owner.getId() == null) return;
+
+        Map<String, Object> params = Collections.singletonMap("id", owner.getId());
 
-        // Por fim, apaga o owner
-        this.namedParameterJdbcTemplate.update("DELETE FROM owners WHERE id = :id", ownerParams);
+        // Cascata em lote: visitas e pets do owner com um DELETE cada, sem carregar os pets
+        this.namedParameterJdbcTemplate.update(
+            "DELETE FROM visits WHERE pet_id IN (SELECT id FROM pets WHERE owner_id = :id)", params);
+        this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE owner_id = :id", params);
+        this.namedParameterJdbcTemplate.update("DELETE FROM owners WHERE id = :id", params);
     }
 }
@@ -17,9 +17,12 @@ package org.springframework.samples.petclinic.repository.jdbc;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
@@ -35,10 +38,10 @@ import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
-import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
 import org.springframework.samples.petclinic.repository.PetRepository;
 import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.util.EntityIndex;
 import org.springframework.samples.petclinic.util.EntityUtils;
 import org.springframework.stereotype.Repository;
 
@@ -143,26 +146,56 @@ public class JdbcPetRepositoryImpl implements PetRepository {
 				"SELECT id, first_name, last_name, address, city, telephone, state, zip_code FROM owners ORDER BY last_name",
 				new HashMap<String, Object>(),
 				BeanPropertyRowMapper.newInstance(Owner.class));
+		EntityIndex<PetType> petTypesById = EntityIndex.of(petTypes);
+		EntityIndex<Owner> ownersById = EntityIndex.of(owners);
 		for (JdbcPet jdbcPet : jdbcPets) {
-			jdbcPet.setType(EntityUtils.getById(petTypes, PetType.class, jdbcPet.getTypeId()));
-			jdbcPet.setOwner(EntityUtils.getById(owners, Owner.class, jdbcPet.getOwnerId()));
+			jdbcPet.setType(petTypesById.getById(PetType.class, jdbcPet.getTypeId()));
+			jdbcPet.setOwner(ownersById.getById(Owner.class, jdbcPet.getOwnerId()));
 			// TODO add visits
 			pets.add(jdbcPet);
 		}
 		return pets;
 	}
 
+	@Override
+	public Collection<Pet> findAllAfter(int afterId, int limit) throws DataAccessException {
+		Map<String, Object> params = new HashMap<>();
+		params.put("afterId", afterId);
+		params.put("limit", limit);
+		List<JdbcPet> jdbcPets = this.namedParameterJdbcTemplate.query(
+				"SELECT pets.id as pets_id, name, birth_date, type_id, owner_id FROM pets " +
+				"WHERE pets.id > :afterId ORDER BY pets.id LIMIT :limit",
+				params,
+				new JdbcPetRowMapper());
+		if (jdbcPets.isEmpty()) {
+			return new ArrayList<Pet>();
+		}
+		Set<Integer> ownerIds = new HashSet<>();
+		for (JdbcPet jdbcPet : jdbcPets) {
+			ownerIds.add(jdbcPet.getOwnerId());
+		}
+		Collection<PetType> petTypes = findPetTypes();
+		Collection<Owner> owners = this.namedParameterJdbcTemplate.query(
+				"SELECT id, first_name, last_name, address, city, telephone, state, zip_code FROM owners WHERE id IN (:ownerIds)",
+				Collections.singletonMap("ownerIds", ownerIds),
+				BeanPropertyRowMapper.newInstance(Owner.class));
+		Collection<Pet> pets = new ArrayList<Pet>();
+		EntityIndex<PetType> petTypesById = EntityIndex.of(petTypes);
+		EntityIndex<Owner> ownersById = EntityIndex.of(owners);
+		for (JdbcPet jdbcPet : jdbcPets) {
+			jdbcPet.setType(petTypesById.getById(PetType.class, jdbcPet.getTypeId()));
+			jdbcPet.setOwner(ownersById.getById(Owner.class, jdbcPet.getOwnerId()));
+			pets.add(jdbcPet);
+		}
+		return pets;
+	}
+
 	@Override
 	public void delete(Pet pet) throws DataAccessException {
 		Map<String, Object> pet_params = new HashMap<>();
 		pet_params.put("id", pet.getId());
-		List<Visit> visits = pet.getVisits();
 		// cascade delete visits
-		for (Visit visit : visits) {
-			Map<String, Object> visit_params = new HashMap<>();
-			visit_params.put("id", visit.getId());
-			this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id=:id", visit_params);
-		}
+		this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE pet_id=:id", pet_params);
 		this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id=:id", pet_params);
 	}
 
@@ -16,10 +16,8 @@
 
 package org.springframework.samples.petclinic.repository.jdbc;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import javax.sql.DataSource;
@@ -33,9 +31,7 @@ import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.orm.ObjectRetrievalFailureException;
-import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
-import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.PetTypeRepository;
 import org.springframework.stereotype.Repository;
 
@@ -101,29 +97,11 @@ public class JdbcPetTypeRepositoryImpl implements PetTypeRepository {
 	public void delete(PetType petType) throws DataAccessException {
 		Map<String, Object> pettype_params = new HashMap<>();
 		pettype_params.put("id", petType.getId());
-		List<Pet> pets = new ArrayList<Pet>();
-		pets = this.namedParameterJdbcTemplate.
-    			query("SELECT pets.id, name, birth_date, type_id, owner_id FROM pets WHERE type_id=:id",
-    			pettype_params,
-    			BeanPropertyRowMapper.newInstance(Pet.class));
-		// cascade delete pets
-		for (Pet pet : pets){
-			Map<String, Object> pet_params = new HashMap<>();
-			pet_params.put("id", pet.getId());
-			List<Visit> visits = new ArrayList<Visit>();
-			visits = this.namedParameterJdbcTemplate.query(
-		            "SELECT id, pet_id, visit_date, description FROM visits WHERE pet_id = :id",
-		            pet_params,
-		            BeanPropertyRowMapper.newInstance(Visit.class));
-	        // cascade delete visits
-	        for (Visit visit : visits){
-	        	Map<String, Object> visit_params = new HashMap<>();
-	        	visit_params.put("id", visit.getId());
-	        	this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id=:id", visit_params);
-	        }
-	        this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id=:id", pet_params);
-        }
-        this.namedParameterJdbcTemplate.update("DELETE FROM types WHERE id=:id", pettype_params);
+		// cascade delete visits and pets of this type
+		this.namedParameterJdbcTemplate.update(
+			"DELETE FROM visits WHERE pet_id IN (SELECT id FROM pets WHERE type_id=:id)", pettype_params);
+		this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE type_id=:id", pettype_params);
+		this.namedParameterJdbcTemplate.update("DELETE FROM types WHERE id=:id", pettype_params);
 	}
 
 }
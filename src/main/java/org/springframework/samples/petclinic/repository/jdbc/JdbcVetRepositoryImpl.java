@@ -32,13 +32,14 @@ import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.VetRepository;
-import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.EntityIndex;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -85,6 +86,7 @@ public class JdbcVetRepositoryImpl implements VetRepository {
             BeanPropertyRowMapper.newInstance(Specialty.class));
 
         // Build each vet's list of specialties.
+        final EntityIndex<Specialty> specialtiesById = EntityIndex.of(specialties);
         for (Vet vet : vets) {
             final List<Integer> vetSpecialtiesIds = this.jdbcTemplate.query(
                 "SELECT specialty_id FROM vet_specialties WHERE vet_id=?",
@@ -96,7 +98,7 @@ public class JdbcVetRepositoryImpl implements VetRepository {
                 },
                 vet.getId());
             for (int specialtyId : vetSpecialtiesIds) {
-                Specialty specialty = EntityUtils.getById(specialties, Specialty.class, specialtyId);
+                Specialty specialty = specialtiesById.getById(Specialty.class, specialtyId);
                 vet.addSpecialty(specialty);
             }
         }
@@ -126,8 +128,9 @@ public class JdbcVetRepositoryImpl implements VetRepository {
 							return rs.getInt(1);
 						}
 					});
+			final EntityIndex<Specialty> specialtiesById = EntityIndex.of(specialties);
 			for (int specialtyId : vetSpecialtiesIds) {
-				Specialty specialty = EntityUtils.getById(specialties, Specialty.class, specialtyId);
+				Specialty specialty = specialtiesById.getById(Specialty.class, specialtyId);
 				vet.addSpecialty(specialty);
 			}
 
@@ -163,12 +166,16 @@ public class JdbcVetRepositoryImpl implements VetRepository {
 		Map<String, Object> params = new HashMap<>();
 		params.put("id", vet.getId());
 		this.namedParameterJdbcTemplate.update("DELETE FROM vet_specialties WHERE vet_id=:id", params);
+		List<MapSqlParameterSource> batch = new ArrayList<>();
 		for (Specialty spec : vet.getSpecialties()) {
-			params.put("spec_id", spec.getId());
 			if(!(spec.getId() == null)) {
-				this.namedParameterJdbcTemplate.update("INSERT INTO vet_specialties VALUES (:id, :spec_id)", params);
+				batch.add(new MapSqlParameterSource("id", vet.getId()).addValue("spec_id", spec.getId()));
 			}
 		}
+		if (!batch.isEmpty()) {
+			this.namedParameterJdbcTemplate.batchUpdate("INSERT INTO vet_specialties VALUES (:id, :spec_id)",
+					batch.toArray(new MapSqlParameterSource[0]));
+		}
 	}
 
 }
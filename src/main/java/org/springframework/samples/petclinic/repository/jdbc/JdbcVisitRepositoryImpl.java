@@ -19,27 +19,34 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.util.EntityIndex;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A simple JDBC-based implementation of the {@link VisitRepository} interface.
@@ -57,6 +64,19 @@ import java.util.Map;
 @Profile("jdbc")
 public class JdbcVisitRepositoryImpl implements VisitRepository {
 
+    /**
+     * Selects visits together with their pet, pet type and owner in a single statement,
+     * see {@link JdbcVisitRowMapperExt}.
+     */
+    static final String VISIT_GRAPH_SELECT =
+        "SELECT visits.id as visit_id, visit_date, description, " +
+        "pets.id as pets_id, pets.name, birth_date, type_id, owner_id, types.name as type_name, " +
+        "first_name, last_name, address, city, telephone, zip_code, state " +
+        "FROM visits " +
+        "JOIN pets ON visits.pet_id = pets.id " +
+        "JOIN types ON pets.type_id = types.id " +
+        "JOIN owners ON pets.owner_id = owners.id";
+
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
     protected SimpleJdbcInsert insertVisit;
@@ -109,7 +129,7 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
 			Map<String, Object> params = new HashMap<>();
 			params.put("id", id);
 			visit = this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT visits.id as visit_id, visits.pet_id as pets_id, visit_date, description FROM visits WHERE id= :id",
+					VISIT_GRAPH_SELECT + " WHERE visits.id= :id",
 					params,
 					new JdbcVisitRowMapperExt());
 		} catch (EmptyResultDataAccessException ex) {
@@ -122,7 +142,50 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
 	public Collection<Visit> findAll() throws DataAccessException {
 		Map<String, Object> params = new HashMap<>();
 		return this.namedParameterJdbcTemplate.query(
-				"SELECT visits.id as visit_id, pets.id as pets_id, visit_date, description FROM visits LEFT JOIN pets ON visits.pet_id = pets.id",
+				VISIT_GRAPH_SELECT,
+				params, new JdbcVisitRowMapperExt());
+	}
+
+	@Override
+	public List<Visit> findByDateRange(LocalDate afterDate, int afterId, LocalDate to, int limit) throws DataAccessException {
+		return this.namedParameterJdbcTemplate.query(
+				VISIT_GRAPH_SELECT + " WHERE visits.visit_date >= :from AND visits.visit_date < :until" +
+					" AND (visits.visit_date > :from OR visits.id > :afterId)" +
+					" ORDER BY visits.visit_date, visits.id LIMIT :limit",
+				dateRangeParams(afterDate, afterId, to, limit), new JdbcVisitRowMapperExt());
+	}
+
+	@Override
+	public List<Visit> findByPetIdAndDateRange(int petId, LocalDate afterDate, int afterId, LocalDate to, int limit)
+			throws DataAccessException {
+		MapSqlParameterSource params = dateRangeParams(afterDate, afterId, to, limit).addValue("petId", petId);
+		return this.namedParameterJdbcTemplate.query(
+				VISIT_GRAPH_SELECT + " WHERE visits.pet_id = :petId" +
+					" AND visits.visit_date >= :from AND visits.visit_date < :until" +
+					" AND (visits.visit_date > :from OR visits.id > :afterId)" +
+					" ORDER BY visits.visit_date, visits.id LIMIT :limit",
+				params, new JdbcVisitRowMapperExt());
+	}
+
+	/**
+	 * Binds <code>[afterDate, to + 1 day)</code> as SQL dates, so that the comparisons stay on <code>DATE</code>
+	 * values, and the rest of the <code>(afterDate, afterId)</code> cursor.
+	 */
+	private static MapSqlParameterSource dateRangeParams(LocalDate afterDate, int afterId, LocalDate to, int limit) {
+		return new MapSqlParameterSource()
+				.addValue("from", java.sql.Date.valueOf(afterDate))
+				.addValue("until", java.sql.Date.valueOf(to.plusDays(1)))
+				.addValue("afterId", afterId)
+				.addValue("limit", limit);
+	}
+
+	@Override
+	public Collection<Visit> findAllAfter(int afterId, int limit) throws DataAccessException {
+		Map<String, Object> params = new HashMap<>();
+		params.put("afterId", afterId);
+		params.put("limit", limit);
+		return this.namedParameterJdbcTemplate.query(
+				VISIT_GRAPH_SELECT + " WHERE visits.id > :afterId ORDER BY visits.id LIMIT :limit",
 				params, new JdbcVisitRowMapperExt());
 	}
 
@@ -138,6 +201,62 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
 		}
 	}
 
+	/**
+	 * New visits are inserted with one JDBC batch whose generated keys are read back, existing ones are updated with
+	 * another, whose counts tell the visits that do not exist. Drivers that only report
+	 * <code>SUCCESS_NO_INFO</code> for a rewritten batch (MySQL with <code>rewriteBatchedStatements</code>) are
+	 * checked with one more query.
+	 */
+	@Override
+	public void saveAll(Collection<Visit> visits) throws DataAccessException {
+		List<Visit> inserts = new ArrayList<>();
+		List<MapSqlParameterSource> insertParams = new ArrayList<>();
+		List<Integer> updateIds = new ArrayList<>();
+		List<MapSqlParameterSource> updateParams = new ArrayList<>();
+		for (Visit visit : visits) {
+			if (visit.isNew()) {
+				inserts.add(visit);
+				insertParams.add(createVisitParameterSource(visit));
+			} else {
+				updateIds.add(visit.getId());
+				updateParams.add(createVisitParameterSource(visit));
+			}
+		}
+		if (!inserts.isEmpty()) {
+			KeyHolder keyHolder = new GeneratedKeyHolder();
+			this.namedParameterJdbcTemplate.batchUpdate(
+					"INSERT INTO visits (visit_date, description, pet_id) VALUES (:visit_date, :description, :pet_id)",
+					insertParams.toArray(new MapSqlParameterSource[0]), keyHolder, new String[] {"id"});
+			List<Map<String, Object>> keys = keyHolder.getKeyList();
+			for (int i = 0; i < inserts.size(); i++) {
+				inserts.get(i).setId(((Number) keys.get(i).values().iterator().next()).intValue());
+			}
+		}
+		if (!updateParams.isEmpty()) {
+			int[] counts = this.namedParameterJdbcTemplate.batchUpdate(
+					"UPDATE visits SET visit_date=:visit_date, description=:description, pet_id=:pet_id WHERE id=:id ",
+					updateParams.toArray(new MapSqlParameterSource[0]));
+			List<Integer> unknown = new ArrayList<>();
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] == 0) {
+					throw new ObjectRetrievalFailureException(Visit.class, updateIds.get(i));
+				}
+				if (counts[i] == Statement.SUCCESS_NO_INFO) {
+					unknown.add(updateIds.get(i));
+				}
+			}
+			if (!unknown.isEmpty()) {
+				Set<Integer> found = new HashSet<>(this.namedParameterJdbcTemplate.queryForList(
+						"SELECT id FROM visits WHERE id IN (:ids)", Map.of("ids", unknown), Integer.class));
+				for (Integer id : unknown) {
+					if (!found.contains(id)) {
+						throw new ObjectRetrievalFailureException(Visit.class, id);
+					}
+				}
+			}
+		}
+	}
+
 	@Override
 	public void delete(Visit visit) throws DataAccessException {
 		Map<String, Object> params = new HashMap<>();
@@ -145,39 +264,76 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
 		this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id=:id", params);
 	}
 
-	protected class JdbcVisitRowMapperExt implements RowMapper<Visit> {
+	/**
+	 * Maps rows of {@link #VISIT_GRAPH_SELECT} to {@link Visit}s with their {@link JdbcPet}, {@link PetType} and
+	 * {@link Owner}. Pets, pet types and owners are kept in {@link EntityIndex}es so that each of them is materialized once
+	 * per query and shared by all visits referencing it. Instances are therefore stateful and must not be reused
+	 * across queries.
+	 */
+	protected static class JdbcVisitRowMapperExt implements RowMapper<Visit> {
+
+		private final EntityIndex<JdbcPet> pets = new EntityIndex<>();
+
+		private final EntityIndex<PetType> petTypes = new EntityIndex<>();
+
+		private final EntityIndex<Owner> owners = new EntityIndex<>();
 
 		@Override
 		public Visit mapRow(ResultSet rs, int rowNum) throws SQLException {
 			Visit visit = new Visit();
-			JdbcPet pet = new JdbcPet();
-			PetType petType = new PetType();
-			Owner owner = new Owner();
 			visit.setId(rs.getInt("visit_id"));
 			Date visitDate = rs.getDate("visit_date");
 			visit.setDate(new Date(visitDate.getTime()));
 			visit.setDescription(rs.getString("description"));
-			Map<String, Object> params = new HashMap<>();
-			params.put("id", rs.getInt("pets_id"));
-			pet = JdbcVisitRepositoryImpl.this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT pets.id as pets_id, name, birth_date, type_id, owner_id FROM pets WHERE pets.id=:id",
-					params,
-					new JdbcPetRowMapper());
-			params.put("type_id", pet.getTypeId());
-			petType = JdbcVisitRepositoryImpl.this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT id, name FROM types WHERE id= :type_id",
-					params,
-					BeanPropertyRowMapper.newInstance(PetType.class));
-			pet.setType(petType);
-			params.put("owner_id", pet.getOwnerId());
-			owner = JdbcVisitRepositoryImpl.this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT id, first_name, last_name, address, city, telephone, zip_code, state FROM owners WHERE id= :owner_id",
-					params,
-					BeanPropertyRowMapper.newInstance(Owner.class));
-			pet.setOwner(owner);
-			visit.setPet(pet);
+			visit.setPet(mapPet(rs));
 			return visit;
 		}
+
+		private JdbcPet mapPet(ResultSet rs) throws SQLException {
+			int petId = rs.getInt("pets_id");
+			JdbcPet pet = this.pets.get(petId);
+			if (pet == null) {
+				pet = new JdbcPet();
+				pet.setId(petId);
+				pet.setName(rs.getString("name"));
+				Date birthDate = rs.getDate("birth_date");
+				pet.setBirthDate(new Date(birthDate.getTime()));
+				pet.setTypeId(rs.getInt("type_id"));
+				pet.setOwnerId(rs.getInt("owner_id"));
+				pet.setType(mapPetType(rs, pet.getTypeId()));
+				pet.setOwner(mapOwner(rs, pet.getOwnerId()));
+				this.pets.put(pet);
+			}
+			return pet;
+		}
+
+		private PetType mapPetType(ResultSet rs, int typeId) throws SQLException {
+			PetType petType = this.petTypes.get(typeId);
+			if (petType == null) {
+				petType = new PetType();
+				petType.setId(typeId);
+				petType.setName(rs.getString("type_name"));
+				this.petTypes.put(petType);
+			}
+			return petType;
+		}
+
+		private Owner mapOwner(ResultSet rs, int ownerId) throws SQLException {
+			Owner owner = this.owners.get(ownerId);
+			if (owner == null) {
+				owner = new Owner();
+				owner.setId(ownerId);
+				owner.setFirstName(rs.getString("first_name"));
+				owner.setLastName(rs.getString("last_name"));
+				owner.setAddress(rs.getString("address"));
+				owner.setCity(rs.getString("city"));
+				owner.setTelephone(rs.getString("telephone"));
+				owner.setZipCode(rs.getString("zip_code"));
+				owner.setState(rs.getString("state"));
+				this.owners.put(owner);
+			}
+			return owner;
+		}
 	}
 
 }
@@ -16,16 +16,19 @@
 package org.springframework.samples.petclinic.repository.jpa;
 
 import java.util.Collection;
+import java.util.List;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.Query;
 
 import co.elastic.apm.api.CaptureSpan;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.OwnerSummaryRows;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -48,25 +51,35 @@ public class JpaOwnerRepositoryImpl implements OwnerRepository {
     /**
      * Important: in the current version of this method, we load Owners with all their Pets and Visits while
      * we do not need Visits at all and we only need one property from the Pet objects (the 'name' property).
-     * There are some ways to improve it such as:
-     * - creating a Ligtweight class (example here: https://community.jboss.org/wiki/LightweightClass)
+     * {@link #findSummariesByLastName} is the lightweight alternative for search results.
      */
-    @SuppressWarnings("unchecked")
     public Collection<Owner> findByLastName(String lastName) {
-        // using 'join fetch' because a single query should load both owners and pets
-        // using 'left join fetch' because it might happen that an owner does not have pets yet
-        Query query = this.em.createQuery("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets WHERE owner.lastName LIKE :lastName");
-        query.setParameter("lastName", lastName + "%");
-        return query.getResultList();
+        return this.em.createQuery("SELECT owner FROM Owner owner WHERE owner.lastName LIKE :lastName", Owner.class)
+            .setParameter("lastName", lastName + "%")
+            .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Owner.DETAIL_GRAPH))
+            .getResultList();
+    }
+
+    /**
+     * Selects scalar columns only, so no Owner, Pet or Visit entity is loaded or tracked by the persistence context.
+     */
+    @Override
+    public Collection<OwnerSummary> findSummariesByLastName(String lastName) {
+        OwnerSummaryRows rows = new OwnerSummaryRows();
+        this.em.createQuery(OwnerSummaryRows.JPQL, Object[].class)
+            .setParameter("lastName", lastName + "%")
+            .getResultStream()
+            .forEach(rows::add);
+        return rows.toList();
     }
 
     @Override
     public Owner findById(int id) {
-        // using 'join fetch' because a single query should load both owners and pets
-        // using 'left join fetch' because it might happen that an owner does not have pets yet
-        Query query = this.em.createQuery("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id");
-        query.setParameter("id", id);
-        return (Owner) query.getSingleResult();
+        // the owner detail graph loads pets, their types and visits with the owner, in a single query
+        return this.em.createQuery("SELECT owner FROM Owner owner WHERE owner.id =:id", Owner.class)
+            .setParameter("id", id)
+            .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Owner.DETAIL_GRAPH))
+            .getSingleResult();
     }
 
     @CaptureSpan(value = "save")
@@ -78,13 +91,51 @@ public class JpaOwnerRepositoryImpl implements OwnerRepository {
             this.em.merge(owner);
         }
 
+    }
+
+    /**
+     * Owners are persisted one by one, their pets by cascade; Hibernate cannot batch inserts of <code>IDENTITY</code>
+     * ids. The persistence context is flushed and cleared at the end so that it does not grow with every chunk of an
+     * import.
+     */
+    @Override
+    public void insertAll(Collection<Owner> owners) {
+        for (Owner owner : owners) {
+            this.em.persist(owner);
+        }
+        this.em.flush();
+        this.em.clear();
     }
     
-	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Owner> findAll() throws DataAccessException {
-		Query query = this.em.createQuery("SELECT owner FROM Owner owner");
-        return query.getResultList();
+		return this.em.createQuery("SELECT owner FROM Owner owner", Owner.class)
+			.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Owner.DETAIL_GRAPH))
+			.getResultList();
+	}
+
+	/**
+	 * The page of ids is selected first: limiting a query that fetches the pets collection would make Hibernate read
+	 * all owners and paginate in memory.
+	 */
+	@Override
+	public Collection<Owner> findAllAfter(int afterId, int limit) throws DataAccessException {
+		List<Integer> ids = this.em.createQuery("SELECT owner.id FROM Owner owner WHERE owner.id > :afterId ORDER BY owner.id", Integer.class)
+			.setParameter("afterId", afterId)
+			.setMaxResults(limit)
+			.getResultList();
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		return this.em.createQuery("SELECT owner FROM Owner owner WHERE owner.id IN :ids ORDER BY owner.id", Owner.class)
+			.setParameter("ids", ids)
+			.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Owner.DETAIL_GRAPH))
+			.getResultList();
+	}
+
+	@Override
+	public long count() throws DataAccessException {
+		return this.em.createQuery("SELECT COUNT(owner) FROM Owner owner", Long.class).getSingleResult();
 	}
 
 	@Override
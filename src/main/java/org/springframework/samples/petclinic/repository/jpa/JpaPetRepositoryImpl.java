@@ -17,10 +17,13 @@ package org.springframework.samples.petclinic.repository.jpa;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Pet;
@@ -50,12 +53,15 @@ public class JpaPetRepositoryImpl implements PetRepository {
     @Override
 //    @SuppressWarnings("unchecked")
     public List<PetType> findPetTypes() {
-        return this.em.createQuery("SELECT ptype FROM PetType ptype ORDER BY ptype.name", PetType.class).getResultList();
+        return this.em.createQuery("SELECT ptype FROM PetType ptype ORDER BY ptype.name", PetType.class)
+            .setHint(HibernateHints.HINT_CACHEABLE, true)
+            .getResultList();
     }
 
     @Override
     public Pet findById(int id) {
-        return this.em.find(Pet.class, id);
+        return this.em.find(Pet.class, id,
+            Map.of(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Pet.DETAIL_GRAPH)));
     }
 
     @Override
@@ -71,7 +77,27 @@ public class JpaPetRepositoryImpl implements PetRepository {
 //	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Pet> findAll() throws DataAccessException {
-		return this.em.createQuery("SELECT pet FROM Pet pet", Pet.class).getResultList();
+		return this.em.createQuery("SELECT pet FROM Pet pet", Pet.class)
+			.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Pet.DETAIL_GRAPH))
+			.getResultList();
+	}
+
+	/**
+	 * The page of ids is selected first, as for owners: the visits collection cannot be fetched by a limited query.
+	 */
+	@Override
+	public Collection<Pet> findAllAfter(int afterId, int limit) throws DataAccessException {
+		List<Integer> ids = this.em.createQuery("SELECT pet.id FROM Pet pet WHERE pet.id > :afterId ORDER BY pet.id", Integer.class)
+			.setParameter("afterId", afterId)
+			.setMaxResults(limit)
+			.getResultList();
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		return this.em.createQuery("SELECT pet FROM Pet pet WHERE pet.id IN :ids ORDER BY pet.id", Pet.class)
+			.setParameter("ids", ids)
+			.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Pet.DETAIL_GRAPH))
+			.getResultList();
 	}
 
 	@Override
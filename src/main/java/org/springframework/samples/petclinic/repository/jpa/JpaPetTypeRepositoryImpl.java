@@ -6,6 +6,7 @@ import java.util.List;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.PetType;
@@ -32,6 +33,7 @@ public class JpaPetTypeRepositoryImpl implements PetTypeRepository {
     @Override
     public Collection<PetType> findAll() throws DataAccessException {
         return this.em.createQuery("SELECT t FROM PetType t", PetType.class)
+                      .setHint(HibernateHints.HINT_CACHEABLE, true)
                       .getResultList();
     }
 
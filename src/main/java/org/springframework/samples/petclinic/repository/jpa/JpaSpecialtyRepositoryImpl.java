@@ -21,6 +21,7 @@ import java.util.Collection;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Specialty;
@@ -44,10 +45,11 @@ public class JpaSpecialtyRepositoryImpl implements SpecialtyRepository {
 		return this.em.find(Specialty.class, id);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Specialty> findAll() throws DataAccessException {
-		return this.em.createQuery("SELECT s FROM Specialty s").getResultList();
+		return this.em.createQuery("SELECT s FROM Specialty s", Specialty.class)
+			.setHint(HibernateHints.HINT_CACHEABLE, true)
+			.getResultList();
 	}
 
 	@Override
@@ -15,6 +15,8 @@
  */
 package org.springframework.samples.petclinic.repository.jpa;
 
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Vet;
@@ -42,15 +44,29 @@ public class JpaVetRepositoryImpl implements VetRepository {
     private EntityManager em;
 
    
+	/**
+	 * A cacheable query rather than <code>find</code>: when the vet comes from the second-level cache,
+	 * <code>find</code> ignores the fetch graph and leaves the specialties uninitialized. A list, because results
+	 * streamed by <code>getResultStream</code> bypass the query cache.
+	 */
 	@Override
 	public Vet findById(int id) throws DataAccessException {
-		return this.em.find(Vet.class, id);
+		return this.em.createQuery("SELECT vet FROM Vet vet WHERE vet.id = :id", Vet.class)
+			.setParameter("id", id)
+			.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Vet.LIST_GRAPH))
+			.setHint(HibernateHints.HINT_CACHEABLE, true)
+			.getResultList()
+			.stream()
+			.findFirst()
+			.orElse(null);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Vet> findAll() throws DataAccessException {
-		return this.em.createQuery("SELECT vet FROM Vet vet").getResultList();
+		return this.em.createQuery("SELECT vet FROM Vet vet", Vet.class)
+			.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Vet.LIST_GRAPH))
+			.setHint(HibernateHints.HINT_CACHEABLE, true)
+			.getResultList();
 	}
 
 	@Override
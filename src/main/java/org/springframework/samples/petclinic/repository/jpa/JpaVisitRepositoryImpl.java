@@ -15,15 +15,21 @@
  */
 package org.springframework.samples.petclinic.repository.jpa;
 
+import java.sql.Date;
+import java.time.LocalDate;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.Query;
 
+import org.hibernate.jpa.SpecHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
+import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.VisitRepository;
 import org.springframework.stereotype.Repository;
@@ -57,23 +63,92 @@ public class JpaVisitRepositoryImpl implements VisitRepository {
     }
 
 
+    /**
+     * Visits are persisted or merged one by one; Hibernate batches the updates (<code>hibernate.jdbc.batch_size</code>)
+     * but cannot batch inserts of <code>IDENTITY</code> ids. The persistence context is flushed and cleared at the end
+     * so that it does not grow with every chunk of a bulk import. Since merging a visit that does not exist would
+     * insert it under a new id, the ids of the visits to update are checked first, in one query.
+     */
+    @Override
+    public void saveAll(Collection<Visit> visits) {
+        List<Integer> ids = visits.stream().filter(visit -> !visit.isNew()).map(Visit::getId).toList();
+        if (!ids.isEmpty()) {
+            Set<Integer> found = new HashSet<>(this.em.createQuery(
+                    "SELECT v.id FROM Visit v WHERE v.id IN :ids", Integer.class)
+                .setParameter("ids", ids)
+                .getResultList());
+            for (Integer id : ids) {
+                if (!found.contains(id)) {
+                    throw new ObjectRetrievalFailureException(Visit.class, id);
+                }
+            }
+        }
+        for (Visit visit : visits) {
+            save(visit);
+        }
+        this.em.flush();
+        this.em.clear();
+    }
+
     @Override
-    @SuppressWarnings("unchecked")
     public List<Visit> findByPetId(Integer petId) {
-        Query query = this.em.createQuery("SELECT v FROM Visit v where v.pet.id= :id");
-        query.setParameter("id", petId);
-        return query.getResultList();
+        return this.em.createQuery("SELECT v FROM Visit v where v.pet.id= :id", Visit.class)
+            .setParameter("id", petId)
+            .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Visit.LIST_GRAPH))
+            .getResultList();
     }
     
 	@Override
 	public Visit findById(int id) throws DataAccessException {
-		return this.em.find(Visit.class, id);
+		return this.em.find(Visit.class, id,
+			Map.of(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Visit.LIST_GRAPH)));
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Visit> findAll() throws DataAccessException {
-        return this.em.createQuery("SELECT v FROM Visit v").getResultList();
+		return this.em.createQuery("SELECT v FROM Visit v", Visit.class)
+			.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Visit.LIST_GRAPH))
+			.getResultList();
+	}
+
+	@Override
+	public List<Visit> findByDateRange(LocalDate afterDate, int afterId, LocalDate to, int limit) throws DataAccessException {
+		return this.em.createQuery(
+				"SELECT v FROM Visit v WHERE v.date >= :from AND v.date < :until " +
+					"AND (v.date > :from OR v.id > :afterId) ORDER BY v.date, v.id", Visit.class)
+			.setParameter("from", Date.valueOf(afterDate))
+			.setParameter("until", Date.valueOf(to.plusDays(1)))
+			.setParameter("afterId", afterId)
+			.setMaxResults(limit)
+			.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Visit.LIST_GRAPH))
+			.getResultList();
+	}
+
+	@Override
+	public List<Visit> findByPetIdAndDateRange(int petId, LocalDate afterDate, int afterId, LocalDate to, int limit)
+			throws DataAccessException {
+		return this.em.createQuery(
+				"SELECT v FROM Visit v WHERE v.pet.id = :petId AND v.date >= :from AND v.date < :until " +
+					"AND (v.date > :from OR v.id > :afterId) ORDER BY v.date, v.id", Visit.class)
+			.setParameter("petId", petId)
+			.setParameter("from", Date.valueOf(afterDate))
+			.setParameter("until", Date.valueOf(to.plusDays(1)))
+			.setParameter("afterId", afterId)
+			.setMaxResults(limit)
+			.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Visit.LIST_GRAPH))
+			.getResultList();
+	}
+
+	/**
+	 * The visit list graph only follows to-one associations, so the page can be limited in the same query.
+	 */
+	@Override
+	public Collection<Visit> findAllAfter(int afterId, int limit) throws DataAccessException {
+		return this.em.createQuery("SELECT v FROM Visit v WHERE v.id > :afterId ORDER BY v.id", Visit.class)
+			.setParameter("afterId", afterId)
+			.setMaxResults(limit)
+			.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, this.em.getEntityGraph(Visit.LIST_GRAPH))
+			.getResultList();
 	}
 
 	@Override
@@ -16,13 +16,17 @@
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
 import java.util.Collection;
+import java.util.List;
 
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.OwnerSummaryRows;
 
 /**
  * Spring Data JPA specialization of the {@link OwnerRepository} interface
@@ -32,13 +36,32 @@ import org.springframework.samples.petclinic.repository.OwnerRepository;
  */
 
 @Profile("spring-data-jpa")
-public interface SpringDataOwnerRepository extends OwnerRepository, Repository<Owner, Integer> {
+public interface SpringDataOwnerRepository extends OwnerRepository, Repository<Owner, Integer>, OwnerRepositoryOverride {
 
     @Override
-    @Query("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets WHERE owner.lastName LIKE :lastName%")
+    @EntityGraph(Owner.DETAIL_GRAPH)
+    @Query("SELECT owner FROM Owner owner WHERE owner.lastName LIKE :lastName%")
     public Collection<Owner> findByLastName(@Param("lastName") String lastName);
 
     @Override
-    @Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
+    default Collection<OwnerSummary> findSummariesByLastName(String lastName) {
+        OwnerSummaryRows rows = new OwnerSummaryRows();
+        findSummaryRowsByLastName(lastName + "%").forEach(rows::add);
+        return rows.toList();
+    }
+
+    @Query(OwnerSummaryRows.JPQL)
+    List<Object[]> findSummaryRowsByLastName(@Param("lastName") String lastName);
+
+    @Override
+    @EntityGraph(Owner.DETAIL_GRAPH)
+    @Query("SELECT owner FROM Owner owner WHERE owner.id =:id")
     public Owner findById(@Param("id") int id);
+
+    @Override
+    @EntityGraph(Owner.DETAIL_GRAPH)
+    Collection<Owner> findAll();
+
+    @Override
+    long count();
 }
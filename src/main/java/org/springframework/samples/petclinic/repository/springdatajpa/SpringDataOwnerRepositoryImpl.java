@@ -0,0 +1,48 @@
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.Collection;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.hibernate.jpa.SpecHints;
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.Owner;
+
+@Profile("spring-data-jpa")
+public class SpringDataOwnerRepositoryImpl implements OwnerRepositoryOverride {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * Same as the JPA repository: the page of ids first, then those owners with the owner detail graph.
+     */
+    @Override
+    public Collection<Owner> findAllAfter(int afterId, int limit) {
+        List<Integer> ids = em.createQuery("SELECT o.id FROM Owner o WHERE o.id > :afterId ORDER BY o.id", Integer.class)
+          .setParameter("afterId", afterId)
+          .setMaxResults(limit)
+          .getResultList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return em.createQuery("SELECT o FROM Owner o WHERE o.id IN :ids ORDER BY o.id", Owner.class)
+          .setParameter("ids", ids)
+          .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(Owner.DETAIL_GRAPH))
+          .getResultList();
+    }
+
+    /**
+     * Same as the JPA repository: inserts of <code>IDENTITY</code> ids are not batched by Hibernate.
+     */
+    @Override
+    public void insertAll(Collection<Owner> owners) {
+        for (Owner owner : owners) {
+            em.persist(owner);
+        }
+        em.flush();
+        em.clear();
+    }
+}
@@ -15,11 +15,17 @@
  */
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
 import java.util.List;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
@@ -37,5 +43,14 @@ public interface SpringDataPetRepository extends PetRepository, Repository<Pet,
 
     @Override
     @Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<PetType> findPetTypes() throws DataAccessException;
+
+    @Override
+    @EntityGraph(Pet.DETAIL_GRAPH)
+    Pet findById(int id) throws DataAccessException;
+
+    @Override
+    @EntityGraph(Pet.DETAIL_GRAPH)
+    Collection<Pet> findAll() throws DataAccessException;
 }
@@ -1,8 +1,12 @@
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.List;
+
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import org.hibernate.jpa.SpecHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,4 +36,22 @@ public class SpringDataPetRepositoryImpl implements PetRepositoryOverride {
         em.flush();
         em.clear();
     }
-}
\ No newline at end of file
+
+    /**
+     * Same as the JPA repository: the page of ids first, then those pets with the pet detail graph.
+     */
+    @Override
+    public Collection<Pet> findAllAfter(int afterId, int limit) {
+        List<Integer> ids = em.createQuery("SELECT p.id FROM Pet p WHERE p.id > :afterId ORDER BY p.id", Integer.class)
+          .setParameter("afterId", afterId)
+          .setMaxResults(limit)
+          .getResultList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return em.createQuery("SELECT p FROM Pet p WHERE p.id IN :ids ORDER BY p.id", Pet.class)
+          .setParameter("ids", ids)
+          .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(Pet.DETAIL_GRAPH))
+          .getResultList();
+    }
+}
@@ -46,5 +46,8 @@ public class SpringDataPetTypeRepositoryImpl implements PetTypeRepositoryOverrid
         // 5) Sincroniza e limpa o contexto
         em.flush();
         em.clear();
+
+        // 6) O cache de segundo nível só é invalidado no commit: tira o tipo já, para o resto da transação
+        em.getEntityManagerFactory().getCache().evict(PetType.class, typeId);
     }
 }
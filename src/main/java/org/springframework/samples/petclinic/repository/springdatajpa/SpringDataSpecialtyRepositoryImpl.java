@@ -3,8 +3,10 @@ package org.springframework.samples.petclinic.repository.springdatajpa;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import org.hibernate.SessionFactory;
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.transaction.annotation.Transactional;
 
 @Profile("spring-data-jpa")
@@ -31,5 +33,10 @@ public class SpringDataSpecialtyRepositoryImpl implements SpecialtyRepositoryOve
         // 3) Sincroniza e limpa o contexto
         em.flush();
         em.clear();
+
+        // 4) O cache de segundo nível só é invalidado no commit: tira já a especialidade e as listas dos vets
+        em.getEntityManagerFactory().getCache().evict(Specialty.class, id);
+        em.getEntityManagerFactory().unwrap(SessionFactory.class).getCache()
+          .evictCollectionData(Vet.class.getName() + ".specialties");
     }
 }
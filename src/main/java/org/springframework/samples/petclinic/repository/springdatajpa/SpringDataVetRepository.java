@@ -15,8 +15,18 @@
  */
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.VetRepository;
 
@@ -29,4 +39,19 @@ import org.springframework.samples.petclinic.repository.VetRepository;
 
 @Profile("spring-data-jpa")
 public interface SpringDataVetRepository extends VetRepository, Repository<Vet, Integer> {
+
+    /**
+     * Same as the JPA repository: a cacheable query, since <code>find</code> ignores the fetch graph for a vet that
+     * comes from the second-level cache.
+     */
+    @Override
+    @EntityGraph(Vet.LIST_GRAPH)
+    @Query("SELECT vet FROM Vet vet WHERE vet.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Vet findById(@Param("id") int id) throws DataAccessException;
+
+    @Override
+    @EntityGraph(Vet.LIST_GRAPH)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Collection<Vet> findAll() throws DataAccessException;
 }
@@ -1,9 +1,18 @@
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import org.hibernate.jpa.SpecHints;
 import org.springframework.context.annotation.Profile;
+import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,4 +34,66 @@ public class SpringDataVisitRepositoryImpl implements VisitRepositoryOverride {
         em.flush();
         em.clear();
     }
+
+    /**
+     * Same as the JPA repository: inserts of <code>IDENTITY</code> ids are not batched by Hibernate, updates are, and
+     * the visits to update must exist (a merge would insert them).
+     */
+    @Override
+    public void saveAll(Collection<Visit> visits) {
+        List<Integer> ids = visits.stream().filter(visit -> !visit.isNew()).map(Visit::getId).toList();
+        if (!ids.isEmpty()) {
+            Set<Integer> found = new HashSet<>(em.createQuery("SELECT v.id FROM Visit v WHERE v.id IN :ids", Integer.class)
+              .setParameter("ids", ids)
+              .getResultList());
+            for (Integer id : ids) {
+                if (!found.contains(id)) {
+                    throw new ObjectRetrievalFailureException(Visit.class, id);
+                }
+            }
+        }
+        for (Visit visit : visits) {
+            if (visit.getId() == null) {
+                em.persist(visit);
+            } else {
+                em.merge(visit);
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Override
+    public Collection<Visit> findAllAfter(int afterId, int limit) {
+        return em.createQuery("SELECT v FROM Visit v WHERE v.id > :afterId ORDER BY v.id", Visit.class)
+          .setParameter("afterId", afterId)
+          .setMaxResults(limit)
+          .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(Visit.LIST_GRAPH))
+          .getResultList();
+    }
+
+    @Override
+    public List<Visit> findByDateRange(LocalDate afterDate, int afterId, LocalDate to, int limit) {
+        return em.createQuery("SELECT v FROM Visit v WHERE v.date >= :from AND v.date < :until " +
+              "AND (v.date > :from OR v.id > :afterId) ORDER BY v.date, v.id", Visit.class)
+          .setParameter("from", Date.valueOf(afterDate))
+          .setParameter("until", Date.valueOf(to.plusDays(1)))
+          .setParameter("afterId", afterId)
+          .setMaxResults(limit)
+          .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(Visit.LIST_GRAPH))
+          .getResultList();
+    }
+
+    @Override
+    public List<Visit> findByPetIdAndDateRange(int petId, LocalDate afterDate, int afterId, LocalDate to, int limit) {
+        return em.createQuery("SELECT v FROM Visit v WHERE v.pet.id = :petId AND v.date >= :from AND v.date < :until " +
+              "AND (v.date > :from OR v.id > :afterId) ORDER BY v.date, v.id", Visit.class)
+          .setParameter("petId", petId)
+          .setParameter("from", Date.valueOf(afterDate))
+          .setParameter("until", Date.valueOf(to.plusDays(1)))
+          .setParameter("afterId", afterId)
+          .setMaxResults(limit)
+          .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(Visit.LIST_GRAPH))
+          .getResultList();
+    }
 }
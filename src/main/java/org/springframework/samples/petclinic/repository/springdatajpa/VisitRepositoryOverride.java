@@ -16,6 +16,10 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Visit;
 
@@ -29,4 +33,12 @@ public interface VisitRepositoryOverride {
 	
 	public void delete(Visit visit);
 
+	public void saveAll(Collection<Visit> visits);
+
+	public Collection<Visit> findAllAfter(int afterId, int limit);
+
+	public List<Visit> findByDateRange(LocalDate afterDate, int afterId, LocalDate to, int limit);
+
+	public List<Visit> findByPetIdAndDateRange(int petId, LocalDate afterDate, int afterId, LocalDate to, int limit);
+
 }
@@ -0,0 +1,80 @@
+package org.springframework.samples.petclinic.rest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Cache statistics REST Controller: hit/miss/eviction counters of the caches configured in
+ * {@link org.springframework.samples.petclinic.config.CacheConfig} and, with the JPA profiles, of the Hibernate
+ * second-level cache regions configured in {@link org.springframework.samples.petclinic.config.HibernateCacheConfig}.
+ */
+@RestController
+@CrossOrigin(exposedHeaders = "errors, content-type")
+@RequestMapping("/api/caches")
+public class CacheRestController {
+
+    private final CacheManager cacheManager;
+
+    private final ObjectProvider<javax.cache.CacheManager> hibernateCacheManager;
+
+    public CacheRestController(CacheManager cacheManager, ObjectProvider<javax.cache.CacheManager> hibernateCacheManager) {
+        this.cacheManager = cacheManager;
+        this.hibernateCacheManager = hibernateCacheManager;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStatistics() {
+        Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+        for (String name : new TreeSet<>(this.cacheManager.getCacheNames())) {
+            Cache cache = this.cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+                statistics.put(name, toMap(nativeCache.estimatedSize(), nativeCache.stats()));
+            }
+        }
+        return new ResponseEntity<>(statistics, HttpStatus.OK);
+    }
+
+    // Regiões do cache de segundo nível do Hibernate; 404 com o perfil jdbc, que não o usa
+    @GetMapping(value = "/hibernate", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Map<String, Object>>> getHibernateCacheStatistics() {
+        javax.cache.CacheManager cacheManager = this.hibernateCacheManager.getIfAvailable();
+        if (cacheManager == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        Set<String> names = new TreeSet<>();
+        cacheManager.getCacheNames().forEach(names::add);
+        Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+        for (String name : names) {
+            com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache =
+                cacheManager.getCache(name).unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+            statistics.put(name, toMap(nativeCache.estimatedSize(), nativeCache.stats()));
+        }
+        return new ResponseEntity<>(statistics, HttpStatus.OK);
+    }
+
+    private static Map<String, Object> toMap(long size, CacheStats stats) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("size", size);
+        values.put("hits", stats.hitCount());
+        values.put("misses", stats.missCount());
+        values.put("hitRate", stats.hitRate());
+        values.put("evictions", stats.evictionCount());
+        values.put("loadFailures", stats.loadFailureCount());
+        return values;
+    }
+}
@@ -0,0 +1,41 @@
+package org.springframework.samples.petclinic.rest;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.util.ConnectionPoolMonitor;
+import org.springframework.samples.petclinic.util.ConnectionPoolMonitor.PoolStatistics;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Connection pool statistics REST Controller: live state of each pool (connections active and idle, threads waiting
+ * for one) and acquisition time percentiles recorded by the {@link ConnectionPoolMonitor}.
+ */
+@RestController
+@CrossOrigin(exposedHeaders = "errors, content-type")
+@RequestMapping("/api/monitoring/pools")
+public class ConnectionPoolRestController {
+
+    private final ConnectionPoolMonitor connectionPoolMonitor;
+
+    public ConnectionPoolRestController(ConnectionPoolMonitor connectionPoolMonitor) {
+        this.connectionPoolMonitor = connectionPoolMonitor;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<PoolStatistics>> getPoolStatistics() {
+        return new ResponseEntity<>(this.connectionPoolMonitor.getStatistics(), HttpStatus.OK);
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> resetPoolStatistics() {
+        this.connectionPoolMonitor.reset();
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
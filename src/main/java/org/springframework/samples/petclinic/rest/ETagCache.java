@@ -0,0 +1,114 @@
+package org.springframework.samples.petclinic.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.cache.Cache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.util.ResourceVersions;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Strong ETags of the JSON representations polled by the client (an owner, the pet types, specialties and vets): the
+ * MD5 of the serialized body, remembered along with the {@link ResourceVersions version} of the resource it was
+ * computed at. A request whose <code>If-None-Match</code> holds the remembered tag gets a <code>304 Not Modified</code>
+ * as long as the version has not moved, without loading or serializing anything. Otherwise the resource is loaded and
+ * its tag computed again; Spring MVC still answers <code>304</code> if it matches.
+ * <p>
+ * The tags live in the <code>etags</code> cache (see {@link org.springframework.samples.petclinic.config.CacheConfig}),
+ * whose expiry bounds how long a write made by another instance of the application can go unnoticed; as the tags
+ * are content hashes, all instances give the same tag to the same representation.
+ */
+public class ETagCache {
+
+    private final Cache tags;
+
+    private final ResourceVersions resourceVersions;
+
+    private final ObjectMapper objectMapper;
+
+    public ETagCache(Cache tags, ResourceVersions resourceVersions, ObjectMapper objectMapper) {
+        this.tags = tags;
+        this.resourceVersions = resourceVersions;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Conditional GET of a whole resource.
+     *
+     * @param load reads the resource; only responses with a <code>200 OK</code> status and a body are tagged
+     */
+    public <T> ResponseEntity<T> get(WebRequest request, String resource, Supplier<ResponseEntity<T>> load) {
+        return get(request, resource, this.resourceVersions.version(resource), load);
+    }
+
+    /**
+     * Conditional GET of an item of a resource.
+     */
+    public <T> ResponseEntity<T> get(WebRequest request, String resource, int id, Supplier<ResponseEntity<T>> load) {
+        return get(request, resource + ":" + id, this.resourceVersions.version(resource, id), load);
+    }
+
+    private <T> ResponseEntity<T> get(WebRequest request, String key, long version, Supplier<ResponseEntity<T>> load) {
+        Tag tag = this.tags.get(key, Tag.class);
+        if (tag != null && tag.version() == version && isNoneMatch(request, tag.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag.etag()).build();
+        }
+        // the version was taken before this read: a write committed meanwhile moves the version past the tag's
+        ResponseEntity<T> response = load.get();
+        if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+            return response;
+        }
+        String etag = etag(response.getBody());
+        this.tags.put(key, new Tag(version, etag));
+        return ResponseEntity.ok().headers(response.getHeaders()).eTag(etag).body(response.getBody());
+    }
+
+    /**
+     * Weak comparison, as for <code>If-None-Match</code>: a weak validator of the same value matches the tag.
+     */
+    private static boolean isNoneMatch(WebRequest request, String etag) {
+        String[] headers = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (headers == null) {
+            return false;
+        }
+        for (String header : headers) {
+            for (String candidate : StringUtils.commaDelimitedListToStringArray(header)) {
+                String value = candidate.trim();
+                if (value.startsWith("W/")) {
+                    value = value.substring(2);
+                }
+                if (value.equals(etag) || value.equals("*")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String etag(Object body) {
+        try {
+            DigestOutputStream digest = new DigestOutputStream(OutputStream.nullOutputStream(),
+                MessageDigest.getInstance("MD5"));
+            this.objectMapper.writeValue(digest, body);
+            return "\"" + HexFormat.of().formatHex(digest.getMessageDigest().digest()) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private record Tag(long version, String etag) {
+    }
+}
@@ -16,7 +16,10 @@
 
 package org.springframework.samples.petclinic.rest;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.util.DatabaseBulkheadAspect.DatabaseBusyException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
@@ -44,6 +47,21 @@ public class ExceptionControllerAdvice {
 		return ResponseEntity.badRequest().body(respJSONstring);
 	}
 	
+	@ExceptionHandler(DatabaseBusyException.class)
+	public ResponseEntity<String> databaseBusy(DatabaseBusyException e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+			.header(HttpHeaders.RETRY_AFTER, "1")
+			.body(toJson(new ErrorInfo(e)));
+	}
+
+	private static String toJson(ErrorInfo errorInfo) {
+		try {
+			return new ObjectMapper().writeValueAsString(errorInfo);
+		} catch (JsonProcessingException e) {
+			return "{}";
+		}
+	}
+
 	private class ErrorInfo {
 	    public final String className;
 	    public final String exMessage;
@@ -0,0 +1,36 @@
+package org.springframework.samples.petclinic.rest;
+
+import java.io.IOException;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.samples.petclinic.service.OwnerExportService;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Bulk export REST Controller
+ */
+@RestController
+@CrossOrigin(exposedHeaders = "errors, content-type")
+@RequestMapping("/api/export")
+public class ExportRestController {
+
+    static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private final OwnerExportService ownerExportService;
+
+    public ExportRestController(OwnerExportService ownerExportService) {
+        this.ownerExportService = ownerExportService;
+    }
+
+    // Todos os owners com pets e visitas, um owner por linha, sem montar a lista em memória
+    @GetMapping(value = "/owners.ndjson", produces = NDJSON_VALUE)
+    public void exportOwners(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        this.ownerExportService.exportOwners(response.getOutputStream());
+    }
+}
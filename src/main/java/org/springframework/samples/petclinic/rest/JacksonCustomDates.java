@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
+/**
+ * The <code>yyyy/MM/dd</code> dates of the custom serializers and deserializers.
+ * <p>
+ * The formatters are immutable and shared by all threads, unlike a <code>SimpleDateFormat</code> which had to be
+ * created (with its calendar and number formats) for every object. Dates are interpreted in the JVM's default time
+ * zone, as read when this class is loaded.
+ */
+final class JacksonCustomDates {
+
+	static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+	/** Also accepts single digit months and days, as <code>SimpleDateFormat</code> did. */
+	static final DateTimeFormatter PARSE_FORMAT = DateTimeFormatter.ofPattern("yyyy/M/d");
+
+	private static final ZoneId ZONE = ZoneId.systemDefault();
+
+	private JacksonCustomDates() {
+	}
+
+	static void writeDateField(JsonGenerator jgen, String fieldName, Date date) throws IOException {
+		if (date == null) {
+			jgen.writeNullField(fieldName);
+		} else {
+			jgen.writeFieldName(fieldName);
+			writeDate(jgen, toLocalDate(date));
+		}
+	}
+
+	/**
+	 * Writes {@link #FORMAT} by hand: going through the formatter would allocate a builder, a print context and the
+	 * resulting string for every date.
+	 */
+	private static void writeDate(JsonGenerator jgen, LocalDate date) throws IOException {
+		int year = date.getYear();
+		if (year < 1000 || year > 9999) {
+			jgen.writeString(FORMAT.format(date));
+			return;
+		}
+		char[] chars = new char[10];
+		writeDigits(chars, 0, year, 4);
+		chars[4] = '/';
+		writeDigits(chars, 5, date.getMonthValue(), 2);
+		chars[7] = '/';
+		writeDigits(chars, 8, date.getDayOfMonth(), 2);
+		jgen.writeString(chars, 0, chars.length);
+	}
+
+	private static void writeDigits(char[] chars, int offset, int value, int digits) {
+		for (int i = offset + digits - 1; i >= offset; i--) {
+			chars[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	static Date parse(String text) throws IOException {
+		if (text == null) {
+			return null;
+		}
+		try {
+			LocalDate date = parseDigits(text);
+			if (date == null) {
+				date = LocalDate.parse(text, PARSE_FORMAT);
+			}
+			return Date.from(date.atStartOfDay(ZONE).toInstant());
+		} catch (DateTimeException e) {
+			throw InvalidFormatException.from(null, "Cannot parse date \"" + text + "\": expected yyyy/MM/dd", text, Date.class);
+		}
+	}
+
+	/**
+	 * Reads the common <code>yyyy/M/d</code> case without the formatter's parse context and field map.
+	 *
+	 * @return the date, or <code>null</code> if the text has another shape (left to {@link #PARSE_FORMAT})
+	 */
+	private static LocalDate parseDigits(String text) {
+		int firstSlash = text.indexOf('/');
+		int secondSlash = text.indexOf('/', firstSlash + 1);
+		if (firstSlash != 4 || secondSlash < 6 || secondSlash > 7 || text.length() - secondSlash < 2 || text.length() - secondSlash > 3) {
+			return null;
+		}
+		int year = digits(text, 0, firstSlash);
+		int month = digits(text, firstSlash + 1, secondSlash);
+		int day = digits(text, secondSlash + 1, text.length());
+		if (year < 0 || month < 0 || day < 0) {
+			return null;
+		}
+		return LocalDate.of(year, month, day);
+	}
+
+	private static int digits(String text, int from, int to) {
+		int value = 0;
+		for (int i = from; i < to; i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	private static LocalDate toLocalDate(Date date) {
+		// java.sql.Date (from the JDBC repositories) does not support toInstant()
+		if (date instanceof java.sql.Date sqlDate) {
+			return sqlDate.toLocalDate();
+		}
+		return LocalDate.ofInstant(date.toInstant(), ZONE);
+	}
+
+}
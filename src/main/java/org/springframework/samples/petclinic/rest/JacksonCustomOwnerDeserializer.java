@@ -14,6 +14,7 @@
  * limitations under the License.
  */
 
+
 package org.springframework.samples.petclinic.rest;
 
 import java.io.IOException;
@@ -22,11 +23,14 @@ import org.springframework.samples.petclinic.model.Owner;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
 /**
+ * Reads an owner token by token; an owner already read in the same call is resolved by id, see
+ * {@link JacksonCustomReferences}. Pets are not read.
+ *
  * @author Vitaliy Fedoriv
  *
  */
@@ -43,28 +47,33 @@ public class JacksonCustomOwnerDeserializer extends StdDeserializer<Owner> {
 
 	@Override
 	public Owner deserialize(JsonParser parser, DeserializationContext context) throws IOException, JsonProcessingException {
-		JsonNode node = parser.getCodec().readTree(parser);
 		Owner owner = new Owner();
-		int id = node.get("id").asInt();
-		String firstName = node.get("firstName").asText(null);
-		String lastName = node.get("lastName").asText(null);
-		String address = node.get("address").asText(null);
-		String city = node.get("city").asText(null);
-		String telephone = node.get("telephone").asText(null);
-        String state = node.get("state").asText(null);
-        String zip_code = node.get("zipCode").asText(null);
-
-		if (!(id == 0)) {
-			owner.setId(id);
+		for (JsonToken token = JacksonCustomReferences.firstField(parser); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+			String field = parser.currentName();
+			parser.nextToken();
+			switch (field) {
+				case "id" -> {
+					int id = parser.getValueAsInt(0);
+					Owner known = JacksonCustomReferences.resolve(context, Owner.class, id);
+					if (known != null) {
+						JacksonCustomReferences.skipRemainingFields(parser);
+						return known;
+					}
+					if (!(id == 0)) {
+						owner.setId(id);
+					}
+				}
+				case "firstName" -> owner.setFirstName(parser.getValueAsString(null));
+				case "lastName" -> owner.setLastName(parser.getValueAsString(null));
+				case "address" -> owner.setAddress(parser.getValueAsString(null));
+				case "city" -> owner.setCity(parser.getValueAsString(null));
+				case "telephone" -> owner.setTelephone(parser.getValueAsString(null));
+				case "state" -> owner.setState(parser.getValueAsString(null));
+				case "zipCode" -> owner.setZipCode(parser.getValueAsString(null));
+				default -> parser.skipChildren();
+			}
 		}
-        owner.setFirstName(firstName);
-        owner.setLastName(lastName);
-        owner.setAddress(address);
-        owner.setState(state);
-        owner.setCity(city);
-        owner.setZipCode(zip_code);
-        owner.setTelephone(telephone);
-		return owner;
+		return JacksonCustomReferences.register(context, Owner.class, owner);
 	}
 
 }
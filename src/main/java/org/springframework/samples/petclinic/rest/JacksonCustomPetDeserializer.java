@@ -14,12 +14,10 @@
  * limitations under the License.
  */
 
+
 package org.springframework.samples.petclinic.rest;
 
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
@@ -27,12 +25,14 @@ import org.springframework.samples.petclinic.model.PetType;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
 /**
+ * Reads a pet token by token, with its type and owner; pets, types and owners already read in the same call are
+ * resolved by id, see {@link JacksonCustomReferences}. Visits are not read.
+ *
  * @author Vitaliy Fedoriv
  *
  */
@@ -49,35 +49,52 @@ public class JacksonCustomPetDeserializer extends StdDeserializer<Pet> {
 
 	@Override
 	public Pet deserialize(JsonParser parser, DeserializationContext context) throws IOException, JsonProcessingException {
-		SimpleDateFormat formatter = new SimpleDateFormat("yyyy/MM/dd");
 		Pet pet = new Pet();
-		Owner owner = new Owner();
-		PetType petType = new PetType();
-		ObjectMapper mapper = new ObjectMapper();
-		Date birthDate = null;
-		JsonNode node = parser.getCodec().readTree(parser);
-		JsonNode owner_node = node.get("owner");
-		JsonNode type_node = node.get("type");
-		owner = mapper.treeToValue(owner_node, Owner.class);
-		petType = mapper.treeToValue(type_node, PetType.class);
-		int petId = node.get("id").asInt();
-		String name = node.get("name").asText(null);
-		String birthDateStr = node.get("birthDate").asText(null);
-		try {
-			birthDate = formatter.parse(birthDateStr);
-		} catch (ParseException e) {
-			e.printStackTrace();
-			throw new IOException(e);
+		for (JsonToken token = JacksonCustomReferences.firstField(parser); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+			switch (field) {
+				case "id" -> {
+					int petId = parser.getValueAsInt(0);
+					Pet known = JacksonCustomReferences.resolve(context, Pet.class, petId);
+					if (known != null) {
+						JacksonCustomReferences.skipRemainingFields(parser);
+						return known;
+					}
+					if (!(petId == 0)) {
+						pet.setId(petId);
+					}
+				}
+				case "name" -> pet.setName(parser.getValueAsString(null));
+				case "birthDate" -> pet.setBirthDate(JacksonCustomDates.parse(parser.getValueAsString(null)));
+				case "type" -> pet.setType(value == JsonToken.VALUE_NULL ? null : readPetType(parser, context));
+				case "owner" -> pet.setOwner(value == JsonToken.VALUE_NULL ? null : context.readValue(parser, Owner.class));
+				default -> parser.skipChildren();
+			}
 		}
+		return JacksonCustomReferences.register(context, Pet.class, pet);
+	}
 
-		if (!(petId == 0)) {
-			pet.setId(petId);
+	private static PetType readPetType(JsonParser parser, DeserializationContext context) throws IOException {
+		PetType petType = new PetType();
+		for (JsonToken token = JacksonCustomReferences.firstField(parser); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+			String field = parser.currentName();
+			parser.nextToken();
+			switch (field) {
+				case "id" -> {
+					int id = parser.getValueAsInt(0);
+					PetType known = JacksonCustomReferences.resolve(context, PetType.class, id);
+					if (known != null) {
+						JacksonCustomReferences.skipRemainingFields(parser);
+						return known;
+					}
+					petType.setId(id);
+				}
+				case "name" -> petType.setName(parser.getValueAsString(null));
+				default -> parser.skipChildren();
+			}
 		}
-		pet.setName(name);
-		pet.setBirthDate(birthDate);
-		pet.setOwner(owner);
-		pet.setType(petType);
-		return pet;
+		return JacksonCustomReferences.register(context, PetType.class, petType);
 	}
 
 }
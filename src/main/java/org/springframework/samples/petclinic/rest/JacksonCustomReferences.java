@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.samples.petclinic.rest;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.util.EntityIndex;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+/**
+ * Helpers shared by the streaming deserializers.
+ * <p>
+ * Entities are resolved by id within one read: the first owner, pet or pet type with a given id is parsed, every
+ * later object with that id (e.g. the same pet in each visit of a bulk import) resolves to that instance and its
+ * remaining fields are skipped instead of being mapped again. The table lives in the per-call attributes of the
+ * {@link DeserializationContext}, so nothing is shared between requests.
+ */
+final class JacksonCustomReferences {
+
+	private static final Object ATTRIBUTE = JacksonCustomReferences.class;
+
+	private JacksonCustomReferences() {
+	}
+
+	/**
+	 * @return the entity of the given type and id already read in this call, or <code>null</code>
+	 */
+	static <T extends BaseEntity> T resolve(DeserializationContext context, Class<T> type, int id) {
+		if (id == 0) {
+			return null;
+		}
+		EntityIndex<T> index = index(context, type, false);
+		return index != null ? index.get(id) : null;
+	}
+
+	/**
+	 * Make an entity that has just been read resolvable by its id for the rest of this call.
+	 */
+	static <T extends BaseEntity> T register(DeserializationContext context, Class<T> type, T entity) {
+		if (entity.getId() != null && entity.getId() != 0) {
+			index(context, type, true).put(entity);
+		}
+		return entity;
+	}
+
+	/**
+	 * Skip the remaining fields of the current object, leaving the parser on its <code>END_OBJECT</code>.
+	 */
+	static void skipRemainingFields(JsonParser parser) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			parser.nextToken();
+			parser.skipChildren();
+		}
+	}
+
+	/**
+	 * @return the current token, moved past the <code>START_OBJECT</code> of the value being deserialized
+	 */
+	static JsonToken firstField(JsonParser parser) throws IOException {
+		JsonToken token = parser.currentToken();
+		return token == JsonToken.START_OBJECT ? parser.nextToken() : token;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends BaseEntity> EntityIndex<T> index(DeserializationContext context, Class<T> type, boolean create) {
+		Map<Class<?>, EntityIndex<?>> indexes = (Map<Class<?>, EntityIndex<?>>) context.getAttribute(ATTRIBUTE);
+		if (indexes == null) {
+			if (!create) {
+				return null;
+			}
+			indexes = new HashMap<>();
+			context.setAttribute(ATTRIBUTE, indexes);
+		}
+		return create ? (EntityIndex<T>) indexes.computeIfAbsent(type, t -> new EntityIndex<>()) : (EntityIndex<T>) indexes.get(type);
+	}
+
+}
@@ -14,24 +14,24 @@
  * limitations under the License.
  */
 
+
 package org.springframework.samples.petclinic.rest;
 
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.Visit;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
 /**
+ * Reads a visit token by token; its pet is resolved by id when it was already read in the same call (e.g. by an
+ * earlier visit of the same array), see {@link JacksonCustomReferences}.
+ *
  * @author Vitaliy Fedoriv
  *
  */
@@ -48,30 +48,23 @@ public class JacksonCustomVisitDeserializer extends StdDeserializer<Visit> {
 
 	@Override
 	public Visit deserialize(JsonParser parser, DeserializationContext context)	throws IOException, JsonProcessingException {
-		SimpleDateFormat formatter = new SimpleDateFormat("yyyy/MM/dd");
 		Visit visit = new Visit();
-		Pet pet = new Pet();
-		ObjectMapper mapper = new ObjectMapper();
-		Date visitDate = null;
-		JsonNode node = parser.getCodec().readTree(parser);
-		JsonNode pet_node = node.get("pet");
-		pet = mapper.treeToValue(pet_node, Pet.class);
-		int visitId = node.get("id").asInt();
-		String visitDateStr = node.get("date").asText(null);
-		String description = node.get("description").asText(null);
-		try {
-			visitDate = formatter.parse(visitDateStr);
-		} catch (ParseException e) {
-			e.printStackTrace();
-			throw new IOException(e);
-		}
-
-		if (!(visitId == 0)) {
-			visit.setId(visitId);
+		for (JsonToken token = JacksonCustomReferences.firstField(parser); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+			switch (field) {
+				case "id" -> {
+					int visitId = parser.getValueAsInt(0);
+					if (!(visitId == 0)) {
+						visit.setId(visitId);
+					}
+				}
+				case "date" -> visit.setDate(JacksonCustomDates.parse(parser.getValueAsString(null)));
+				case "description" -> visit.setDescription(parser.getValueAsString(null));
+				case "pet" -> visit.setPet(value == JsonToken.VALUE_NULL ? null : context.readValue(parser, Pet.class));
+				default -> parser.skipChildren();
+			}
 		}
-		visit.setDate(visitDate);
-		visit.setDescription(description);
-		visit.setPet(pet);
 		return visit;
 	}
 
@@ -17,8 +17,6 @@
 package org.springframework.samples.petclinic.rest;
 
 import java.io.IOException;
-import java.text.Format;
-import java.text.SimpleDateFormat;
 
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
@@ -49,14 +47,13 @@ public class JacksonCustomVisitSerializer extends StdSerializer<Visit> {
 		if ((visit == null) || (visit.getPet() == null)) {
 			throw new IOException("Cannot serialize Visit object - visit or visit.pet is null");
 		}
-		Format formatter = new SimpleDateFormat("yyyy/MM/dd");
 		jgen.writeStartObject(); // visit
 		if (visit.getId() == null) {
 			jgen.writeNullField("id");
 		} else {
 			jgen.writeNumberField("id", visit.getId());
 		}
-		jgen.writeStringField("date", formatter.format(visit.getDate()));
+		JacksonCustomDates.writeDateField(jgen, "date", visit.getDate());
 		jgen.writeStringField("description", visit.getDescription());
 
 		Pet pet = visit.getPet();
@@ -67,7 +64,7 @@ public class JacksonCustomVisitSerializer extends StdSerializer<Visit> {
 			jgen.writeNumberField("id", pet.getId());
 		}
 		jgen.writeStringField("name", pet.getName());
-		jgen.writeStringField("birthDate", formatter.format(pet.getBirthDate()));
+		JacksonCustomDates.writeDateField(jgen, "birthDate", pet.getBirthDate());
 
 		PetType petType = pet.getType();
 		jgen.writeObjectFieldStart("type");
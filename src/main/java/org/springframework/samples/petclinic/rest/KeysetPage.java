@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+/**
+ * Keyset (cursor) pagination on entity id for the list endpoints.
+ * <p>
+ * A client asks for a page with <code>?limit=</code> and walks the data set by passing the
+ * {@link #NEXT_CURSOR_HEADER} value of the previous response as <code>?after=</code>. The header
+ * is absent on the last page.
+ */
+final class KeysetPage {
+
+	static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+	static final int DEFAULT_LIMIT = 100;
+
+	static final int MAX_LIMIT = 1000;
+
+	private KeysetPage() {
+	}
+
+	/**
+	 * @return true if the request carries any pagination parameter
+	 */
+	static boolean isRequested(Integer limit, Integer after) {
+		return limit != null || after != null;
+	}
+
+	static int afterId(Integer after) {
+		return (after == null || after < 0) ? 0 : after;
+	}
+
+	static int limit(Integer limit) {
+		if (limit == null) {
+			return DEFAULT_LIMIT;
+		}
+		return Math.max(1, Math.min(limit, MAX_LIMIT));
+	}
+
+	static <T extends BaseEntity> ResponseEntity<Collection<T>> response(Collection<T> page, int limit) {
+		HttpHeaders headers = new HttpHeaders();
+		if (page.size() >= limit) {
+			int lastId = 0;
+			for (T entity : page) {
+				lastId = Math.max(lastId, entity.getId());
+			}
+			headers.add(NEXT_CURSOR_HEADER, String.valueOf(lastId));
+		}
+		return new ResponseEntity<Collection<T>>(page, headers, HttpStatus.OK);
+	}
+
+	/**
+	 * Same as {@link #response(Collection, int)} for a page ordered by other keys than the id: the cursor is the one
+	 * of the last entity of the page.
+	 */
+	static <T extends BaseEntity> ResponseEntity<Collection<T>> response(Collection<T> page, int limit,
+			Function<T, String> cursor) {
+		HttpHeaders headers = new HttpHeaders();
+		if (page.size() >= limit) {
+			T last = null;
+			for (T entity : page) {
+				last = entity;
+			}
+			headers.add(NEXT_CURSOR_HEADER, cursor.apply(last));
+		}
+		return new ResponseEntity<Collection<T>>(page, headers, HttpStatus.OK);
+	}
+
+}
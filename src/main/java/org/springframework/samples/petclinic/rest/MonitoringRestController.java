@@ -0,0 +1,41 @@
+package org.springframework.samples.petclinic.rest;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.util.CallMonitoringAspect;
+import org.springframework.samples.petclinic.util.CallMonitoringAspect.CallStatistics;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Repository call statistics REST Controller: per-method call counts and latency percentiles (in microseconds)
+ * recorded by the {@link CallMonitoringAspect}.
+ */
+@RestController
+@CrossOrigin(exposedHeaders = "errors, content-type")
+@RequestMapping("/api/monitoring/calls")
+public class MonitoringRestController {
+
+    private final CallMonitoringAspect callMonitor;
+
+    public MonitoringRestController(CallMonitoringAspect callMonitor) {
+        this.callMonitor = callMonitor;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<CallStatistics>> getCallStatistics() {
+        return new ResponseEntity<>(this.callMonitor.getStatistics(), HttpStatus.OK);
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> resetCallStatistics() {
+        this.callMonitor.reset();
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
@@ -1,5 +1,9 @@
 package org.springframework.samples.petclinic.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 
 import org.springframework.transaction.annotation.Transactional;
@@ -11,16 +15,23 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.config.CacheConfig;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.service.OwnerImportResult;
+import org.springframework.samples.petclinic.service.OwnerImportService;
+import org.springframework.samples.petclinic.service.OwnerSearchService;
 
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -30,14 +41,28 @@ import org.springframework.web.bind.annotation.DeleteMapping;
  * Owner REST Controller
  */
 @RestController
-@CrossOrigin(exposedHeaders = "errors, content-type")
+@CrossOrigin(exposedHeaders = "errors, content-type, etag, " + KeysetPage.NEXT_CURSOR_HEADER)
 @RequestMapping("/api/owners")
 public class OwnerRestController {
 
+    static final String CSV_VALUE = "text/csv";
+
+    static final int MAX_SEARCH_LIMIT = 100;
+
     private final ClinicService clinicService;
 
-    public OwnerRestController(ClinicService clinicService) {
+    private final OwnerImportService ownerImportService;
+
+    private final OwnerSearchService ownerSearchService;
+
+    private final ETagCache eTagCache;
+
+    public OwnerRestController(ClinicService clinicService, OwnerImportService ownerImportService,
+                               OwnerSearchService ownerSearchService, ETagCache eTagCache) {
         this.clinicService = clinicService;
+        this.ownerImportService = ownerImportService;
+        this.ownerSearchService = ownerSearchService;
+        this.eTagCache = eTagCache;
     }
 
     // Busca por sobrenome via path variable: /api/owners/lastname/{lastName}
@@ -53,9 +78,40 @@ public class OwnerRestController {
         return new ResponseEntity<>(owners, HttpStatus.OK);
     }
 
-    // Lista todos
+    // Busca leve por prefixo do sobrenome: /api/owners/search?lastName={lastName}
+    // Só os campos da lista de owners e os nomes dos pets, sem tipos, datas nem visitas
+    @GetMapping(value = "/search", params = "!q", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Collection<OwnerSummary>> searchOwners(
+        @RequestParam(value = "lastName", required = false, defaultValue = "") String lastName) {
+        Collection<OwnerSummary> owners = this.clinicService.findOwnerSummariesByLastName(lastName);
+        if (owners.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(owners, HttpStatus.OK);
+    }
+
+    // Busca textual no índice de owners: /api/owners/search?q={texto}&limit={limit}
+    // Nomes, endereço, cidade, telefone e nomes dos pets, por palavra inteira, prefixo ou com erro de digitação
+    @GetMapping(value = "/search", params = "q", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Collection<OwnerSummary>> searchOwnersByText(
+        @RequestParam("q") String query,
+        @RequestParam(value = "limit", required = false, defaultValue = "20") int limit) {
+        Collection<OwnerSummary> owners =
+            this.ownerSearchService.search(query, Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT)));
+        if (owners.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(owners, HttpStatus.OK);
+    }
+
+    // Lista todos, ou uma página por cursor: /api/owners?limit={limit}&after={id}
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Collection<Owner>> getOwners() {
+    public ResponseEntity<Collection<Owner>> getOwners(@RequestParam(value = "limit", required = false) Integer limit,
+                                                       @RequestParam(value = "after", required = false) Integer after) {
+        if (KeysetPage.isRequested(limit, after)) {
+            int pageSize = KeysetPage.limit(limit);
+            return KeysetPage.response(this.clinicService.findOwnersAfter(KeysetPage.afterId(after), pageSize), pageSize);
+        }
         Collection<Owner> owners = this.clinicService.findAllOwners();
         if (owners.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -63,14 +119,16 @@ public class OwnerRestController {
         return new ResponseEntity<>(owners, HttpStatus.OK);
     }
 
-    // Busca por id
+    // Busca por id, com ETag: If-None-Match com o ETag ainda válido responde 304 sem ler o owner
     @GetMapping(value = "/{ownerId}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Owner> getOwner(@PathVariable("ownerId") int ownerId) {
-        Owner owner = this.clinicService.findOwnerById(ownerId);
-        if (owner == null) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        }
-        return new ResponseEntity<>(owner, HttpStatus.OK);
+    public ResponseEntity<Owner> getOwner(@PathVariable("ownerId") int ownerId, WebRequest request) {
+        return this.eTagCache.get(request, CacheConfig.OWNERS, ownerId, () -> {
+            Owner owner = this.clinicService.findOwnerById(ownerId);
+            if (owner == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(owner, HttpStatus.OK);
+        });
     }
 
     // Criação
@@ -91,6 +149,13 @@ public class OwnerRestController {
         return new ResponseEntity<>(owner, headers, HttpStatus.CREATED);
     }
 
+    // Importação em lote de um CSV (owners e pets), lido em streaming
+    @PostMapping(value = "/import", produces = MediaType.APPLICATION_JSON_VALUE, consumes = CSV_VALUE)
+    public ResponseEntity<OwnerImportResult> importOwners(InputStream body) throws IOException {
+        OwnerImportResult result = this.ownerImportService.importOwners(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     // Atualização
     @CaptureSpan(value = "updateOwner")
     @PutMapping(value = "/{ownerId}", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -105,7 +170,8 @@ public class OwnerRestController {
             headers.add("errors", errors.toJSON());
             return new ResponseEntity<>(headers, HttpStatus.BAD_REQUEST);
         }
-        Owner currentOwner = this.clinicService.findOwnerById(ownerId);
+        // Lido fora do cache: o owner em cache é compartilhado com as leituras concorrentes e não pode ser alterado
+        Owner currentOwner = this.clinicService.findOwnerByIdForUpdate(ownerId);
         if (currentOwner == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -36,6 +36,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -45,7 +46,7 @@ import org.springframework.web.util.UriComponentsBuilder;
  */
 
 @RestController
-@CrossOrigin(exposedHeaders = "errors, content-type")
+@CrossOrigin(exposedHeaders = "errors, content-type, " + KeysetPage.NEXT_CURSOR_HEADER)
 @RequestMapping("api/pets")
 public class PetRestController {
 
@@ -62,7 +63,12 @@ public class PetRestController {
 	}
 
 	@RequestMapping(value = "", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-	public ResponseEntity<Collection<Pet>> getPets(){
+	public ResponseEntity<Collection<Pet>> getPets(@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "after", required = false) Integer after){
+		if(KeysetPage.isRequested(limit, after)){
+			int pageSize = KeysetPage.limit(limit);
+			return KeysetPage.response(this.clinicService.findPetsAfter(KeysetPage.afterId(after), pageSize), pageSize);
+		}
 		Collection<Pet> pets = this.clinicService.findAllPets();
 		if(pets.isEmpty()){
 			return new ResponseEntity<Collection<Pet>>(HttpStatus.NOT_FOUND);
@@ -27,6 +27,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.config.CacheConfig;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -37,25 +38,31 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @RestController
-@CrossOrigin(exposedHeaders = "errors, content-type")
+@CrossOrigin(exposedHeaders = "errors, content-type, etag")
 @RequestMapping("api/pettypes")
 public class PetTypeRestController {
 
 	@Autowired
 	private ClinicService clinicService;
 
+	@Autowired
+	private ETagCache eTagCache;
+
     @PreAuthorize( "hasAnyRole(@roles.OWNER_ADMIN, @roles.VET_ADMIN)" )
 	@RequestMapping(value = "", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-	public ResponseEntity<Collection<PetType>> getAllPetTypes(){
-		Collection<PetType> petTypes = new ArrayList<PetType>();
-		petTypes.addAll(this.clinicService.findAllPetTypes());
-		if (petTypes.isEmpty()){
-			return new ResponseEntity<Collection<PetType>>(HttpStatus.NOT_FOUND);
-		}
-		return new ResponseEntity<Collection<PetType>>(petTypes, HttpStatus.OK);
+	public ResponseEntity<Collection<PetType>> getAllPetTypes(WebRequest request){
+		return this.eTagCache.get(request, CacheConfig.PET_TYPES, () -> {
+			Collection<PetType> petTypes = new ArrayList<PetType>();
+			petTypes.addAll(this.clinicService.findAllPetTypes());
+			if (petTypes.isEmpty()){
+				return new ResponseEntity<Collection<PetType>>(HttpStatus.NOT_FOUND);
+			}
+			return new ResponseEntity<Collection<PetType>>(petTypes, HttpStatus.OK);
+		});
 	}
 
     @PreAuthorize( "hasAnyRole(@roles.OWNER_ADMIN, @roles.VET_ADMIN)" )
@@ -97,9 +104,10 @@ public class PetTypeRestController {
 		if(currentPetType == null){
 			return new ResponseEntity<PetType>(HttpStatus.NOT_FOUND);
 		}
-		currentPetType.setName(petType.getName());
-		this.clinicService.savePetType(currentPetType);
-		return new ResponseEntity<PetType>(currentPetType, HttpStatus.NO_CONTENT);
+		// o tipo em cache é compartilhado: grava o corpo da requisição em vez de alterá-lo
+		petType.setId(currentPetType.getId());
+		this.clinicService.savePetType(petType);
+		return new ResponseEntity<PetType>(petType, HttpStatus.NO_CONTENT);
 	}
 
     @PreAuthorize( "hasRole(@roles.VET_ADMIN)" )
@@ -0,0 +1,67 @@
+package org.springframework.samples.petclinic.rest;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.samples.petclinic.util.ReadYourWrites;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Carries the time of a client's last write from one request to the next in the {@link #COOKIE} cookie, so that the
+ * {@link ReadYourWrites} window holds across requests (and application instances): a client that has just created a
+ * visit reads it back from the primary even if the replicas have not received it yet.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE = "PETCLINIC_LAST_WRITE";
+
+    private final ReadYourWrites readYourWrites;
+
+    public ReadYourWritesFilter(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String path = StringUtils.hasLength(request.getContextPath()) ? request.getContextPath() : "/";
+        int maxAge = (int) Math.max(1, (this.readYourWrites.getWindow() + 999) / 1000);
+        this.readYourWrites.begin(lastWrite(request), time -> {
+            // the writes are made before the body is written
+            if (!response.isCommitted()) {
+                Cookie cookie = new Cookie(COOKIE, Long.toString(time));
+                cookie.setPath(path);
+                cookie.setMaxAge(maxAge);
+                cookie.setHttpOnly(true);
+                response.addCookie(cookie);
+            }
+        });
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            this.readYourWrites.end();
+        }
+    }
+
+    private static long lastWrite(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE.equals(cookie.getName())) {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException ex) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -27,6 +27,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.config.CacheConfig;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -37,6 +38,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
 /**
@@ -45,22 +47,27 @@ import org.springframework.web.util.UriComponentsBuilder;
  */
 
 @RestController
-@CrossOrigin(exposedHeaders = "errors, content-type")
+@CrossOrigin(exposedHeaders = "errors, content-type, etag")
 @RequestMapping("api/specialties")
 public class SpecialtyRestController {
 
 	@Autowired
 	private ClinicService clinicService;
 
+	@Autowired
+	private ETagCache eTagCache;
+
     @PreAuthorize( "hasRole(@roles.VET_ADMIN)" )
 	@RequestMapping(value = "", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-	public ResponseEntity<Collection<Specialty>> getAllSpecialtys(){
-		Collection<Specialty> specialties = new ArrayList<Specialty>();
-		specialties.addAll(this.clinicService.findAllSpecialties());
-		if (specialties.isEmpty()){
-			return new ResponseEntity<Collection<Specialty>>(HttpStatus.NOT_FOUND);
-		}
-		return new ResponseEntity<Collection<Specialty>>(specialties, HttpStatus.OK);
+	public ResponseEntity<Collection<Specialty>> getAllSpecialtys(WebRequest request){
+		return this.eTagCache.get(request, CacheConfig.SPECIALTIES, () -> {
+			Collection<Specialty> specialties = new ArrayList<Specialty>();
+			specialties.addAll(this.clinicService.findAllSpecialties());
+			if (specialties.isEmpty()){
+				return new ResponseEntity<Collection<Specialty>>(HttpStatus.NOT_FOUND);
+			}
+			return new ResponseEntity<Collection<Specialty>>(specialties, HttpStatus.OK);
+		});
 	}
 
     @PreAuthorize( "hasRole(@roles.VET_ADMIN)" )
@@ -102,9 +109,10 @@ public class SpecialtyRestController {
 		if(currentSpecialty == null){
 			return new ResponseEntity<Specialty>(HttpStatus.NOT_FOUND);
 		}
-		currentSpecialty.setName(specialty.getName());
-		this.clinicService.saveSpecialty(currentSpecialty);
-		return new ResponseEntity<Specialty>(currentSpecialty, HttpStatus.NO_CONTENT);
+		// a especialidade em cache é compartilhada: grava o corpo da requisição em vez de alterá-la
+		specialty.setId(currentSpecialty.getId());
+		this.clinicService.saveSpecialty(specialty);
+		return new ResponseEntity<Specialty>(specialty, HttpStatus.NO_CONTENT);
 	}
 
     @PreAuthorize( "hasRole(@roles.VET_ADMIN)" )
@@ -28,6 +28,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.config.CacheConfig;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.service.ClinicService;
@@ -37,6 +38,7 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -49,22 +51,27 @@ import org.springframework.web.bind.annotation.RequestMapping;
  */
 
 @RestController
-@CrossOrigin(exposedHeaders = { "errors", "content-type" })
+@CrossOrigin(exposedHeaders = { "errors", "content-type", "etag" })
 @RequestMapping("/api/vets")
 public class VetRestController {
 
     @Autowired
     private ClinicService clinicService;
 
+    @Autowired
+    private ETagCache eTagCache;
+
     @PreAuthorize("hasRole('VET_ADMIN')")
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Collection<Vet>> getAllVets() {
-        Collection<Vet> vets = new ArrayList<>();
-        vets.addAll(this.clinicService.findAllVets());
-        if (vets.isEmpty()) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        }
-        return new ResponseEntity<>(vets, HttpStatus.OK);
+    public ResponseEntity<Collection<Vet>> getAllVets(WebRequest request) {
+        return this.eTagCache.get(request, CacheConfig.VETS, () -> {
+            Collection<Vet> vets = new ArrayList<>();
+            vets.addAll(this.clinicService.findAllVets());
+            if (vets.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(vets, HttpStatus.OK);
+        });
     }
 
     @PreAuthorize("hasRole('VET_ADMIN')")
@@ -16,6 +16,10 @@
 
 package org.springframework.samples.petclinic.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collection;
 
@@ -23,12 +27,15 @@ import org.springframework.transaction.annotation.Transactional;
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.service.VisitImportResult;
+import org.springframework.samples.petclinic.service.VisitImportService;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -41,18 +48,64 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @RestController
-@CrossOrigin(exposedHeaders = { "errors", "content-type" })
+@CrossOrigin(exposedHeaders = { "errors", "content-type", KeysetPage.NEXT_CURSOR_HEADER })
 @RequestMapping("/api/visits")
 public class VisitRestController {
 
     @Autowired
     private ClinicService clinicService;
 
+    @Autowired
+    private VisitImportService visitImportService;
+
+    // from e to (yyyy/MM/dd, incluídos) filtram pela data da visita, e petId por pet; essas consultas são sempre
+    // paginadas por (data, id), com o cursor X-Next-Cursor na forma yyyy-MM-dd,id
     @PreAuthorize("hasRole('OWNER_ADMIN')")
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Collection<Visit>> getAllVisits() {
+    public ResponseEntity<Collection<Visit>> getAllVisits(@RequestParam(value = "limit", required = false) Integer limit,
+                                                         @RequestParam(value = "after", required = false) String after,
+                                                         @RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "yyyy/MM/dd") LocalDate from,
+                                                         @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "yyyy/MM/dd") LocalDate to,
+                                                         @RequestParam(value = "petId", required = false) Integer petId) {
+        if (from != null || to != null || petId != null) {
+            if (from == null || to == null || from.isAfter(to)) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            LocalDate afterDate = from;
+            int afterId = 0;
+            if (after != null) {
+                String[] cursor = after.split(",");
+                try {
+                    afterDate = LocalDate.parse(cursor[0]);
+                    afterId = Integer.parseInt(cursor[1]);
+                } catch (DateTimeParseException | NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+                    return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                }
+                if (afterDate.isBefore(from)) {
+                    afterDate = from;
+                    afterId = 0;
+                }
+            }
+            int pageSize = KeysetPage.limit(limit);
+            Collection<Visit> visits = petId == null
+                ? this.clinicService.findVisitsByDateRange(afterDate, afterId, to, pageSize)
+                : this.clinicService.findVisitsByPetIdAndDateRange(petId, afterDate, afterId, to, pageSize);
+            return KeysetPage.response(visits, pageSize,
+                visit -> new java.sql.Date(visit.getDate().getTime()).toLocalDate() + "," + visit.getId());
+        }
+        Integer afterId;
+        try {
+            afterId = after == null ? null : Integer.valueOf(after);
+        } catch (NumberFormatException ex) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (KeysetPage.isRequested(limit, afterId)) {
+            int pageSize = KeysetPage.limit(limit);
+            return KeysetPage.response(this.clinicService.findVisitsAfter(KeysetPage.afterId(afterId), pageSize), pageSize);
+        }
         Collection<Visit> visits = new ArrayList<>();
         visits.addAll(this.clinicService.findAllVisits());
         if (visits.isEmpty()) {
@@ -90,6 +143,14 @@ public class VisitRestController {
         return new ResponseEntity<>(visit, headers, HttpStatus.CREATED);
     }
 
+    // Importação em lote: array JSON ou NDJSON, resultado por item (na ordem da entrada)
+    @PreAuthorize("hasRole('OWNER_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<VisitImportResult> addVisits(InputStream body) throws IOException {
+        return new ResponseEntity<>(this.visitImportService.importVisits(body), HttpStatus.OK);
+    }
+
     @PreAuthorize("hasRole('OWNER_ADMIN')")
     @PutMapping(value = "/{visitId}", consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Void> updateVisit(@PathVariable("visitId") int visitId,
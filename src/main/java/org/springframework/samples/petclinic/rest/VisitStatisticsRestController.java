@@ -0,0 +1,47 @@
+package org.springframework.samples.petclinic.rest;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.service.VisitStatistics;
+import org.springframework.samples.petclinic.service.VisitStatistics.Grouping;
+import org.springframework.samples.petclinic.service.VisitStatisticsService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Visit statistics REST Controller: visit counts per day, pet type or owner city between two dates, from the rollups
+ * of the {@link VisitStatisticsService}.
+ */
+@RestController
+@CrossOrigin(exposedHeaders = "errors, content-type")
+@RequestMapping("/api/stats/visits")
+public class VisitStatisticsRestController {
+
+    private final VisitStatisticsService visitStatisticsService;
+
+    public VisitStatisticsRestController(VisitStatisticsService visitStatisticsService) {
+        this.visitStatisticsService = visitStatisticsService;
+    }
+
+    // groupBy=day|petType|city; from e to (yyyy/MM/dd) incluídos, opcionais
+    @PreAuthorize("hasRole('OWNER_ADMIN')")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<VisitStatistics> countVisits(
+        @RequestParam(value = "groupBy", defaultValue = "day") String groupBy,
+        @RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "yyyy/MM/dd") LocalDate from,
+        @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "yyyy/MM/dd") LocalDate to) {
+        Grouping grouping = Grouping.of(groupBy);
+        if (grouping == null || (from != null && to != null && from.isAfter(to))) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(this.visitStatisticsService.countVisits(grouping, from, to), HttpStatus.OK);
+    }
+}
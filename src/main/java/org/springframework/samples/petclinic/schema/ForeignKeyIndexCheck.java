@@ -0,0 +1,155 @@
+package org.springframework.samples.petclinic.schema;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Startup self-check of the schema: every foreign key of the tables the repositories query must be the leading
+ * column(s) of some index, otherwise each join or lookup on it (the pets of an owner, the visits of a pet, the vets of
+ * a specialty, the roles of a user) reads the whole table. Unindexed foreign keys are logged as warnings once the
+ * application is ready; the fix is a migration in <code>db/migration/&lt;platform&gt;</code>.
+ * <p>
+ * Only the JDBC metadata of the connected database is read, so indexes that the database creates by itself for its
+ * constraints (HSQLDB, MySQL InnoDB) count as well.
+ */
+@Component
+public class ForeignKeyIndexCheck {
+
+    private static final Logger logger = LoggerFactory.getLogger(ForeignKeyIndexCheck.class);
+
+    /**
+     * The tables mapped by the repositories.
+     */
+    static final List<String> TABLES = List.of("owners", "pets", "visits", "types", "vets", "specialties",
+        "vet_specialties", "users", "roles");
+
+    private final DataSource dataSource;
+
+    public ForeignKeyIndexCheck(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * A foreign key, with its column names (in key order) and table names in lower case.
+     */
+    public record ForeignKey(String table, List<String> columns, String referencedTable, boolean indexed) {
+
+        @Override
+        public String toString() {
+            return this.table + "(" + String.join(", ", this.columns) + ") -> " + this.referencedTable;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        List<ForeignKey> foreignKeys = findForeignKeys();
+        List<ForeignKey> unindexed = foreignKeys.stream().filter(foreignKey -> !foreignKey.indexed()).toList();
+        for (ForeignKey foreignKey : unindexed) {
+            logger.warn("Foreign key {} is not indexed: queries joining or filtering on it scan the whole table",
+                foreignKey);
+        }
+        if (unindexed.isEmpty()) {
+            logger.info("All {} foreign keys of the schema are indexed", foreignKeys.size());
+        }
+    }
+
+    /**
+     * @return the foreign keys of the {@link #TABLES}, whether indexed or not
+     */
+    public List<ForeignKey> findForeignKeys() {
+        try (Connection connection = this.dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String catalog = connection.getCatalog();
+            String schema = connection.getSchema();
+            List<ForeignKey> foreignKeys = new ArrayList<>();
+            for (String table : TABLES) {
+                String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+                Collection<List<String>> indexes = indexes(metaData, catalog, schema, name);
+                for (ImportedKey key : importedKeys(metaData, catalog, schema, name)) {
+                    foreignKeys.add(new ForeignKey(table, key.columns(), key.referencedTable(),
+                        isIndexed(key.columns(), indexes)));
+                }
+            }
+            return foreignKeys;
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Cannot read the foreign keys and indexes of the schema", ex);
+        }
+    }
+
+    /**
+     * Whether one of the indexes starts with the given columns, in any order.
+     */
+    static boolean isIndexed(List<String> columns, Collection<List<String>> indexes) {
+        for (List<String> index : indexes) {
+            if (index.size() >= columns.size()
+                && new HashSet<>(index.subList(0, columns.size())).equals(new HashSet<>(columns))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the referenced table and columns of each foreign key of the table
+     */
+    private static List<ImportedKey> importedKeys(DatabaseMetaData metaData, String catalog, String schema,
+                                                  String table) throws SQLException {
+        Map<String, String> referencedTables = new LinkedHashMap<>();
+        Map<String, TreeMap<Short, String>> columns = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getImportedKeys(catalog, schema, table)) {
+            while (rs.next()) {
+                String referencedTable = lowerCase(rs.getString("PKTABLE_NAME"));
+                String name = rs.getString("FK_NAME") != null ? rs.getString("FK_NAME") : referencedTable;
+                referencedTables.put(name, referencedTable);
+                columns.computeIfAbsent(name, key -> new TreeMap<>())
+                    .put(rs.getShort("KEY_SEQ"), lowerCase(rs.getString("FKCOLUMN_NAME")));
+            }
+        }
+        return referencedTables.entrySet().stream()
+            .map(key -> new ImportedKey(key.getValue(), List.copyOf(columns.get(key.getKey()).values())))
+            .toList();
+    }
+
+    /**
+     * @return the columns of each index of the table (primary key and unique constraints included), in index order
+     */
+    private static Collection<List<String>> indexes(DatabaseMetaData metaData, String catalog, String schema,
+                                                    String table) throws SQLException {
+        Map<String, TreeMap<Short, String>> indexes = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(catalog, schema, table, false, true)) {
+            while (rs.next()) {
+                String index = rs.getString("INDEX_NAME");
+                if (index != null && rs.getShort("TYPE") != DatabaseMetaData.tableIndexStatistic) {
+                    indexes.computeIfAbsent(index, key -> new TreeMap<>())
+                        .put(rs.getShort("ORDINAL_POSITION"), lowerCase(rs.getString("COLUMN_NAME")));
+                }
+            }
+        }
+        return indexes.values().stream().map(index -> List.copyOf(index.values())).toList();
+    }
+
+    private record ImportedKey(String referencedTable, List<String> columns) {
+    }
+
+    private static String lowerCase(String identifier) {
+        return identifier.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,52 @@
+package org.springframework.samples.petclinic.schema;
+
+import java.sql.Connection;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Version 1 of the schema: the database's <code>db/&lt;platform&gt;/initDB.sql</code>, as it was before the schema was
+ * versioned. Later versions are SQL migrations in <code>db/migration/&lt;platform&gt;</code>.
+ * <p>
+ * Databases created from <code>initDB.sql</code> by hand (or by an earlier release) hold tables but no migration
+ * history: Flyway records them as being at version 1 (<code>spring.flyway.baseline-on-migrate</code>) and applies the
+ * later versions only. That is also why <code>initDB.sql</code> must not change any more.
+ */
+@Component
+public class InitialSchemaMigration implements JavaMigration {
+
+    static final MigrationVersion VERSION = MigrationVersion.fromVersion("1");
+
+    @Override
+    public MigrationVersion getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public String getDescription() {
+        return "initDB";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        DatabaseDriver platform = DatabaseDriver.fromProductName(connection.getMetaData().getDatabaseProductName());
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/" + platform.getId() + "/initDB.sql"));
+    }
+}
@@ -0,0 +1,325 @@
+package org.springframework.samples.petclinic.seed;
+
+import java.sql.Date;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk loads synthetic owners, pets, visits, vets and specialties through batched JDBC inserts.
+ * <p>
+ * Rows are appended after the highest existing ids, with explicit ids computed from the owner index, so that chunks
+ * of {@link SeedPlan#batchSize()} owners can be inserted by {@link SeedPlan#threads()} workers in parallel, each chunk
+ * in its own transaction. Identity sequences are moved past the new rows at the end. Missing tables are created from
+ * the platform's <code>db/&lt;platform&gt;/initDB.sql</code>. Not meant to run concurrently with other writers.
+ */
+public class DataSeeder {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
+
+    private static final String[] SEQUENCE_TABLES = {"owners", "pets", "visits", "types", "specialties", "vets"};
+
+    private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(2010, 1, 1);
+
+    private static final String[] STATES = {"Wisconsin", "Illinois", "Minnesota", "Iowa", "Michigan", "Ohio"};
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final NamePools pools;
+
+    public DataSeeder(DataSource dataSource, PlatformTransactionManager transactionManager, NamePools pools) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pools = pools;
+    }
+
+    /**
+     * @return the number of visits inserted
+     */
+    public long seed(SeedPlan plan) throws DataAccessException {
+        DatabaseDriver platform = platform();
+        initSchemaIfMissing(platform);
+        long start = System.nanoTime();
+
+        List<Integer> typeIds = insertNames("types", this.pools.petTypes, plan.petTypes(), 80);
+        List<Integer> specialtyIds = insertNames("specialties", this.pools.specialties, plan.specialties(), 80);
+        insertVets(plan.vets(), specialtyIds);
+        if (typeIds.isEmpty()) {
+            throw new IllegalStateException("No pet types to assign: set petclinic.seed.pet-types > 0");
+        }
+
+        Offsets offsets = new Offsets(maxId("owners"), maxId("pets"), maxId("visits"));
+        int chunks = (plan.owners() + plan.batchSize() - 1) / plan.batchSize();
+        AtomicInteger done = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(plan.threads());
+        try {
+            List<Future<?>> futures = new ArrayList<>(chunks);
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int first = chunk * plan.batchSize();
+                int last = Math.min(first + plan.batchSize(), plan.owners());
+                futures.add(executor.submit(() -> {
+                    this.transactionTemplate.executeWithoutResult(status -> insertOwners(plan, offsets, typeIds, first, last));
+                    int completed = done.incrementAndGet();
+                    if (completed % Math.max(1, chunks / 10) == 0 || completed == chunks) {
+                        logger.info("Seeded {}/{} owner chunks", completed, chunks);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Seeding interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof DataAccessException dataAccessException) {
+                throw dataAccessException;
+            }
+            throw new IllegalStateException("Seeding failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        resetSequences(platform);
+        long visits = (long) plan.owners() * plan.petsPerOwner() * plan.visitsPerPet();
+        logger.info("Seeded {} owners, {} pets and {} visits into {} in {} s", plan.owners(),
+            (long) plan.owners() * plan.petsPerOwner(), visits, platform.getId(), (System.nanoTime() - start) / 1_000_000_000);
+        return visits;
+    }
+
+    private DatabaseDriver platform() {
+        try {
+            String productName = JdbcUtils.extractDatabaseMetaData(this.dataSource, DatabaseMetaData::getDatabaseProductName);
+            DatabaseDriver platform = DatabaseDriver.fromProductName(productName);
+            if (platform != DatabaseDriver.HSQLDB && platform != DatabaseDriver.MYSQL && platform != DatabaseDriver.POSTGRESQL) {
+                throw new IllegalStateException("Unsupported database for seeding: " + productName);
+            }
+            return platform;
+        } catch (MetaDataAccessException ex) {
+            throw new IllegalStateException("Cannot determine database platform", ex);
+        }
+    }
+
+    private void initSchemaIfMissing(DatabaseDriver platform) {
+        try {
+            maxId("owners");
+        } catch (BadSqlGrammarException ex) {
+            logger.info("Creating schema from db/{}/initDB.sql", platform.getId());
+            new ResourceDatabasePopulator(new ClassPathResource("db/" + platform.getId() + "/initDB.sql")).execute(this.dataSource);
+        }
+    }
+
+    private int maxId(String table) {
+        Integer max = this.jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+        return max == null ? 0 : max;
+    }
+
+    /**
+     * Add up to <code>count</code> names from the pool that the table does not hold yet.
+     *
+     * @return the ids of all rows of the table
+     */
+    private List<Integer> insertNames(String table, List<String> pool, int count, int maxLength) {
+        Set<String> existing = new HashSet<>(this.jdbcTemplate.queryForList("SELECT name FROM " + table, String.class));
+        List<String> names = new ArrayList<>(count);
+        for (String name : pool) {
+            String value = truncate(name, maxLength);
+            if (names.size() == count) {
+                break;
+            }
+            if (existing.add(value)) {
+                names.add(value);
+            }
+        }
+        int firstId = maxId(table) + 1;
+        this.transactionTemplate.executeWithoutResult(status -> this.jdbcTemplate.batchUpdate(
+            "INSERT INTO " + table + " (id, name) VALUES (?, ?)", new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setInt(1, firstId + i);
+                    ps.setString(2, names.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return names.size();
+                }
+            }));
+        return this.jdbcTemplate.queryForList("SELECT id FROM " + table + " ORDER BY id", Integer.class);
+    }
+
+    private void insertVets(int count, List<Integer> specialtyIds) {
+        int firstId = maxId("vets") + 1;
+        List<int[]> vetSpecialties = new ArrayList<>();
+        for (int i = 0; i < count && !specialtyIds.isEmpty(); i++) {
+            int vetId = firstId + i;
+            int specialties = (int) (mix(vetId, 7) % 3);
+            for (int s = 0; s < specialties; s++) {
+                int specialtyId = pick(specialtyIds, mix(vetId, 11 + s));
+                if (s == 0 || vetSpecialties.get(vetSpecialties.size() - 1)[1] != specialtyId) {
+                    vetSpecialties.add(new int[]{vetId, specialtyId});
+                }
+            }
+        }
+        this.transactionTemplate.executeWithoutResult(status -> {
+            this.jdbcTemplate.batchUpdate("INSERT INTO vets (id, first_name, last_name) VALUES (?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        String[] name = pick(pools.ownerNames, mix(firstId + i, 3));
+                        ps.setInt(1, firstId + i);
+                        ps.setString(2, truncate(name[0], 30));
+                        ps.setString(3, truncate(name[1], 30));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return count;
+                    }
+                });
+            this.jdbcTemplate.batchUpdate("INSERT INTO vet_specialties (vet_id, specialty_id) VALUES (?, ?)",
+                vetSpecialties, vetSpecialties.size(), (ps, row) -> {
+                    ps.setInt(1, row[0]);
+                    ps.setInt(2, row[1]);
+                });
+        });
+    }
+
+    /**
+     * Insert owners <code>[first, last)</code> of the plan with all their pets and visits.
+     */
+    private void insertOwners(SeedPlan plan, Offsets offsets, List<Integer> typeIds, int first, int last) {
+        int owners = last - first;
+        int pets = owners * plan.petsPerOwner();
+        int visits = pets * plan.visitsPerPet();
+        this.jdbcTemplate.batchUpdate(
+            "INSERT INTO owners (id, first_name, last_name, address, city, state, zip_code, telephone) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int ownerId = offsets.owner() + first + i + 1;
+                    String[] name = pick(pools.ownerNames, mix(ownerId, 1));
+                    ps.setInt(1, ownerId);
+                    ps.setString(2, truncate(name[0], 30));
+                    ps.setString(3, truncate(name[1], 30));
+                    ps.setString(4, (mix(ownerId, 2) % 9999 + 1) + " " + truncate(pick(pools.petNames, mix(ownerId, 3)), 30) + " St.");
+                    ps.setString(5, truncate(pick(pools.petNames, mix(ownerId, 4)), 30) + "ville");
+                    ps.setString(6, STATES[(int) (mix(ownerId, 5) % STATES.length)]);
+                    ps.setString(7, pick(pools.zipCodes, mix(ownerId, 6)));
+                    ps.setString(8, String.format("%010d", mix(ownerId, 7) % 10_000_000_000L));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return owners;
+                }
+            });
+        this.jdbcTemplate.batchUpdate("INSERT INTO pets (id, name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?, ?)",
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int petIndex = first * plan.petsPerOwner() + i;
+                    int petId = offsets.pet() + petIndex + 1;
+                    ps.setInt(1, petId);
+                    ps.setString(2, truncate(pick(pools.petNames, mix(petId, 8)), 30));
+                    ps.setDate(3, Date.valueOf(birthDate(petId)));
+                    ps.setInt(4, pick(typeIds, mix(petId, 9)));
+                    ps.setInt(5, offsets.owner() + petIndex / plan.petsPerOwner() + 1);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return pets;
+                }
+            });
+        this.jdbcTemplate.batchUpdate("INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)",
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    long visitIndex = (long) first * plan.petsPerOwner() * plan.visitsPerPet() + i;
+                    int visitId = (int) (offsets.visit() + visitIndex + 1);
+                    int petId = (int) (offsets.pet() + visitIndex / plan.visitsPerPet() + 1);
+                    ps.setInt(1, visitId);
+                    ps.setInt(2, petId);
+                    ps.setDate(3, Date.valueOf(birthDate(petId).plusDays(mix(visitId, 10) % 3650)));
+                    ps.setString(4, truncate(pick(pools.visitReasons, mix(visitId, 11)), 255));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return visits;
+                }
+            });
+    }
+
+    private void resetSequences(DatabaseDriver platform) {
+        for (String table : SEQUENCE_TABLES) {
+            int next = maxId(table) + 1;
+            if (platform == DatabaseDriver.POSTGRESQL) {
+                this.jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), ?, false)",
+                    Long.class, next);
+            } else if (platform == DatabaseDriver.HSQLDB) {
+                this.jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+            }
+            // MySQL: AUTO_INCREMENT already moved past the explicit ids
+        }
+    }
+
+    private static LocalDate birthDate(int petId) {
+        return FIRST_BIRTH_DATE.plusDays(mix(petId, 12) % 5000);
+    }
+
+    private static <T> T pick(List<T> pool, long hash) {
+        return pool.get((int) (hash % pool.size()));
+    }
+
+    /**
+     * Deterministic, well spread non-negative hash of an id, so that generated values do not depend on chunking or
+     * thread scheduling.
+     */
+    private static long mix(long id, int salt) {
+        long z = id * 0x9E3779B97F4A7C15L + salt * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) >>> 1;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    private record Offsets(int owner, int pet, int visit) {
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.springframework.samples.petclinic.seed;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Command-line mode that fills the configured database with synthetic data, e.g.
+ * <pre>
+ * java -jar spring-petclinic.jar --spring.profiles.active=mysql,jdbc,seed \
+ *     --petclinic.seed.owners=1000000 --petclinic.seed.pets-per-owner=2 --petclinic.seed.visits-per-pet=5
+ * </pre>
+ * The <code>seed</code> profile starts without the web server, so the JVM exits once the data is loaded.
+ */
+@Component
+@Profile("seed")
+public class DataSeederRunner implements ApplicationRunner {
+
+    private final DataSeeder dataSeeder;
+
+    private final SeedPlan plan;
+
+    public DataSeederRunner(DataSource dataSource, PlatformTransactionManager transactionManager,
+                            @Value("${petclinic.seed.owners:10000}") int owners,
+                            @Value("${petclinic.seed.pets-per-owner:2}") int petsPerOwner,
+                            @Value("${petclinic.seed.visits-per-pet:5}") int visitsPerPet,
+                            @Value("${petclinic.seed.vets:100}") int vets,
+                            @Value("${petclinic.seed.specialties:50}") int specialties,
+                            @Value("${petclinic.seed.pet-types:50}") int petTypes,
+                            @Value("${petclinic.seed.batch-size:1000}") int batchSize,
+                            @Value("${petclinic.seed.threads:4}") int threads) {
+        this.dataSeeder = new DataSeeder(dataSource, transactionManager, NamePools.load());
+        this.plan = new SeedPlan(owners, petsPerOwner, visitsPerPet, vets, specialties, petTypes, batchSize, threads);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        this.dataSeeder.seed(this.plan);
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.springframework.samples.petclinic.seed;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Value pools for generated rows, read from the load generator's CSV files (<code>loadgen/server/*.csv</code>, packaged
+ * under <code>seed/</code>).
+ */
+public final class NamePools {
+
+    static final String LOCATION = "seed/";
+
+    final List<String[]> ownerNames;
+
+    final List<String> petNames;
+
+    final List<String> petTypes;
+
+    final List<String> specialties;
+
+    final List<String> visitReasons;
+
+    final List<String> zipCodes;
+
+    private NamePools(List<String[]> ownerNames, List<String> petNames, List<String> petTypes,
+                      List<String> specialties, List<String> visitReasons, List<String> zipCodes) {
+        this.ownerNames = ownerNames;
+        this.petNames = petNames;
+        this.petTypes = petTypes;
+        this.specialties = specialties;
+        this.visitReasons = visitReasons;
+        this.zipCodes = zipCodes;
+    }
+
+    public static NamePools load() {
+        List<String[]> ownerNames = new ArrayList<>();
+        for (String line : read("owners.csv", line -> line.indexOf(',') > 0)) {
+            int comma = line.indexOf(',');
+            ownerNames.add(new String[]{line.substring(0, comma).trim(), line.substring(comma + 1).trim()});
+        }
+        return new NamePools(ownerNames,
+            read("pet_names.csv", line -> true),
+            read("pet_types.csv", line -> true),
+            read("specialities.csv", line -> true),
+            read("reasons.csv", line -> true),
+            read("zip_codes.csv", line -> line.matches("\\d{5}")));
+    }
+
+    private static List<String> read(String file, Predicate<String> accept) {
+        List<String> values = new ArrayList<>();
+        ClassPathResource resource = new ClassPathResource(LOCATION + file);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() > 1 && line.startsWith("\"") && line.endsWith("\"")) {
+                    line = line.substring(1, line.length() - 1);
+                }
+                if (!line.isEmpty() && accept.test(line)) {
+                    values.add(line);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read name pool " + resource.getPath(), ex);
+        }
+        if (values.isEmpty()) {
+            throw new IllegalStateException("Name pool " + resource.getPath() + " is empty");
+        }
+        return values;
+    }
+
+}
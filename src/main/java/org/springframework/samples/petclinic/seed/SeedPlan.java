@@ -0,0 +1,30 @@
+package org.springframework.samples.petclinic.seed;
+
+/**
+ * Size of a {@link DataSeeder} run.
+ *
+ * @param owners       owners to add
+ * @param petsPerOwner pets per added owner
+ * @param visitsPerPet visits per added pet
+ * @param vets         vets to add
+ * @param specialties  specialties to add (at most the size of the name pool)
+ * @param petTypes     pet types to add (at most the size of the name pool)
+ * @param batchSize    owners per JDBC batch and per transaction
+ * @param threads      parallel insert workers
+ */
+public record SeedPlan(int owners, int petsPerOwner, int visitsPerPet, int vets, int specialties, int petTypes,
+                       int batchSize, int threads) {
+
+    public SeedPlan {
+        if (owners < 0 || petsPerOwner < 0 || visitsPerPet < 0 || vets < 0 || specialties < 0 || petTypes < 0) {
+            throw new IllegalArgumentException("Seed sizes must not be negative");
+        }
+        if (batchSize < 1 || threads < 1) {
+            throw new IllegalArgumentException("batchSize and threads must be positive");
+        }
+        if ((long) owners * petsPerOwner * visitsPerPet > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many visits for INTEGER ids");
+        }
+    }
+
+}
@@ -15,10 +15,12 @@
  */
 package org.springframework.samples.petclinic.service;
 
+import java.time.LocalDate;
 import java.util.Collection;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Specialty;
@@ -36,12 +38,16 @@ public interface ClinicService {
 
 	Pet findPetById(int id) throws DataAccessException;
 	Collection<Pet> findAllPets() throws DataAccessException;
+	Collection<Pet> findPetsAfter(int afterId, int limit) throws DataAccessException;
 	void savePet(Pet pet) throws DataAccessException;
 	void deletePet(Pet pet) throws DataAccessException;
 
 	Collection<Visit> findVisitsByPetId(int petId);
 	Visit findVisitById(int visitId) throws DataAccessException;
 	Collection<Visit> findAllVisits() throws DataAccessException;
+	Collection<Visit> findVisitsAfter(int afterId, int limit) throws DataAccessException;
+	Collection<Visit> findVisitsByDateRange(LocalDate afterDate, int afterId, LocalDate to, int limit) throws DataAccessException;
+	Collection<Visit> findVisitsByPetIdAndDateRange(int petId, LocalDate afterDate, int afterId, LocalDate to, int limit) throws DataAccessException;
 	void saveVisit(Visit visit) throws DataAccessException;
 	void deleteVisit(Visit visit) throws DataAccessException;
 	
@@ -52,10 +58,16 @@ public interface ClinicService {
 	void deleteVet(Vet vet) throws DataAccessException;
 	
 	Owner findOwnerById(int id) throws DataAccessException;
+	/**
+	 * Same as {@link #findOwnerById} but never cached: the owner returned may be modified before {@link #saveOwner}.
+	 */
+	Owner findOwnerByIdForUpdate(int id) throws DataAccessException;
 	Collection<Owner> findAllOwners() throws DataAccessException;
+	Collection<Owner> findOwnersAfter(int afterId, int limit) throws DataAccessException;
 	void saveOwner(Owner owner) throws DataAccessException;
 	void deleteOwner(Owner owner) throws DataAccessException;
 	Collection<Owner> findOwnerByLastName(String lastName) throws DataAccessException;
+	Collection<OwnerSummary> findOwnerSummariesByLastName(String lastName) throws DataAccessException;
 
 	PetType findPetTypeById(int petTypeId);
 	Collection<PetType> findAllPetTypes() throws DataAccessException;
@@ -1,14 +1,23 @@
 package org.springframework.samples.petclinic.service;
 
+import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 import co.elastic.apm.api.CaptureSpan;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.config.CacheConfig;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Specialty;
@@ -20,9 +29,31 @@ import org.springframework.samples.petclinic.repository.PetTypeRepository;
 import org.springframework.samples.petclinic.repository.SpecialtyRepository;
 import org.springframework.samples.petclinic.repository.VetRepository;
 import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.util.ResourceVersions;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Reference data (vets, specialties, pet types) and owners by id are cached, see {@link CacheConfig}. Cached instances
+ * are shared by every caller and must not be modified: an owner is updated from {@link #findOwnerByIdForUpdate}, which
+ * bypasses the cache. Writes evict before invoking the repository, so that the writer does not read the old entry
+ * back, and evict again once their transaction has committed (the transaction-aware cache defers that second
+ * eviction), so that a concurrent read that cached the old rows between the two is dropped too. Pet and visit writes
+ * evict the owners the {@link VisitStatisticsService} reports for them, i.e. the owner of the pet before and after the
+ * write, as a pet or visit may move between owners.
+ * <p>
+ * Entity associations are lazy and open-in-view is off, so every read returns what its callers serialize, loaded by
+ * the repository in one statement: owners with {@link Owner#DETAIL_GRAPH}, pets with {@link Pet#DETAIL_GRAPH},
+ * visits with {@link Visit#LIST_GRAPH} and vets with {@link Vet#LIST_GRAPH} (the JDBC repositories assemble the same
+ * objects by hand). Cached owners and vets are therefore fully initialized.
+ * <p>
+ * Owner, pet and pet type writes tell the {@link OwnerSearchService}, which reindexes the affected owners once the
+ * transaction has committed. Visit, pet, owner and pet type writes tell the {@link VisitStatisticsService} before
+ * writing, so that it can read what the visit counts depend on.
+ * <p>
+ * Every write also moves the {@link ResourceVersions} of what it evicts from the caches, against which the ETags of
+ * the owners, pet types, specialties and vets are revalidated.
+ */
 @Service
 public class ClinicServiceImpl implements ClinicService {
 
@@ -32,6 +63,10 @@ public class ClinicServiceImpl implements ClinicService {
     private VisitRepository visitRepository;
     private SpecialtyRepository specialtyRepository;
 	private PetTypeRepository petTypeRepository;
+    private OwnerSearchService ownerSearchService;
+    private VisitStatisticsService visitStatisticsService;
+    private ResourceVersions resourceVersions;
+    private Cache owners;
 
     @Autowired
      public ClinicServiceImpl(
@@ -40,13 +75,21 @@ public class ClinicServiceImpl implements ClinicService {
     		 OwnerRepository ownerRepository,
     		 VisitRepository visitRepository,
     		 SpecialtyRepository specialtyRepository,
-			 PetTypeRepository petTypeRepository) {
+			 PetTypeRepository petTypeRepository,
+			 OwnerSearchService ownerSearchService,
+			 VisitStatisticsService visitStatisticsService,
+			 ResourceVersions resourceVersions,
+			 CacheManager cacheManager) {
         this.petRepository = petRepository;
         this.vetRepository = vetRepository;
         this.ownerRepository = ownerRepository;
         this.visitRepository = visitRepository;
         this.specialtyRepository = specialtyRepository; 
 		this.petTypeRepository = petTypeRepository;
+        this.ownerSearchService = ownerSearchService;
+        this.visitStatisticsService = visitStatisticsService;
+        this.resourceVersions = resourceVersions;
+        this.owners = cacheManager.getCache(CacheConfig.OWNERS);
     }
 
 	@Override
@@ -55,9 +98,17 @@ public class ClinicServiceImpl implements ClinicService {
 		return petRepository.findAll();
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Pet> findPetsAfter(int afterId, int limit) throws DataAccessException {
+		return petRepository.findAllAfter(afterId, limit);
+	}
+
 	@Override
 	@Transactional
 	public void deletePet(Pet pet) throws DataAccessException {
+		ownerSearchService.petChanged(pet);
+		ownersChanged(visitStatisticsService.petDeleting(pet));
 		petRepository.delete(pet);
 	}
 
@@ -73,9 +124,28 @@ public class ClinicServiceImpl implements ClinicService {
 		return visitRepository.findAll();
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Visit> findVisitsAfter(int afterId, int limit) throws DataAccessException {
+		return visitRepository.findAllAfter(afterId, limit);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Visit> findVisitsByDateRange(LocalDate afterDate, int afterId, LocalDate to, int limit) throws DataAccessException {
+		return visitRepository.findByDateRange(afterDate, afterId, to, limit);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Visit> findVisitsByPetIdAndDateRange(int petId, LocalDate afterDate, int afterId, LocalDate to, int limit) throws DataAccessException {
+		return visitRepository.findByPetIdAndDateRange(petId, afterDate, afterId, to, limit);
+	}
+
 	@Override
 	@Transactional
 	public void deleteVisit(Visit visit) throws DataAccessException {
+		ownersChanged(visitStatisticsService.visitDeleting(visit));
 		visitRepository.delete(visit);
 	}
 
@@ -85,22 +155,31 @@ public class ClinicServiceImpl implements ClinicService {
 		return vetRepository.findById(id);
 	}
 
+	@Cacheable(CacheConfig.VETS)
 	@Override
 	@Transactional(readOnly = true)
 	public Collection<Vet> findAllVets() throws DataAccessException {
 		return vetRepository.findAll();
 	}
 
+	@Caching(evict = {
+		@CacheEvict(value = CacheConfig.VETS, allEntries = true, beforeInvocation = true),
+		@CacheEvict(value = CacheConfig.VETS, allEntries = true)})
 	@Override
 	@Transactional
 	public void saveVet(Vet vet) throws DataAccessException {
 		vetRepository.save(vet);
+		resourceVersions.changed(CacheConfig.VETS);
 	}
 
+	@Caching(evict = {
+		@CacheEvict(value = CacheConfig.VETS, allEntries = true, beforeInvocation = true),
+		@CacheEvict(value = CacheConfig.VETS, allEntries = true)})
 	@Override
 	@Transactional
 	public void deleteVet(Vet vet) throws DataAccessException {
 		vetRepository.delete(vet);
+		resourceVersions.changed(CacheConfig.VETS);
 	}
 
 	@Override
@@ -109,60 +188,109 @@ public class ClinicServiceImpl implements ClinicService {
 		return ownerRepository.findAll();
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Owner> findOwnersAfter(int afterId, int limit) throws DataAccessException {
+		return ownerRepository.findAllAfter(afterId, limit);
+	}
+
+	@Caching(evict = {
+		@CacheEvict(value = CacheConfig.OWNERS, key = "#owner.id", beforeInvocation = true),
+		@CacheEvict(value = CacheConfig.OWNERS, key = "#owner.id")})
 	@Override
 	@Transactional
 	public void deleteOwner(Owner owner) throws DataAccessException {
+		visitStatisticsService.ownerDeleting(owner);
 		ownerRepository.delete(owner);
+		if (owner.getId() != null) {
+			ownerSearchService.ownerChanged(owner.getId());
+			resourceVersions.changed(CacheConfig.OWNERS, owner.getId());
+		}
 	}
 
+	@Cacheable(value = CacheConfig.PET_TYPES, key = "#petTypeId", unless = "#result == null")
 	@Override
 	@Transactional(readOnly = true)
 	public PetType findPetTypeById(int petTypeId) throws DataAccessException {
 		return petTypeRepository.findById(petTypeId);
 	}
 
+	@Cacheable(CacheConfig.PET_TYPES)
 	@Override
 	@Transactional(readOnly = true)
 	public Collection<PetType> findAllPetTypes() throws DataAccessException {
 		return petTypeRepository.findAll();
 	}
 
+	@Caching(evict = {
+		@CacheEvict(value = CacheConfig.PET_TYPES, allEntries = true, beforeInvocation = true),
+		@CacheEvict(value = CacheConfig.OWNERS, allEntries = true, beforeInvocation = true),
+		@CacheEvict(value = CacheConfig.PET_TYPES, allEntries = true),
+		@CacheEvict(value = CacheConfig.OWNERS, allEntries = true)})
 	@Override
 	@Transactional
 	public void savePetType(PetType petType) throws DataAccessException {
 		petTypeRepository.save(petType);
+		resourceVersions.changed(CacheConfig.PET_TYPES);
+		resourceVersions.changed(CacheConfig.OWNERS);
 	}
 
+	@Caching(evict = {
+		@CacheEvict(value = CacheConfig.PET_TYPES, allEntries = true, beforeInvocation = true),
+		@CacheEvict(value = CacheConfig.OWNERS, allEntries = true, beforeInvocation = true),
+		@CacheEvict(value = CacheConfig.PET_TYPES, allEntries = true),
+		@CacheEvict(value = CacheConfig.OWNERS, allEntries = true)})
 	@Override
 	@Transactional
 	public void deletePetType(PetType petType) throws DataAccessException {
+		ownerSearchService.petTypeDeleted(petType.getId());
+		visitStatisticsService.petTypeDeleting(petType.getId());
 		petTypeRepository.delete(petType);
+		resourceVersions.changed(CacheConfig.PET_TYPES);
+		resourceVersions.changed(CacheConfig.OWNERS);
 	}
 
+	@Cacheable(value = CacheConfig.SPECIALTIES, key = "#specialtyId", unless = "#result == null")
 	@Override
 	@Transactional(readOnly = true)
 	public Specialty findSpecialtyById(int specialtyId) throws DataAccessException {
 		return specialtyRepository.findById(specialtyId);
 	}
 
+	@Cacheable(CacheConfig.SPECIALTIES)
 	@Override
 	@Transactional(readOnly = true)
 	public Collection<Specialty> findAllSpecialties() throws DataAccessException {
 		return specialtyRepository.findAll();
 	}
 
+	@Caching(evict = {
+		@CacheEvict(value = CacheConfig.SPECIALTIES, allEntries = true, beforeInvocation = true),
+		@CacheEvict(value = CacheConfig.VETS, allEntries = true, beforeInvocation = true),
+		@CacheEvict(value = CacheConfig.SPECIALTIES, allEntries = true),
+		@CacheEvict(value = CacheConfig.VETS, allEntries = true)})
 	@Override
 	@Transactional
 	public void saveSpecialty(Specialty specialty) throws DataAccessException {
 		specialtyRepository.save(specialty);
+		resourceVersions.changed(CacheConfig.SPECIALTIES);
+		resourceVersions.changed(CacheConfig.VETS);
 	}
 
+	@Caching(evict = {
+		@CacheEvict(value = CacheConfig.SPECIALTIES, allEntries = true, beforeInvocation = true),
+		@CacheEvict(value = CacheConfig.VETS, allEntries = true, beforeInvocation = true),
+		@CacheEvict(value = CacheConfig.SPECIALTIES, allEntries = true),
+		@CacheEvict(value = CacheConfig.VETS, allEntries = true)})
 	@Override
 	@Transactional
 	public void deleteSpecialty(Specialty specialty) throws DataAccessException {
 		specialtyRepository.delete(specialty);
+		resourceVersions.changed(CacheConfig.SPECIALTIES);
+		resourceVersions.changed(CacheConfig.VETS);
 	}
 
+	@Cacheable(CacheConfig.PET_TYPES)
 	@Override
 	@Transactional(readOnly = true)
 	public Collection<PetType> findPetTypes() throws DataAccessException {
@@ -170,12 +298,19 @@ public class ClinicServiceImpl implements ClinicService {
 	}
 
     @CaptureSpan(value = "findOwnerById")
+	@Cacheable(value = CacheConfig.OWNERS, key = "#id", unless = "#result == null")
 	@Override
 	@Transactional(readOnly = true)
 	public Owner findOwnerById(int id) throws DataAccessException {
 		return ownerRepository.findById(id);
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Owner findOwnerByIdForUpdate(int id) throws DataAccessException {
+		return ownerRepository.findById(id);
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public Pet findPetById(int id) throws DataAccessException {
@@ -185,30 +320,36 @@ public class ClinicServiceImpl implements ClinicService {
 	@Override
 	@Transactional
 	public void savePet(Pet pet) throws DataAccessException {
+		ownersChanged(visitStatisticsService.petSaving(pet));
 		petRepository.save(pet);
-		
+		ownerSearchService.petChanged(pet);
 	}
 
 	@Override
 	@Transactional
 	public void saveVisit(Visit visit) throws DataAccessException {
+		ownersChanged(visitStatisticsService.visitsSaving(List.of(visit)));
 		visitRepository.save(visit);
-		
 	}
 
 	@Override
 	@Transactional(readOnly = true)
-    @Cacheable(value = "vets")
+	@Cacheable(CacheConfig.VETS)
 	public Collection<Vet> findVets() throws DataAccessException {
 		return vetRepository.findAll();
 	}
 
+	@Caching(evict = {
+		@CacheEvict(value = CacheConfig.OWNERS, key = "#owner.id", condition = "#owner.id != null", beforeInvocation = true),
+		@CacheEvict(value = CacheConfig.OWNERS, key = "#owner.id", condition = "#owner.id != null")})
 	@Override
     @CaptureSpan(value = "saveOwner")
     @Transactional
 	public void saveOwner(Owner owner) throws DataAccessException {
+		visitStatisticsService.ownerSaving(owner);
 		ownerRepository.save(owner);
-		
+		ownerSearchService.ownerChanged(owner.getId());
+		resourceVersions.changed(CacheConfig.OWNERS, owner.getId());
 	}
 
 	@Override
@@ -217,10 +358,28 @@ public class ClinicServiceImpl implements ClinicService {
 		return ownerRepository.findByLastName(lastName);
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<OwnerSummary> findOwnerSummariesByLastName(String lastName) throws DataAccessException {
+		return ownerRepository.findSummariesByLastName(lastName);
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public Collection<Visit> findVisitsByPetId(int petId) {
 		return visitRepository.findByPetId(petId);
 	}
 
+	/**
+	 * Evicts the given owners now and once more after commit, as the <code>@CacheEvict</code> pairs above do for a
+	 * single key, and moves their versions.
+	 */
+	private void ownersChanged(Set<Integer> ownerIds) {
+		for (Integer ownerId : ownerIds) {
+			owners.evictIfPresent(ownerId);
+			owners.evict(ownerId);
+			resourceVersions.changed(CacheConfig.OWNERS, ownerId);
+		}
+	}
+
 }
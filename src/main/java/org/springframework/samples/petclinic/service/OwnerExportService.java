@@ -0,0 +1,21 @@
+package org.springframework.samples.petclinic.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.dao.DataAccessException;
+
+/**
+ * Bulk export of the clinic graph for downstream consumers (e.g. the nightly Elasticsearch sync).
+ */
+public interface OwnerExportService {
+
+    /**
+     * Write every owner, with its pets and visits, as newline-delimited JSON (one owner per line) using the
+     * field layout of {@link org.springframework.samples.petclinic.rest.JacksonCustomOwnerSerializer}.
+     * Rows are streamed from the database so only the owner currently being written is held in memory.
+     *
+     * @return the number of owners written
+     */
+    long exportOwners(OutputStream out) throws IOException, DataAccessException;
+}
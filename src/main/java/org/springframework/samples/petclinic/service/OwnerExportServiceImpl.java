@@ -0,0 +1,174 @@
+package org.springframework.samples.petclinic.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.util.EntityIndex;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * JDBC cursor based implementation of {@link OwnerExportService}, independent of the active repository profile.
+ * <p>
+ * A single forward-only query returns owners joined with pets, types and visits ordered by owner, so each owner is
+ * assembled from consecutive rows, written through the registered Owner serializer and dropped before the next one.
+ * The fetch size is configurable with <code>petclinic.export.fetch-size</code> (MySQL Connector/J only streams rows
+ * with <code>Integer.MIN_VALUE</code>; PostgreSQL needs the read-only transaction opened here).
+ */
+@Service
+public class OwnerExportServiceImpl implements OwnerExportService {
+
+    private static final String OWNER_GRAPH_SELECT =
+        "SELECT owners.id AS owner_id, first_name, last_name, address, city, telephone, zip_code, state, " +
+        "pets.id AS pets_id, pets.name AS pet_name, birth_date, type_id, types.name AS type_name, " +
+        "visits.id AS visit_id, visit_date, description " +
+        "FROM owners " +
+        "LEFT JOIN pets ON pets.owner_id = owners.id " +
+        "LEFT JOIN types ON types.id = pets.type_id " +
+        "LEFT JOIN visits ON visits.pet_id = pets.id " +
+        "ORDER BY owners.id, pets.id, visits.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectWriter ownerWriter;
+
+    public OwnerExportServiceImpl(DataSource dataSource, ObjectMapper objectMapper,
+                                  @Value("${petclinic.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.ownerWriter = objectMapper.writerFor(Owner.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportOwners(OutputStream out) throws IOException, DataAccessException {
+        try (JsonGenerator jgen = this.ownerWriter.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            jgen.setRootValueSeparator(null);
+            OwnerGraphWriter graphWriter = new OwnerGraphWriter(jgen);
+            try {
+                this.jdbcTemplate.query(OWNER_GRAPH_SELECT, graphWriter);
+                graphWriter.finish();
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            return graphWriter.written;
+        }
+    }
+
+    /**
+     * Assembles one owner at a time from the ordered result set and writes it as soon as the owner id changes.
+     */
+    private class OwnerGraphWriter implements RowCallbackHandler {
+
+        private final JsonGenerator jgen;
+
+        private Owner owner;
+
+        private Pet pet;
+
+        private final EntityIndex<PetType> petTypes = new EntityIndex<>();
+
+        private long written;
+
+        OwnerGraphWriter(JsonGenerator jgen) {
+            this.jgen = jgen;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            int ownerId = rs.getInt("owner_id");
+            if (this.owner == null || this.owner.getId() != ownerId) {
+                finish();
+                this.owner = mapOwner(rs, ownerId);
+                this.pet = null;
+            }
+            int petId = rs.getInt("pets_id");
+            if (rs.wasNull()) {
+                return;
+            }
+            if (this.pet == null || this.pet.getId() != petId) {
+                this.pet = mapPet(rs, petId);
+                this.owner.addPet(this.pet);
+            }
+            int visitId = rs.getInt("visit_id");
+            if (!rs.wasNull()) {
+                this.pet.addVisit(mapVisit(rs, visitId));
+            }
+        }
+
+        void finish() {
+            if (this.owner == null) {
+                return;
+            }
+            try {
+                OwnerExportServiceImpl.this.ownerWriter.writeValue(this.jgen, this.owner);
+                this.jgen.writeRaw('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            this.written++;
+            this.owner = null;
+        }
+
+        private Owner mapOwner(ResultSet rs, int ownerId) throws SQLException {
+            Owner owner = new Owner();
+            owner.setId(ownerId);
+            owner.setFirstName(rs.getString("first_name"));
+            owner.setLastName(rs.getString("last_name"));
+            owner.setAddress(rs.getString("address"));
+            owner.setCity(rs.getString("city"));
+            owner.setTelephone(rs.getString("telephone"));
+            owner.setZipCode(rs.getString("zip_code"));
+            owner.setState(rs.getString("state"));
+            return owner;
+        }
+
+        private Pet mapPet(ResultSet rs, int petId) throws SQLException {
+            Pet pet = new Pet();
+            pet.setId(petId);
+            pet.setName(rs.getString("pet_name"));
+            Date birthDate = rs.getDate("birth_date");
+            pet.setBirthDate(birthDate == null ? null : new Date(birthDate.getTime()));
+            int typeId = rs.getInt("type_id");
+            PetType petType = this.petTypes.get(typeId);
+            if (petType == null) {
+                petType = new PetType();
+                petType.setId(typeId);
+                petType.setName(rs.getString("type_name"));
+                this.petTypes.put(petType);
+            }
+            pet.setType(petType);
+            return pet;
+        }
+
+        private Visit mapVisit(ResultSet rs, int visitId) throws SQLException {
+            Visit visit = new Visit();
+            visit.setId(visitId);
+            Date visitDate = rs.getDate("visit_date");
+            visit.setDate(visitDate == null ? null : new Date(visitDate.getTime()));
+            visit.setDescription(rs.getString("description"));
+            return visit;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.springframework.samples.petclinic.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of an {@link OwnerImportService#importOwners owner import}: counters plus the first {@link #MAX_ERRORS}
+ * errors, so that the result stays small for inputs of any size.
+ */
+public class OwnerImportResult {
+
+    public static final int MAX_ERRORS = 1000;
+
+    /**
+     * @param line    line of the input (from 1) on which the rejected owner starts
+     * @param message why it was rejected
+     */
+    public record Error(int line, String message) {
+    }
+
+    private final List<Error> errors = new ArrayList<>();
+
+    private int owners;
+
+    private int pets;
+
+    private int rejected;
+
+    void imported(int pets) {
+        this.owners++;
+        this.pets += pets;
+    }
+
+    void rejected(int line, String message) {
+        this.rejected++;
+        error(line, message);
+    }
+
+    /**
+     * Record an error that does not concern a single owner, e.g. a missing column.
+     */
+    void error(int line, String message) {
+        if (this.errors.size() < MAX_ERRORS) {
+            this.errors.add(new Error(line, message));
+        }
+    }
+
+    void merge(OwnerImportResult other) {
+        this.owners += other.owners;
+        this.pets += other.pets;
+        this.rejected += other.rejected;
+        for (Error error : other.errors) {
+            error(error.line(), error.message());
+        }
+    }
+
+    void sortErrors() {
+        this.errors.sort(Comparator.comparingInt(Error::line));
+    }
+
+    public int getOwners() {
+        return this.owners;
+    }
+
+    public int getPets() {
+        return this.pets;
+    }
+
+    public int getRejected() {
+        return this.rejected;
+    }
+
+    public List<Error> getErrors() {
+        return Collections.unmodifiableList(this.errors);
+    }
+}
@@ -0,0 +1,24 @@
+package org.springframework.samples.petclinic.service;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Bulk import of owners and their pets, e.g. when onboarding a clinic.
+ */
+public interface OwnerImportService {
+
+    /**
+     * Read owners from CSV with a header row naming the columns <code>first_name, last_name, address, city, state,
+     * zip_code, telephone</code> and, optionally, <code>pet_name, pet_birth_date</code> (<code>yyyy/MM/dd</code>) and
+     * <code>pet_type</code> (a pet type name), in any order; a pet needs all three. Each row holds at most one pet;
+     * consecutive rows with the same owner columns add pets to the same owner. Owners are validated as they are read
+     * and inserted in chunks, each in its own transaction, so only a bounded number of owners is held in memory
+     * whatever the size of the input.
+     * <p>
+     * An owner is imported with all its pets or not at all.
+     *
+     * @return counters and the reasons for rejected owners, by line number
+     */
+    OwnerImportResult importOwners(Reader in) throws IOException;
+}
@@ -0,0 +1,354 @@
+package org.springframework.samples.petclinic.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.samples.petclinic.config.CacheConfig;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.util.CsvReader;
+import org.springframework.samples.petclinic.util.DatabaseBulkheadAspect;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Chunked implementation of {@link OwnerImportService} on top of {@link OwnerRepository#insertAll}.
+ * <p>
+ * The request thread parses and validates owners (addresses through the {@link Owner} constraints, among which the
+ * <code>ZipCodeValidator</code>) while a writer thread inserts the previous chunks of
+ * <code>petclinic.owners.import.chunk-size</code> owners. At most <code>petclinic.owners.import.in-flight-chunks</code>
+ * chunks are handed to the writer at a time; parsing waits for the oldest one when the window is full. When a chunk
+ * fails, its owners are inserted again one by one so that only the offending ones are rejected. Owners are added to
+ * the {@link OwnerSearchService} index as soon as their chunk has committed. With the {@link DatabaseBulkheadAspect}
+ * enabled, the writer takes a permit before each transaction begins, as a transactional service method would.
+ */
+@Service
+public class OwnerImportServiceImpl implements OwnerImportService {
+
+    private static final List<String> OWNER_COLUMNS =
+        List.of("first_name", "last_name", "address", "city", "state", "zip_code", "telephone");
+
+    private static final List<String> PET_COLUMNS = List.of("pet_name", "pet_birth_date", "pet_type");
+
+    private static final DateTimeFormatter BIRTH_DATE = DateTimeFormatter.ofPattern("yyyy/M/d");
+
+    private final OwnerRepository ownerRepository;
+
+    private final PetTypeRepository petTypeRepository;
+
+    private final OwnerSearchService ownerSearchService;
+
+    private final TransactionOperations transactions;
+
+    private final Validator validator;
+
+    private final int chunkSize;
+
+    private final int inFlightChunks;
+
+    public OwnerImportServiceImpl(OwnerRepository ownerRepository, PetTypeRepository petTypeRepository,
+                                  OwnerSearchService ownerSearchService, PlatformTransactionManager transactionManager,
+                                  ObjectProvider<DatabaseBulkheadAspect> bulkhead, Validator validator,
+                                  @Value("${petclinic.owners.import.chunk-size:500}") int chunkSize,
+                                  @Value("${petclinic.owners.import.in-flight-chunks:2}") int inFlightChunks) {
+        this.ownerRepository = ownerRepository;
+        this.petTypeRepository = petTypeRepository;
+        this.ownerSearchService = ownerSearchService;
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        DatabaseBulkheadAspect databaseBulkhead = bulkhead.getIfAvailable();
+        this.transactions = databaseBulkhead != null ? databaseBulkhead.guard(transactionTemplate) : transactionTemplate;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.inFlightChunks = inFlightChunks;
+    }
+
+    @Override
+    @CacheEvict(value = CacheConfig.OWNERS, allEntries = true)
+    public OwnerImportResult importOwners(Reader in) throws IOException {
+        OwnerImportResult result = new OwnerImportResult();
+        try (CsvReader csv = new CsvReader(in); ChunkWriter writer = new ChunkWriter(result)) {
+            List<String> header = csv.next();
+            if (header == null) {
+                return result;
+            }
+            Columns columns = Columns.of(header);
+            if (columns.missing != null) {
+                result.error(csv.getLineNumber(), columns.missing);
+                return result;
+            }
+            Map<String, PetType> petTypes = petTypesByName();
+            List<PendingOwner> chunk = new ArrayList<>(this.chunkSize);
+            PendingOwner owner = null;
+            for (List<String> row = csv.next(); row != null; row = csv.next()) {
+                if (owner == null || !owner.isSameOwner(columns, row)) {
+                    if (owner != null && accept(owner, result)) {
+                        chunk.add(owner);
+                        if (chunk.size() == this.chunkSize) {
+                            writer.submit(chunk);
+                            chunk = new ArrayList<>(this.chunkSize);
+                        }
+                    }
+                    owner = new PendingOwner(csv.getLineNumber(), columns, row);
+                }
+                owner.addPet(columns, row, petTypes);
+            }
+            if (owner != null && accept(owner, result)) {
+                chunk.add(owner);
+            }
+            if (!chunk.isEmpty()) {
+                writer.submit(chunk);
+            }
+            writer.finish();
+        }
+        result.sortErrors();
+        return result;
+    }
+
+    private Map<String, PetType> petTypesByName() {
+        Map<String, PetType> petTypes = new HashMap<>();
+        for (PetType petType : this.petTypeRepository.findAll()) {
+            petTypes.put(petType.getName().toLowerCase(Locale.ROOT), petType);
+        }
+        return petTypes;
+    }
+
+    private boolean accept(PendingOwner owner, OwnerImportResult result) {
+        String error = owner.error != null ? owner.error : validate(owner.owner);
+        for (Pet pet : owner.owner.getPets()) {
+            if (error == null) {
+                error = validate(pet);
+            }
+        }
+        if (error != null) {
+            result.rejected(owner.line, error);
+            return false;
+        }
+        return true;
+    }
+
+    private String validate(Object entity) {
+        Set<ConstraintViolation<Object>> violations = this.validator.validate(entity);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        String prefix = entity instanceof Pet ? "pet." : "";
+        return violations.stream()
+            .map(violation -> prefix + violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; "));
+    }
+
+    private OwnerImportResult write(List<PendingOwner> chunk) {
+        OwnerImportResult result = new OwnerImportResult();
+        try {
+            this.transactions.executeWithoutResult(status ->
+                this.ownerRepository.insertAll(chunk.stream().map(pending -> pending.owner).toList()));
+            this.ownerSearchService.index(chunk.stream().map(pending -> pending.owner).toList());
+            for (PendingOwner pending : chunk) {
+                result.imported(pending.pets);
+            }
+        } catch (DataAccessException | TransactionException ex) {
+            for (PendingOwner pending : chunk) {
+                writeOne(pending, result);
+            }
+        }
+        return result;
+    }
+
+    private void writeOne(PendingOwner pending, OwnerImportResult result) {
+        try {
+            pending.resetIds();
+            this.transactions.executeWithoutResult(status ->
+                this.ownerRepository.insertAll(Collections.singletonList(pending.owner)));
+            this.ownerSearchService.index(Collections.singletonList(pending.owner));
+            result.imported(pending.pets);
+        } catch (DataAccessException | TransactionException ex) {
+            pending.resetIds();
+            result.rejected(pending.line, NestedExceptionUtils.getMostSpecificCause(ex).getMessage());
+        }
+    }
+
+    /**
+     * Positions of the known columns in the header row.
+     */
+    private record Columns(int[] owner, int[] pet, String missing) {
+
+        static Columns of(List<String> header) {
+            List<String> names = header.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+            int[] owner = OWNER_COLUMNS.stream().mapToInt(names::indexOf).toArray();
+            int[] pet = PET_COLUMNS.stream().mapToInt(names::indexOf).toArray();
+            List<String> missing = new ArrayList<>();
+            for (int i = 0; i < owner.length; i++) {
+                if (owner[i] < 0) {
+                    missing.add(OWNER_COLUMNS.get(i));
+                }
+            }
+            if (pet[0] >= 0 != pet[2] >= 0) {
+                missing.add(pet[0] < 0 ? "pet_name" : "pet_type");
+            }
+            return new Columns(owner, pet, missing.isEmpty() ? null : "Missing column(s): " + String.join(", ", missing));
+        }
+
+        String[] ownerValues(List<String> row) {
+            return Arrays.stream(this.owner).mapToObj(i -> value(row, i)).toArray(String[]::new);
+        }
+
+        static String value(List<String> row, int column) {
+            return column >= 0 && column < row.size() ? row.get(column).trim() : "";
+        }
+    }
+
+    /**
+     * An owner assembled from one or more consecutive rows, with the line it starts on and the first parse error.
+     */
+    private static class PendingOwner {
+
+        private final int line;
+
+        private final String[] values;
+
+        private final Owner owner = new Owner();
+
+        private int pets;
+
+        private String error;
+
+        PendingOwner(int line, Columns columns, List<String> row) {
+            this.line = line;
+            this.values = columns.ownerValues(row);
+            this.owner.setFirstName(this.values[0]);
+            this.owner.setLastName(this.values[1]);
+            this.owner.setAddress(this.values[2]);
+            this.owner.setCity(this.values[3]);
+            this.owner.setState(this.values[4]);
+            this.owner.setZipCode(this.values[5]);
+            this.owner.setTelephone(this.values[6]);
+        }
+
+        boolean isSameOwner(Columns columns, List<String> row) {
+            for (int i = 0; i < this.values.length; i++) {
+                if (!this.values[i].equals(Columns.value(row, columns.owner[i]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void addPet(Columns columns, List<String> row, Map<String, PetType> petTypes) {
+            String name = Columns.value(row, columns.pet[0]);
+            String birthDate = Columns.value(row, columns.pet[1]);
+            String type = Columns.value(row, columns.pet[2]);
+            if (name.isEmpty() && birthDate.isEmpty() && type.isEmpty()) {
+                return;
+            }
+            Pet pet = new Pet();
+            pet.setName(name);
+            pet.setType(petTypes.get(type.toLowerCase(Locale.ROOT)));
+            if (pet.getType() == null && this.error == null) {
+                this.error = "pet.type: unknown pet type \"" + type + "\"";
+            }
+            try {
+                LocalDate date = LocalDate.parse(birthDate, BIRTH_DATE);
+                pet.setBirthDate(Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+            } catch (DateTimeParseException ex) {
+                if (this.error == null) {
+                    this.error = "pet.birthDate: cannot parse \"" + birthDate + "\": expected yyyy/MM/dd";
+                }
+            }
+            this.owner.addPet(pet);
+            this.pets++;
+        }
+
+        /**
+         * Forget the ids of a rolled back insert before trying again.
+         */
+        void resetIds() {
+            this.owner.setId(null);
+            for (Pet pet : this.owner.getPets()) {
+                pet.setId(null);
+            }
+        }
+    }
+
+    /**
+     * Inserts chunks on a dedicated thread, with at most {@link #inFlightChunks} submitted and not yet collected.
+     */
+    private class ChunkWriter implements AutoCloseable {
+
+        private final OwnerImportResult result;
+
+        private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        private final Deque<Future<OwnerImportResult>> inFlight = new ArrayDeque<>();
+
+        ChunkWriter(OwnerImportResult result) {
+            this.result = result;
+        }
+
+        void submit(List<PendingOwner> chunk) {
+            if (this.inFlight.size() >= inFlightChunks) {
+                collect(this.inFlight.removeFirst());
+            }
+            this.inFlight.addLast(this.executor.submit(() -> write(chunk)));
+        }
+
+        void finish() {
+            while (!this.inFlight.isEmpty()) {
+                collect(this.inFlight.removeFirst());
+            }
+        }
+
+        private void collect(Future<OwnerImportResult> future) {
+            try {
+                this.result.merge(future.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Owner import interrupted", ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException("Owner import failed", ex.getCause());
+            }
+        }
+
+        @Override
+        public void close() {
+            this.executor.shutdownNow();
+        }
+    }
+}
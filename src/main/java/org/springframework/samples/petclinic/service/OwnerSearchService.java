@@ -0,0 +1,64 @@
+package org.springframework.samples.petclinic.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.Pet;
+
+/**
+ * Full-text search over owners: names, address, city, state, telephone and the names of their pets, served from an
+ * embedded index that the write paths keep up to date.
+ * <p>
+ * The <code>...Changed</code> methods only name what was written. Called within a transaction, the affected owners
+ * are queued for reindexing once it has committed (and not at all if it rolls back); called outside one, right away.
+ * The index is written in the background: a change shows up in searches shortly after the write that made it.
+ */
+public interface OwnerSearchService {
+
+    /**
+     * Find the owners matching every word of the given text, best matches first. A word matches a word of the owner
+     * exactly, as a prefix (e.g. <code>fra</code> for <code>Franklin</code>, <code>608555</code> for a telephone) or
+     * with a typo (e.g. <code>Franklim</code>). Case and accents are ignored.
+     *
+     * @param query text typed by the user
+     * @param limit the maximum number of owners to return
+     * @return at most <code>limit</code> summaries (or an empty <code>List</code> if none found)
+     */
+    List<OwnerSummary> search(String query, int limit);
+
+    /**
+     * The given owner was saved or deleted.
+     */
+    void ownerChanged(int ownerId);
+
+    /**
+     * The given pet was saved, moved to another owner or deleted: its current owner and the owner it is indexed with,
+     * if any, are reindexed.
+     */
+    void petChanged(Pet pet);
+
+    /**
+     * Pets of the given type were deleted with it: the owners indexed with such pets are reindexed.
+     */
+    void petTypeDeleted(int petTypeId);
+
+    /**
+     * Queue the given owners, with their pets as they are, for indexing. Meant for owners just committed by a bulk
+     * write.
+     */
+    void index(Collection<Owner> owners);
+
+    /**
+     * Drop the index and index every owner again, reading them page by page, once the writes queued so far are done.
+     *
+     * @return the number of owners indexed
+     */
+    long rebuild();
+
+    /**
+     * Wait until the writes queued so far (and the rebuild at startup, if any) are visible to searches.
+     */
+    void awaitIndexing();
+}
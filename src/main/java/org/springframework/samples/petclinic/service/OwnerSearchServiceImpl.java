@@ -0,0 +1,556 @@
+package org.springframework.samples.petclinic.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * Lucene implementation of {@link OwnerSearchService}: one document per owner, in the directory
+ * <code>petclinic.search.index-dir</code> (in memory when empty).
+ * <p>
+ * Every word of the owner and the names of its pets go to a single analyzed field (lower-cased, accents folded), and
+ * their beginnings to a second one, so that a prefix is looked up as a single term instead of expanding to every word
+ * it starts. The summary returned for a hit is kept in a doc value, so a search never reaches the database and reads
+ * a few bytes per hit rather than a block of stored fields. Changes become visible to searches once indexed
+ * (near-real-time readers) and are committed to disk every <code>petclinic.search.commit-interval</code>. Once the
+ * application is ready, the index is rebuilt in the background if it does not hold as many owners as the database,
+ * e.g. on first start, after a crash or after a bulk load that bypassed the service layer.
+ * <p>
+ * Every write to the index runs on a single <code>owner-search-index</code> thread, in submission order: the writers
+ * only queue the owners to reindex once their transaction has completed, so they never wait for the index (nor for a
+ * rebuild) while holding a connection, and never need a second one to read the owners back. Owners are reindexed
+ * from a fresh read, so a change committed during a rebuild cannot be overwritten by the older copy the rebuild read.
+ */
+@Service
+public class OwnerSearchServiceImpl implements OwnerSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OwnerSearchServiceImpl.class);
+
+    private static final String ID = "id";
+
+    private static final String TEXT = "text";
+
+    private static final String PREFIX = "prefix";
+
+    private static final String PET_ID = "petId";
+
+    private static final String PET_TYPE_ID = "petTypeId";
+
+    private static final String SUMMARY = "summary";
+
+    /** Words of a query beyond this number are ignored. */
+    private static final int MAX_WORDS = 8;
+
+    /** Longest prefix indexed in {@link #PREFIX}; longer ones are expanded on {@link #TEXT}, to few words. */
+    private static final int MAX_PREFIX_LENGTH = 8;
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private static final Analyzer ANALYZER = new Analyzer() {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            TokenStream filtered = new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer));
+            return new TokenStreamComponents(tokenizer, filtered);
+        }
+    };
+
+    private static final Analyzer PREFIX_ANALYZER = new Analyzer() {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            TokenStream filtered = new EdgeNGramTokenFilter(new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer)),
+                2, MAX_PREFIX_LENGTH, false);
+            return new TokenStreamComponents(tokenizer, filtered);
+        }
+    };
+
+    private final OwnerRepository ownerRepository;
+
+    private final TransactionTemplate readTransaction;
+
+    private final Directory directory;
+
+    private final IndexWriter writer;
+
+    private final SearcherManager searcherManager;
+
+    private final ScheduledExecutorService indexer;
+
+    public OwnerSearchServiceImpl(OwnerRepository ownerRepository, PlatformTransactionManager transactionManager,
+                                  @Value("${petclinic.search.index-dir:}") String indexDir,
+                                  @Value("${petclinic.search.commit-interval:5s}") Duration commitInterval) {
+        this.ownerRepository = ownerRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+        try {
+            this.directory = StringUtils.hasText(indexDir) ? FSDirectory.open(Path.of(indexDir)) : new ByteBuffersDirectory();
+            this.writer = new IndexWriter(this.directory, new IndexWriterConfig(
+                new PerFieldAnalyzerWrapper(ANALYZER, Map.of(PREFIX, PREFIX_ANALYZER))));
+            this.searcherManager = new SearcherManager(this.writer, null);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot open the owner search index in '" + indexDir + "'", ex);
+        }
+        this.indexer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "owner-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = commitInterval.toMillis();
+        this.indexer.scheduleWithFixedDelay(this::commit, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<OwnerSummary> search(String query, int limit) {
+        List<String> words = analyze(query);
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        BooleanQuery.Builder all = new BooleanQuery.Builder();
+        for (String word : words.subList(0, Math.min(words.size(), MAX_WORDS))) {
+            all.add(wordQuery(word), BooleanClause.Occur.MUST);
+        }
+        try {
+            IndexSearcher searcher = this.searcherManager.acquire();
+            try {
+                return summaries(searcher, searcher.search(all.build(), limit).scoreDocs);
+            } finally {
+                this.searcherManager.release(searcher);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void ownerChanged(int ownerId) {
+        changed(Set.of(ownerId));
+    }
+
+    @Override
+    public void petChanged(Pet pet) {
+        Set<Integer> ownerIds = new LinkedHashSet<>();
+        if (pet.getOwner() != null && pet.getOwner().getId() != null) {
+            ownerIds.add(pet.getOwner().getId());
+        }
+        if (pet.getId() != null) {
+            ownerIds.addAll(indexedOwners(new Term(PET_ID, pet.getId().toString())));
+        }
+        changed(ownerIds);
+    }
+
+    @Override
+    public void petTypeDeleted(int petTypeId) {
+        changed(indexedOwners(new Term(PET_TYPE_ID, Integer.toString(petTypeId))));
+    }
+
+    @Override
+    public void index(Collection<Owner> owners) {
+        List<Owner> copy = List.copyOf(owners);
+        this.indexer.execute(() -> {
+            try {
+                write(copy);
+            } catch (IOException | UncheckedIOException ex) {
+                logger.warn("Could not index {} owners", copy.size(), ex);
+            }
+        });
+    }
+
+    @Override
+    public long rebuild() {
+        return await(this.indexer.submit(this::rebuildIndex));
+    }
+
+    @Override
+    public void awaitIndexing() {
+        await(this.indexer.submit(() -> null));
+    }
+
+    /**
+     * Runs on the indexer thread, as the other writes to the index.
+     */
+    private long rebuildIndex() {
+        long start = System.nanoTime();
+        long indexed = 0;
+        try {
+            this.writer.deleteAll();
+            int afterId = 0;
+            Collection<Owner> page;
+            do {
+                int from = afterId;
+                page = this.readTransaction.execute(status -> this.ownerRepository.findAllAfter(from, REBUILD_PAGE_SIZE));
+                for (Owner owner : page) {
+                    this.writer.addDocument(document(owner));
+                    afterId = owner.getId();
+                }
+                indexed += page.size();
+            } while (page.size() == REBUILD_PAGE_SIZE);
+            // a single segment, so that each word and prefix is looked up in one term dictionary
+            this.writer.forceMerge(1);
+            this.writer.commit();
+            this.searcherManager.maybeRefreshBlocking();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        logger.info("Indexed {} owners for search in {} ms", indexed, (System.nanoTime() - start) / 1_000_000);
+        return indexed;
+    }
+
+    /**
+     * Queued on the indexer thread: the application serves requests meanwhile, and searches see the index as it was
+     * left by the previous run until the rebuild is done.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfStale() {
+        this.indexer.execute(() -> {
+            try {
+                long owners = this.readTransaction.execute(status -> this.ownerRepository.count());
+                if (this.writer.getDocStats().numDocs != owners) {
+                    rebuildIndex();
+                }
+            } catch (UncheckedIOException | DataAccessException ex) {
+                logger.warn("Could not rebuild the search index", ex);
+            }
+        });
+    }
+
+    /**
+     * Lets the queued writes to the index run before closing it.
+     */
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        this.indexer.shutdown();
+        this.indexer.awaitTermination(10, TimeUnit.SECONDS);
+        this.searcherManager.close();
+        this.writer.close();
+        this.directory.close();
+    }
+
+    /**
+     * Queue the given owners for reindexing after the current transaction commits, or now if there is none.
+     */
+    private void changed(Set<Integer> ownerIds) {
+        if (ownerIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.indexer.execute(() -> reindex(ownerIds));
+            return;
+        }
+        PendingOwners pending = (PendingOwners) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingOwners();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.ownerIds.addAll(ownerIds);
+    }
+
+    /**
+     * Index the given owners as they are in the database, dropping those that no longer exist; runs on the indexer
+     * thread. Failures are logged rather than thrown: the write they follow has committed, and the next rebuild
+     * catches up.
+     */
+    private void reindex(Collection<Integer> ownerIds) {
+        try {
+            List<Owner> owners = new ArrayList<>(ownerIds.size());
+            List<Integer> deleted = new ArrayList<>();
+            this.readTransaction.executeWithoutResult(status -> {
+                for (Integer ownerId : ownerIds) {
+                    Owner owner = find(ownerId);
+                    if (owner == null) {
+                        deleted.add(ownerId);
+                    } else {
+                        owners.add(owner);
+                    }
+                }
+            });
+            for (Integer ownerId : deleted) {
+                this.writer.deleteDocuments(new Term(ID, ownerId.toString()));
+            }
+            write(owners);
+        } catch (IOException | UncheckedIOException | DataAccessException ex) {
+            logger.warn("Could not update the search index for owners {}", ownerIds, ex);
+        }
+    }
+
+    private void write(Collection<Owner> owners) throws IOException {
+        for (Owner owner : owners) {
+            this.writer.updateDocument(new Term(ID, owner.getId().toString()), document(owner));
+        }
+        this.searcherManager.maybeRefreshBlocking();
+    }
+
+    private static <T> T await(Future<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the search index", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private Owner find(int ownerId) {
+        try {
+            return this.ownerRepository.findById(ownerId);
+        } catch (DataRetrievalFailureException ex) {
+            return null;
+        }
+    }
+
+    private Set<Integer> indexedOwners(Term term) {
+        try {
+            IndexSearcher searcher = this.searcherManager.acquire();
+            try {
+                Set<Integer> ownerIds = new LinkedHashSet<>();
+                Query query = new TermQuery(term);
+                for (OwnerSummary owner : summaries(searcher,
+                    searcher.search(query, Math.max(1, searcher.getIndexReader().maxDoc())).scoreDocs)) {
+                    ownerIds.add(owner.id());
+                }
+                return ownerIds;
+            } finally {
+                this.searcherManager.release(searcher);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void commit() {
+        try {
+            if (this.writer.hasUncommittedChanges()) {
+                this.writer.commit();
+            }
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Could not commit the search index", ex);
+        }
+    }
+
+    /**
+     * A word matches exactly, as a prefix from two characters on, or, from four letters on, with one typo other than
+     * in the first letter; exact matches rank first. Numbers are not matched with typos.
+     */
+    private static Query wordQuery(String word) {
+        Term term = new Term(TEXT, word);
+        BooleanQuery.Builder any = new BooleanQuery.Builder()
+            .add(new BoostQuery(new TermQuery(term), 3), BooleanClause.Occur.SHOULD);
+        if (word.length() >= 2) {
+            Query prefix = word.length() <= MAX_PREFIX_LENGTH ? new TermQuery(new Term(PREFIX, word)) : new PrefixQuery(term);
+            any.add(new BoostQuery(prefix, 2), BooleanClause.Occur.SHOULD);
+        }
+        if (word.length() >= 4 && !word.chars().allMatch(Character::isDigit)) {
+            any.add(new FuzzyQuery(term, 1, 1), BooleanClause.Occur.SHOULD);
+        }
+        return any.build();
+    }
+
+    private static List<String> analyze(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        try (TokenStream stream = ANALYZER.tokenStream(TEXT, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                words.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return words;
+    }
+
+    private static Document document(Owner owner) {
+        Document document = new Document();
+        document.add(new StringField(ID, owner.getId().toString(), Field.Store.NO));
+        StringBuilder text = new StringBuilder();
+        for (String value : new String[] {owner.getFirstName(), owner.getLastName(), owner.getAddress(),
+            owner.getCity(), owner.getState(), owner.getTelephone()}) {
+            if (value != null) {
+                text.append(value).append(' ');
+            }
+        }
+        List<String> pets = new ArrayList<>();
+        for (Pet pet : owner.getPets()) {
+            if (pet.getName() != null) {
+                pets.add(pet.getName());
+                text.append(pet.getName()).append(' ');
+            }
+            if (pet.getId() != null) {
+                document.add(new StringField(PET_ID, pet.getId().toString(), Field.Store.NO));
+            }
+            if (pet.getType() != null && pet.getType().getId() != null) {
+                document.add(new StringField(PET_TYPE_ID, pet.getType().getId().toString(), Field.Store.NO));
+            }
+        }
+        document.add(new TextField(TEXT, text.toString(), Field.Store.NO));
+        document.add(new TextField(PREFIX, text.toString(), Field.Store.NO));
+        document.add(new BinaryDocValuesField(SUMMARY, encode(new OwnerSummary(owner.getId(), owner.getFirstName(),
+            owner.getLastName(), owner.getAddress(), owner.getCity(), owner.getTelephone(), pets))));
+        return document;
+    }
+
+    /**
+     * Read the summaries of the given hits, in the same order. Doc values are read forward only, segment by segment,
+     * hence the detour through the hits sorted by document.
+     */
+    private static List<OwnerSummary> summaries(IndexSearcher searcher, ScoreDoc[] hits) throws IOException {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        OwnerSummary[] summaries = new OwnerSummary[hits.length];
+        Integer[] byDoc = new Integer[hits.length];
+        Arrays.setAll(byDoc, i -> i);
+        Arrays.sort(byDoc, Comparator.comparingInt(i -> hits[i].doc));
+        int leaf = -1;
+        BinaryDocValues values = null;
+        for (int i : byDoc) {
+            int doc = hits[i].doc;
+            int docLeaf = ReaderUtil.subIndex(doc, leaves);
+            if (docLeaf != leaf) {
+                leaf = docLeaf;
+                values = DocValues.getBinary(leaves.get(leaf).reader(), SUMMARY);
+            }
+            if (!values.advanceExact(doc - leaves.get(leaf).docBase)) {
+                throw new IllegalStateException("No summary for owner document " + doc);
+            }
+            summaries[i] = decode(values.binaryValue());
+        }
+        return Arrays.asList(summaries);
+    }
+
+    private static BytesRef encode(OwnerSummary owner) {
+        ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+        try {
+            out.writeVInt(owner.id());
+            for (String value : new String[] {owner.firstName(), owner.lastName(), owner.address(), owner.city(),
+                owner.telephone()}) {
+                out.writeByte((byte) (value == null ? 0 : 1));
+                if (value != null) {
+                    out.writeString(value);
+                }
+            }
+            out.writeVInt(owner.pets().size());
+            for (String pet : owner.pets()) {
+                out.writeString(pet);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return new BytesRef(out.toArrayCopy());
+    }
+
+    private static OwnerSummary decode(BytesRef bytes) {
+        ByteArrayDataInput in = new ByteArrayDataInput(bytes.bytes, bytes.offset, bytes.length);
+        try {
+            int id = in.readVInt();
+            String[] values = new String[5];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readByte() == 0 ? null : in.readString();
+            }
+            String[] pets = new String[in.readVInt()];
+            for (int i = 0; i < pets.length; i++) {
+                pets[i] = in.readString();
+            }
+            return new OwnerSummary(id, values[0], values[1], values[2], values[3], values[4], List.of(pets));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Owners written by the current transaction, queued for reindexing once it has committed: the writer's connection
+     * is only released after this callback, so it must not wait for the index nor read the owners itself.
+     */
+    private final class PendingOwners implements TransactionSynchronization {
+
+        private final Set<Integer> ownerIds = new LinkedHashSet<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(OwnerSearchServiceImpl.this);
+            if (status == STATUS_COMMITTED) {
+                indexer.execute(() -> reindex(this.ownerIds));
+            }
+        }
+    }
+}
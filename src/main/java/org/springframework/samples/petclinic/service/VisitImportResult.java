@@ -0,0 +1,64 @@
+package org.springframework.samples.petclinic.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of a {@link VisitImportService#importVisits bulk visit import}: counters plus one entry per input item.
+ */
+public class VisitImportResult {
+
+    /**
+     * {@link #NOT_FOUND} is an update of a visit that does not exist; it is counted as failed.
+     */
+    public enum Status {
+        CREATED, UPDATED, INVALID, NOT_FOUND, FAILED
+    }
+
+    /**
+     * @param index position of the item in the input, from 0
+     * @param id    id of the saved visit, <code>null</code> unless it was created or updated
+     * @param error why the item was not saved, <code>null</code> if it was
+     */
+    public record Item(int index, Status status, Integer id, String error) {
+    }
+
+    private final List<Item> items = new ArrayList<>();
+
+    private int created;
+
+    private int updated;
+
+    private int failed;
+
+    void add(Item item) {
+        this.items.add(item);
+        switch (item.status()) {
+            case CREATED -> this.created++;
+            case UPDATED -> this.updated++;
+            default -> this.failed++;
+        }
+    }
+
+    void sortItems() {
+        this.items.sort(Comparator.comparingInt(Item::index));
+    }
+
+    public int getCreated() {
+        return this.created;
+    }
+
+    public int getUpdated() {
+        return this.updated;
+    }
+
+    public int getFailed() {
+        return this.failed;
+    }
+
+    public List<Item> getItems() {
+        return Collections.unmodifiableList(this.items);
+    }
+}
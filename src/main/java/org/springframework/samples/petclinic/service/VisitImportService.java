@@ -0,0 +1,23 @@
+package org.springframework.samples.petclinic.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Bulk import of visits uploaded by partner clinics.
+ */
+public interface VisitImportService {
+
+    /**
+     * Read visits from a JSON array or newline-delimited JSON (one visit per line) in the field layout of
+     * {@link org.springframework.samples.petclinic.rest.JacksonCustomVisitDeserializer} and save them: visits without
+     * an id are created, the others updated. Visits are validated and saved in chunks as they are read, each chunk in
+     * its own transaction, so a failing item neither rolls back nor blocks the others
+     * (unless the caller already runs in a transaction, which the chunks then join).
+     * <p>
+     * Reading stops at the first item that is not well-formed JSON; the items before it stay saved.
+     *
+     * @return the outcome of every item, in input order
+     */
+    VisitImportResult importVisits(InputStream in) throws IOException;
+}
@@ -0,0 +1,245 @@
+package org.springframework.samples.petclinic.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.config.CacheConfig;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.service.VisitImportResult.Item;
+import org.springframework.samples.petclinic.service.VisitImportResult.Status;
+import org.springframework.samples.petclinic.util.ResourceVersions;
+import org.springframework.samples.petclinic.util.DatabaseBulkheadAspect;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Chunked implementation of {@link VisitImportService} on top of {@link VisitRepository#saveAll}.
+ * <p>
+ * Visits are read one at a time through the registered Visit deserializer (a pet repeated across visits is parsed
+ * once, see <code>JacksonCustomReferences</code>), validated, and saved <code>petclinic.visits.bulk.chunk-size</code>
+ * at a time. When a chunk fails, e.g. because one visit references a missing pet, its visits are saved again one by one
+ * so that only the offending ones are reported as failed, or as not found when they update a visit that does not
+ * exist. Each transaction tells the {@link VisitStatisticsService} about its visits before saving them, and takes a
+ * {@link DatabaseBulkheadAspect} permit before it begins when the bulkhead is enabled.
+ * <p>
+ * The owners of the visits' pets, as reported by the {@link VisitStatisticsService}, are evicted from the owners cache
+ * chunk by chunk, before and once more after each chunk is saved (as ClinicServiceImpl evicts before and after its
+ * writes), so that the chunks saved before an import fails halfway, e.g. on a broken request stream, do not leave
+ * stale owners behind. Only then their {@link ResourceVersions versions} move: an ETag computed in between is computed
+ * at the old version, from a fresh read, and a GET served from the cache before the eviction is tagged with the old
+ * version too.
+ */
+@Service
+public class VisitImportServiceImpl implements VisitImportService {
+
+    private final VisitRepository visitRepository;
+
+    private final VisitStatisticsService visitStatisticsService;
+
+    private final ResourceVersions resourceVersions;
+
+    private final Cache owners;
+
+    private final TransactionOperations transactions;
+
+    private final ObjectReader visitReader;
+
+    private final Validator validator;
+
+    private final int chunkSize;
+
+    public VisitImportServiceImpl(VisitRepository visitRepository, VisitStatisticsService visitStatisticsService,
+                                  ResourceVersions resourceVersions, CacheManager cacheManager,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectProvider<DatabaseBulkheadAspect> bulkhead,
+                                  ObjectMapper objectMapper, Validator validator,
+                                  @Value("${petclinic.visits.bulk.chunk-size:1000}") int chunkSize) {
+        this.visitRepository = visitRepository;
+        this.visitStatisticsService = visitStatisticsService;
+        this.resourceVersions = resourceVersions;
+        this.owners = cacheManager.getCache(CacheConfig.OWNERS);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        DatabaseBulkheadAspect databaseBulkhead = bulkhead.getIfAvailable();
+        this.transactions = databaseBulkhead != null ? databaseBulkhead.guard(transactionTemplate) : transactionTemplate;
+        this.visitReader = objectMapper.readerFor(Visit.class);
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public VisitImportResult importVisits(InputStream in) throws IOException {
+        VisitImportResult result = new VisitImportResult();
+        Chunk chunk = new Chunk(this.chunkSize);
+        int index = 0;
+        try (MappingIterator<Visit> visits = this.visitReader.readValues(in)) {
+            while (true) {
+                Visit visit;
+                try {
+                    if (!visits.hasNextValue()) {
+                        break;
+                    }
+                    visit = visits.nextValue();
+                } catch (JsonParseException ex) {
+                    result.add(new Item(index, Status.FAILED, null, ex.getOriginalMessage()));
+                    break;
+                } catch (JsonMappingException ex) {
+                    // the iterator skips the rest of this item before reading the next one
+                    result.add(new Item(index++, Status.INVALID, null, ex.getOriginalMessage()));
+                    continue;
+                }
+                String error = validate(visit);
+                if (error != null) {
+                    result.add(new Item(index++, Status.INVALID, null, error));
+                    continue;
+                }
+                chunk.add(index++, visit);
+                if (chunk.isFull()) {
+                    save(chunk, result);
+                }
+            }
+        }
+        save(chunk, result);
+        result.sortItems();
+        return result;
+    }
+
+    private String validate(Visit visit) {
+        if (visit.getPet() == null || visit.getPet().getId() == null) {
+            return "pet: must reference an existing pet by id";
+        }
+        Set<ConstraintViolation<Visit>> violations = this.validator.validate(visit);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; "));
+    }
+
+    private void save(Chunk chunk, VisitImportResult result) {
+        if (chunk.visits.isEmpty()) {
+            return;
+        }
+        try {
+            this.transactions.executeWithoutResult(status -> {
+                ownersChanging(chunk, this.visitStatisticsService.visitsSaving(chunk.visits));
+                this.visitRepository.saveAll(chunk.visits);
+            });
+            for (int i = 0; i < chunk.visits.size(); i++) {
+                result.add(saved(chunk, i));
+            }
+        } catch (DataAccessException | TransactionException ex) {
+            for (int i = 0; i < chunk.visits.size(); i++) {
+                result.add(saveOne(chunk, i));
+            }
+        }
+        for (Integer ownerId : chunk.ownerIds) {
+            this.owners.evictIfPresent(ownerId);
+            this.resourceVersions.changed(CacheConfig.OWNERS, ownerId);
+        }
+        chunk.clear();
+    }
+
+    private void ownersChanging(Chunk chunk, Set<Integer> ownerIds) {
+        for (Integer ownerId : ownerIds) {
+            this.owners.evictIfPresent(ownerId);
+        }
+        chunk.ownerIds.addAll(ownerIds);
+    }
+
+    private Item saveOne(Chunk chunk, int i) {
+        Visit visit = chunk.visits.get(i);
+        try {
+            chunk.resetId(i);
+            this.transactions.executeWithoutResult(status -> {
+                ownersChanging(chunk, this.visitStatisticsService.visitsSaving(List.of(visit)));
+                this.visitRepository.saveAll(List.of(visit));
+            });
+            return saved(chunk, i);
+        } catch (ObjectRetrievalFailureException ex) {
+            return new Item(chunk.indexes.get(i), Status.NOT_FOUND, null, "id: no visit " + visit.getId());
+        } catch (DataAccessException | TransactionException ex) {
+            chunk.resetId(i);
+            return new Item(chunk.indexes.get(i), Status.FAILED, null,
+                NestedExceptionUtils.getMostSpecificCause(ex).getMessage());
+        }
+    }
+
+    private static Item saved(Chunk chunk, int i) {
+        return new Item(chunk.indexes.get(i), chunk.isNew.get(i) ? Status.CREATED : Status.UPDATED,
+            chunk.visits.get(i).getId(), null);
+    }
+
+    /**
+     * Visits waiting to be saved together, with their input positions and whether they were new (a rolled back insert
+     * leaves an id behind that has to be cleared before trying again), and the owners their saves have touched so far.
+     */
+    private static class Chunk {
+
+        private final int capacity;
+
+        private final List<Visit> visits;
+
+        private final List<Integer> indexes;
+
+        private final List<Boolean> isNew;
+
+        private final Set<Integer> ownerIds = new LinkedHashSet<>();
+
+        Chunk(int capacity) {
+            this.capacity = capacity;
+            this.visits = new ArrayList<>(capacity);
+            this.indexes = new ArrayList<>(capacity);
+            this.isNew = new ArrayList<>(capacity);
+        }
+
+        void add(int index, Visit visit) {
+            this.visits.add(visit);
+            this.indexes.add(index);
+            this.isNew.add(visit.isNew());
+        }
+
+        boolean isFull() {
+            return this.visits.size() >= this.capacity;
+        }
+
+        void resetId(int i) {
+            if (this.isNew.get(i)) {
+                this.visits.get(i).setId(null);
+            }
+        }
+
+        void clear() {
+            this.visits.clear();
+            this.indexes.clear();
+            this.isNew.clear();
+            this.ownerIds.clear();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.springframework.samples.petclinic.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Outcome of {@link VisitStatisticsService#countVisits}: the number of visits between two dates, both included, in
+ * total and per group.
+ *
+ * @param from   first day counted, <code>null</code> if unbounded
+ * @param to     last day counted, <code>null</code> if unbounded
+ * @param groups the groups with at least one visit: days in order, other groups by decreasing number of visits
+ */
+public record VisitStatistics(Grouping groupBy,
+                              @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy/MM/dd") LocalDate from,
+                              @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy/MM/dd") LocalDate to,
+                              long total, List<Group> groups) {
+
+    public enum Grouping {
+
+        /** Per visit date, keys formatted as <code>yyyy/MM/dd</code>. */
+        DAY("day"),
+
+        /** Per type of the visited pet, keys are the type names. */
+        PET_TYPE("petType"),
+
+        /** Per city of the owner of the visited pet. */
+        CITY("city");
+
+        private final String name;
+
+        Grouping(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the grouping of the given name (<code>day</code>, <code>petType</code> or <code>city</code>), or
+         * <code>null</code> if there is none
+         */
+        public static Grouping of(String name) {
+            for (Grouping grouping : values()) {
+                if (grouping.name.equals(name)) {
+                    return grouping;
+                }
+            }
+            return null;
+        }
+
+        @JsonValue
+        public String getName() {
+            return this.name;
+        }
+    }
+
+    public record Group(String key, long visits) {
+    }
+}
@@ -0,0 +1,82 @@
+package org.springframework.samples.petclinic.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.service.VisitStatistics.Grouping;
+
+/**
+ * Visit counts per day, pet type or owner city over any range of dates, served from in-memory rollups that the write
+ * paths keep up to date.
+ * <p>
+ * The <code>...Saving</code> and <code>...Deleting</code> methods must be called within the transaction that writes,
+ * before the write: they read the rows the counts depend on and work out what the write changes. Visit writes lock
+ * nothing; pet and owner writes lock the owners and pet they move. The rollups change once the transaction has
+ * committed, and not at all if it rolls back; they are rebuilt periodically, which corrects the rare concurrent
+ * writes that were counted wrong. The visit and pet methods return the ids of the owners whose pets or visits the
+ * write changes, before and after it, for the caller to invalidate what it keeps of them.
+ */
+public interface VisitStatisticsService {
+
+    /**
+     * @param from first day to count, <code>null</code> for no lower bound
+     * @param to   last day to count, <code>null</code> for no upper bound
+     */
+    VisitStatistics countVisits(Grouping groupBy, LocalDate from, LocalDate to);
+
+    /**
+     * The given visits, new or not, are about to be saved: each is counted at its date under the type and the owner's
+     * city of its pet, instead of where it was counted so far.
+     *
+     * @return the ids of the owners of the visits' pets, before and after the write
+     */
+    Set<Integer> visitsSaving(Collection<Visit> visits);
+
+    /**
+     * @return the id of the owner of the visit's pet, if the visit exists
+     */
+    Set<Integer> visitDeleting(Visit visit);
+
+    /**
+     * The given pet is about to be saved: its visits move to its type and to the city of its owner, which may have
+     * changed.
+     *
+     * @return the ids of the pet's owner before and after the write
+     */
+    Set<Integer> petSaving(Pet pet);
+
+    /**
+     * The given pet is about to be deleted, with its visits.
+     *
+     * @return the id of the pet's owner, if the pet exists
+     */
+    Set<Integer> petDeleting(Pet pet);
+
+    /**
+     * The given owner is about to be saved: the visits of its pets move to its city, which may have changed.
+     */
+    void ownerSaving(Owner owner);
+
+    /**
+     * The given owner is about to be deleted, with its pets and their visits.
+     */
+    void ownerDeleting(Owner owner);
+
+    /**
+     * The given pet type is about to be deleted, with its pets and their visits.
+     */
+    void petTypeDeleting(int petTypeId);
+
+    /**
+     * Drop the rollups and count every visit again, from one aggregate query. The writes counted while it reads are
+     * counted again on top of it: one that committed just before the query started may be counted twice, until the
+     * next rebuild.
+     *
+     * @return the number of visits counted
+     */
+    long rebuild();
+}
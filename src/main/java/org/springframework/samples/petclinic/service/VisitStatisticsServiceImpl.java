@@ -0,0 +1,578 @@
+package org.springframework.samples.petclinic.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.sql.DataSource;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.service.VisitStatistics.Group;
+import org.springframework.samples.petclinic.service.VisitStatistics.Grouping;
+import org.springframework.samples.petclinic.util.DayCounts;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory implementation of {@link VisitStatisticsService}: one {@link DayCounts} series for all visits, one per pet
+ * type and one per owner city, so that a count over any range of dates reads a few days and months per group instead
+ * of the visits. Memory is proportional to the number of distinct (day, city) pairs, the largest of the rollups.
+ * <p>
+ * The rollups are counted from one aggregate query once all beans are created, before the web server takes requests
+ * (writes that bypass the application, e.g. SQL scripts or the <code>seed</code> profile, are picked up by the next
+ * start). Writes made through the application are translated into deltas per (day, pet type, city) within their
+ * transaction, from the rows they are about to change; the deltas are added to the rollups once the transaction has
+ * committed. Visits without a date are not counted.
+ * <p>
+ * Visit writes, by far the most frequent, read the pet type and city of their visits without locking anything, so
+ * that they never wait on each other: two transactions moving the same pet or owner at once may leave the counts a
+ * little off. Pet and owner writes, which move all the visits of a pet or owner, lock the owners involved (by id) and
+ * then the pet with <code>SELECT ... FOR UPDATE</code>, always in that order. The rollups are rebuilt every
+ * <code>petclinic.stats.rebuild-interval</code> on a thread of their own, which corrects any drift; the deltas
+ * committed while the rebuild reads are added to the rebuilt rollups too.
+ */
+@Service
+public class VisitStatisticsServiceImpl implements VisitStatisticsService, SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(VisitStatisticsServiceImpl.class);
+
+    private static final int MAX_IDS_PER_QUERY = 500;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static final DateTimeFormatter DAY_KEY = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    private static final String COUNT_ALL_VISITS =
+        "SELECT v.visit_date, p.type_id, o.city, COUNT(*) FROM visits v " +
+            "JOIN pets p ON p.id = v.pet_id JOIN owners o ON o.id = p.owner_id " +
+            "WHERE v.visit_date IS NOT NULL GROUP BY v.visit_date, p.type_id, o.city ORDER BY v.visit_date";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final JdbcTemplate snapshotTemplate;
+
+    private final PetTypeRepository petTypeRepository;
+
+    private final TransactionTemplate readTransaction;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ScheduledExecutorService rebuilder;
+
+    private Rollups rollups = new Rollups();
+
+    /**
+     * Deltas applied while a rebuild reads, replayed onto the rebuilt rollups; <code>null</code> outside a rebuild.
+     */
+    private List<Map<Cell, Long>> appliedDuringRebuild;
+
+    public VisitStatisticsServiceImpl(DataSource dataSource, PetTypeRepository petTypeRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${petclinic.stats.fetch-size:1000}") int fetchSize,
+                                      @Value("${petclinic.stats.rebuild-interval:1h}") Duration rebuildInterval) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.snapshotTemplate = new JdbcTemplate(dataSource);
+        this.snapshotTemplate.setFetchSize(fetchSize);
+        this.petTypeRepository = petTypeRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "visit-statistics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = rebuildInterval.toMillis();
+        if (interval > 0) {
+            this.rebuilder.scheduleWithFixedDelay(this::scheduledRebuild, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        long visits = rebuild();
+        logger.info("Counted {} visits for the statistics in {} ms", visits, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public VisitStatistics countVisits(Grouping groupBy, LocalDate from, LocalDate to) {
+        int first = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+        int last = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+        Map<Integer, String> petTypeNames = groupBy == Grouping.PET_TYPE ? petTypeNames() : Map.of();
+        List<Group> groups = new ArrayList<>();
+        long total;
+        this.lock.readLock().lock();
+        try {
+            total = this.rollups.all.sum(first, last);
+            switch (groupBy) {
+                case DAY -> this.rollups.all.forEach(first, last, (day, count) ->
+                    groups.add(new Group(DAY_KEY.format(LocalDate.ofEpochDay(day)), count)));
+                case PET_TYPE -> this.rollups.byPetType.forEach((petTypeId, counts) ->
+                    addGroup(groups, petTypeNames.getOrDefault(petTypeId, String.valueOf(petTypeId)), counts.sum(first, last)));
+                case CITY -> this.rollups.byCity.forEach((city, counts) ->
+                    addGroup(groups, city, counts.sum(first, last)));
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        if (groupBy != Grouping.DAY) {
+            groups.sort(Comparator.comparingLong(Group::visits).reversed().thenComparing(Group::key));
+        }
+        return new VisitStatistics(groupBy, from, to, total, groups);
+    }
+
+    @Override
+    public Set<Integer> visitsSaving(Collection<Visit> visits) {
+        PendingCounts pending = pending();
+        Set<Integer> ownerIds = new LinkedHashSet<>();
+        Map<Integer, Integer> storedPetIds = new HashMap<>();
+        List<Integer> visitIds = visits.stream().map(Visit::getId).filter(Objects::nonNull).distinct().toList();
+        for (List<Integer> ids : partition(visitIds)) {
+            this.jdbcTemplate.query(
+                "SELECT v.id, v.pet_id, v.visit_date, p.type_id, o.city, p.owner_id FROM visits v " +
+                    "JOIN pets p ON p.id = v.pet_id JOIN owners o ON o.id = p.owner_id WHERE v.id IN (:ids)",
+                Map.of("ids", ids),
+                rs -> {
+                    storedPetIds.put(rs.getInt(1), rs.getInt(2));
+                    ownerIds.add(rs.getInt(6));
+                    if (rs.getDate(3) != null) {
+                        pending.add(rs.getDate(3).toLocalDate(), rs.getInt(4), rs.getString(5), -1);
+                    }
+                });
+        }
+        Set<Integer> petIds = new LinkedHashSet<>();
+        for (Visit visit : visits) {
+            Integer petId = petId(visit, storedPetIds);
+            if (petId != null) {
+                petIds.add(petId);
+            }
+        }
+        Map<Integer, PetRow> pets = readPets(petIds);
+        for (Visit visit : visits) {
+            PetRow pet = pets.get(petId(visit, storedPetIds));
+            if (pet == null) {
+                continue;
+            }
+            ownerIds.add(pet.ownerId());
+            if (visit.getDate() != null) {
+                pending.add(day(visit.getDate()), pet.petTypeId(), pet.city(), 1);
+            }
+        }
+        return ownerIds;
+    }
+
+    @Override
+    public Set<Integer> visitDeleting(Visit visit) {
+        if (visit.getId() == null) {
+            return Set.of();
+        }
+        PendingCounts pending = pending();
+        Set<Integer> ownerIds = new LinkedHashSet<>();
+        this.jdbcTemplate.query(
+            "SELECT v.visit_date, p.type_id, o.city, p.owner_id FROM visits v " +
+                "JOIN pets p ON p.id = v.pet_id JOIN owners o ON o.id = p.owner_id WHERE v.id = :id",
+            Map.of("id", visit.getId()),
+            rs -> {
+                ownerIds.add(rs.getInt(4));
+                if (rs.getDate(1) != null) {
+                    pending.add(rs.getDate(1).toLocalDate(), rs.getInt(2), rs.getString(3), -1);
+                }
+            });
+        return ownerIds;
+    }
+
+    @Override
+    public Set<Integer> petSaving(Pet pet) {
+        Integer newOwnerId = pet.getOwner() != null ? pet.getOwner().getId() : null;
+        Set<Integer> ownerIds = new LinkedHashSet<>();
+        if (newOwnerId != null) {
+            ownerIds.add(newOwnerId);
+        }
+        if (pet.getId() == null) {
+            return ownerIds;
+        }
+        PendingCounts pending = pending();
+        Map<Integer, String> cities = new HashMap<>();
+        PetRow stored = lockPet(pet.getId(), newOwnerId, cities);
+        if (stored == null) {
+            return ownerIds;
+        }
+        ownerIds.add(stored.ownerId());
+        int petTypeId = pet.getType() != null && pet.getType().getId() != null ? pet.getType().getId() : stored.petTypeId();
+        String city = stored.city();
+        if (newOwnerId != null && newOwnerId != stored.ownerId()) {
+            if (!cities.containsKey(newOwnerId)) {
+                return ownerIds;
+            }
+            city = cities.get(newOwnerId);
+        }
+        if (petTypeId == stored.petTypeId() && city.equals(stored.city())) {
+            return ownerIds;
+        }
+        String newCity = city;
+        visitsOfPet(pet.getId(), rs -> {
+            LocalDate day = rs.getDate(1).toLocalDate();
+            pending.add(day, stored.petTypeId(), stored.city(), -rs.getLong(2));
+            pending.add(day, petTypeId, newCity, rs.getLong(2));
+        });
+        return ownerIds;
+    }
+
+    @Override
+    public Set<Integer> petDeleting(Pet pet) {
+        if (pet.getId() == null) {
+            return Set.of();
+        }
+        PendingCounts pending = pending();
+        PetRow stored = lockPet(pet.getId(), null, new HashMap<>());
+        if (stored == null) {
+            return Set.of();
+        }
+        visitsOfPet(pet.getId(), rs ->
+            pending.add(rs.getDate(1).toLocalDate(), stored.petTypeId(), stored.city(), -rs.getLong(2)));
+        return Set.of(stored.ownerId());
+    }
+
+    @Override
+    public void ownerSaving(Owner owner) {
+        if (owner.getId() == null) {
+            return;
+        }
+        PendingCounts pending = pending();
+        String storedCity = lockOwners(Set.of(owner.getId())).get(owner.getId());
+        if (storedCity == null) {
+            return;
+        }
+        String newCity = city(owner.getCity());
+        if (newCity.equals(storedCity)) {
+            return;
+        }
+        visitsOfOwner(owner.getId(), rs -> {
+            LocalDate day = rs.getDate(1).toLocalDate();
+            pending.add(day, rs.getInt(2), storedCity, -rs.getLong(3));
+            pending.add(day, rs.getInt(2), newCity, rs.getLong(3));
+        });
+    }
+
+    @Override
+    public void ownerDeleting(Owner owner) {
+        if (owner.getId() == null) {
+            return;
+        }
+        PendingCounts pending = pending();
+        String storedCity = lockOwners(Set.of(owner.getId())).get(owner.getId());
+        if (storedCity == null) {
+            return;
+        }
+        visitsOfOwner(owner.getId(), rs ->
+            pending.add(rs.getDate(1).toLocalDate(), rs.getInt(2), storedCity, -rs.getLong(3)));
+    }
+
+    @Override
+    public void petTypeDeleting(int petTypeId) {
+        PendingCounts pending = pending();
+        Map<String, Object> params = Map.of("id", petTypeId);
+        this.jdbcTemplate.query(
+            "SELECT v.visit_date, o.city, COUNT(*) FROM visits v " +
+                "JOIN pets p ON p.id = v.pet_id JOIN owners o ON o.id = p.owner_id " +
+                "WHERE p.type_id = :id AND v.visit_date IS NOT NULL GROUP BY v.visit_date, o.city",
+            params,
+            rs -> {
+                pending.add(rs.getDate(1).toLocalDate(), petTypeId, rs.getString(2), -rs.getLong(3));
+            });
+    }
+
+    @Override
+    public synchronized long rebuild() {
+        Rollups rebuilt = new Rollups();
+        this.lock.writeLock().lock();
+        try {
+            this.appliedDuringRebuild = new ArrayList<>();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        try {
+            this.readTransaction.executeWithoutResult(status -> this.snapshotTemplate.query(COUNT_ALL_VISITS, rs -> {
+                rebuilt.add(new Cell((int) rs.getDate(1).toLocalDate().toEpochDay(), rs.getInt(2), city(rs.getString(3))),
+                    rs.getLong(4));
+            }));
+        } catch (RuntimeException ex) {
+            this.lock.writeLock().lock();
+            try {
+                this.appliedDuringRebuild = null;
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+        this.lock.writeLock().lock();
+        try {
+            this.appliedDuringRebuild.forEach(deltas -> deltas.forEach(rebuilt::add));
+            this.appliedDuringRebuild = null;
+            this.rollups = rebuilt;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        return rebuilt.all.sum(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    private void scheduledRebuild() {
+        try {
+            long start = System.nanoTime();
+            long visits = rebuild();
+            logger.debug("Counted {} visits again for the statistics in {} ms", visits,
+                (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException ex) {
+            logger.warn("Could not rebuild the visit statistics", ex);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        this.rebuilder.shutdownNow();
+    }
+
+    private Map<Integer, String> petTypeNames() {
+        Map<Integer, String> names = new HashMap<>();
+        this.readTransaction.executeWithoutResult(status -> {
+            for (PetType petType : this.petTypeRepository.findAll()) {
+                names.put(petType.getId(), petType.getName());
+            }
+        });
+        return names;
+    }
+
+    /**
+     * Read the given pets, without locking them.
+     *
+     * @return the type, the owner and the owner's city of each pet found
+     */
+    private Map<Integer, PetRow> readPets(Set<Integer> petIds) {
+        Map<Integer, PetRow> pets = new HashMap<>();
+        for (List<Integer> ids : partition(new ArrayList<>(petIds))) {
+            this.jdbcTemplate.query(
+                "SELECT p.id, p.type_id, p.owner_id, o.city FROM pets p JOIN owners o ON o.id = p.owner_id " +
+                    "WHERE p.id IN (:ids)",
+                Map.of("ids", ids),
+                rs -> {
+                    pets.put(rs.getInt(1), new PetRow(rs.getInt(2), rs.getInt(3), city(rs.getString(4))));
+                });
+        }
+        return pets;
+    }
+
+    /**
+     * Lock the owner of the given pet and the given other owner, by id, then the pet. The pet is read first, unlocked,
+     * to find its owner; should it move to another owner meanwhile, that owner's city is read unlocked.
+     *
+     * @param otherOwnerId an owner the pet moves to, or <code>null</code>
+     * @param cities       receives the city of each locked owner
+     * @return the type, the owner and the owner's city of the pet, or <code>null</code> if it does not exist
+     */
+    private PetRow lockPet(int petId, Integer otherOwnerId, Map<Integer, String> cities) {
+        PetRow unlocked = readPets(Set.of(petId)).get(petId);
+        if (unlocked == null) {
+            return null;
+        }
+        Set<Integer> ownerIds = new TreeSet<>();
+        ownerIds.add(unlocked.ownerId());
+        if (otherOwnerId != null) {
+            ownerIds.add(otherOwnerId);
+        }
+        cities.putAll(lockOwners(ownerIds));
+        List<int[]> pets = this.jdbcTemplate.query("SELECT type_id, owner_id FROM pets WHERE id = :id FOR UPDATE",
+            Map.of("id", petId), (rs, rowNum) -> new int[] {rs.getInt(1), rs.getInt(2)});
+        if (pets.isEmpty()) {
+            return null;
+        }
+        int ownerId = pets.get(0)[1];
+        String city = cities.containsKey(ownerId) ? cities.get(ownerId) : readPets(Set.of(petId)).get(petId).city();
+        return new PetRow(pets.get(0)[0], ownerId, city);
+    }
+
+    /**
+     * Lock the given owners, in the order of their ids.
+     *
+     * @return the city of each owner found
+     */
+    private Map<Integer, String> lockOwners(Set<Integer> ownerIds) {
+        Map<Integer, String> cities = new HashMap<>();
+        this.jdbcTemplate.query("SELECT id, city FROM owners WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+            Map.of("ids", ownerIds), rs -> {
+                cities.put(rs.getInt(1), city(rs.getString(2)));
+            });
+        return cities;
+    }
+
+    /**
+     * Passes <code>(visit_date, count)</code> rows for the dated visits of the given pet.
+     */
+    private void visitsOfPet(int petId, RowHandler handler) {
+        this.jdbcTemplate.query(
+            "SELECT visit_date, COUNT(*) FROM visits WHERE pet_id = :id AND visit_date IS NOT NULL GROUP BY visit_date",
+            Map.of("id", petId), handler::processRow);
+    }
+
+    /**
+     * Passes <code>(visit_date, type_id, count)</code> rows for the dated visits of the pets of the given owner.
+     */
+    private void visitsOfOwner(int ownerId, RowHandler handler) {
+        this.jdbcTemplate.query(
+            "SELECT v.visit_date, p.type_id, COUNT(*) FROM visits v JOIN pets p ON p.id = v.pet_id " +
+                "WHERE p.owner_id = :id AND v.visit_date IS NOT NULL GROUP BY v.visit_date, p.type_id",
+            Map.of("id", ownerId), handler::processRow);
+    }
+
+    /**
+     * Deltas of the current transaction, added to the rollups once it has committed.
+     */
+    private PendingCounts pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Visit statistics must be told about a write within its transaction");
+        }
+        PendingCounts pending = (PendingCounts) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingCounts();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private void apply(Map<Cell, Long> deltas) {
+        this.lock.writeLock().lock();
+        try {
+            deltas.forEach(this.rollups::add);
+            if (this.appliedDuringRebuild != null) {
+                this.appliedDuringRebuild.add(deltas);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private static void addGroup(List<Group> groups, String key, long visits) {
+        if (visits != 0) {
+            groups.add(new Group(key, visits));
+        }
+    }
+
+    private static Integer petId(Visit visit, Map<Integer, Integer> storedPetIds) {
+        if (visit.getPet() != null && visit.getPet().getId() != null) {
+            return visit.getPet().getId();
+        }
+        return visit.getId() == null ? null : storedPetIds.get(visit.getId());
+    }
+
+    private static LocalDate day(Date date) {
+        // java.sql.Date (from the JDBC repositories) does not support toInstant()
+        if (date instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        }
+        return LocalDate.ofInstant(date.toInstant(), ZONE);
+    }
+
+    /**
+     * Owners without a city are counted under the empty string.
+     */
+    private static String city(String city) {
+        return city == null ? "" : city;
+    }
+
+    private static List<List<Integer>> partition(List<Integer> ids) {
+        List<List<Integer>> parts = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += MAX_IDS_PER_QUERY) {
+            parts.add(ids.subList(i, Math.min(i + MAX_IDS_PER_QUERY, ids.size())));
+        }
+        return parts;
+    }
+
+    @FunctionalInterface
+    private interface RowHandler {
+
+        void processRow(ResultSet rs) throws SQLException;
+    }
+
+    private record PetRow(int petTypeId, int ownerId, String city) {
+    }
+
+    private record Cell(int day, int petTypeId, String city) {
+    }
+
+    private static final class Rollups {
+
+        private final DayCounts all = new DayCounts();
+
+        private final Map<Integer, DayCounts> byPetType = new HashMap<>();
+
+        private final Map<String, DayCounts> byCity = new HashMap<>();
+
+        void add(Cell cell, long delta) {
+            this.all.add(cell.day(), delta);
+            add(this.byPetType, cell.petTypeId(), cell.day(), delta);
+            add(this.byCity, cell.city(), cell.day(), delta);
+        }
+
+        private static <K> void add(Map<K, DayCounts> groups, K key, int day, long delta) {
+            DayCounts counts = groups.computeIfAbsent(key, k -> new DayCounts());
+            counts.add(day, delta);
+            if (counts.isEmpty()) {
+                groups.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Deltas of the writes of the current transaction, per (day, pet type, city).
+     */
+    private final class PendingCounts implements TransactionSynchronization {
+
+        private final Map<Cell, Long> deltas = new HashMap<>();
+
+        void add(LocalDate day, int petTypeId, String city, long delta) {
+            this.deltas.merge(new Cell((int) day.toEpochDay(), petTypeId, city(city)), delta, Long::sum);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(VisitStatisticsServiceImpl.this);
+            if (status == STATUS_COMMITTED) {
+                apply(this.deltas);
+            }
+        }
+    }
+}
@@ -15,19 +15,32 @@
  */
 package org.springframework.samples.petclinic.util;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
-import org.springframework.util.StopWatch;
+import org.springframework.util.ClassUtils;
 
 /**
- * Simple aspect that monitors call count and call invocation time. It uses JMX annotations and therefore can be
- * monitored using any JMX console such as the jConsole
+ * Simple aspect that monitors call count and call invocation time of every repository method. It uses JMX annotations
+ * and therefore can be monitored using any JMX console such as the jConsole; the same figures are served over HTTP by
+ * {@link org.springframework.samples.petclinic.rest.MonitoringRestController}.
  * <p/>
- * This is only useful if you use JPA or JDBC.  Spring-data-jpa doesn't have any correctly annotated classes to join on
+ * Counters are {@link LongAdder}s and latencies go to a per-method {@link LatencyHistogram} (microseconds), so the
+ * advice never takes a lock: concurrent repository calls only pay for a few uncontended atomic increments.
  *
  * @author Rob Harrop
  * @author Juergen Hoeller
@@ -38,11 +51,13 @@ import org.springframework.util.StopWatch;
 @Aspect
 public class CallMonitoringAspect {
 
-    private boolean enabled = true;
+    private volatile boolean enabled = true;
+
+    private final LongAdder callCount = new LongAdder();
 
-    private int callCount = 0;
+    private final LongAdder accumulatedCallTime = new LongAdder();
 
-    private long accumulatedCallTime = 0;
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Method, MethodMonitor>> monitors = new ConcurrentHashMap<>();
 
     @ManagedAttribute
     public boolean isEnabled() {
@@ -56,42 +71,157 @@ public class CallMonitoringAspect {
 
     @ManagedOperation
     public void reset() {
-        this.callCount = 0;
-        this.accumulatedCallTime = 0;
+        this.callCount.reset();
+        this.accumulatedCallTime.reset();
+        for (ConcurrentMap<Method, MethodMonitor> methods : this.monitors.values()) {
+            for (MethodMonitor monitor : methods.values()) {
+                monitor.reset();
+            }
+        }
     }
 
     @ManagedAttribute
-    public int getCallCount() {
-        return callCount;
+    public long getCallCount() {
+        return this.callCount.sum();
     }
 
+    /**
+     * @return the mean call time in milliseconds
+     */
     @ManagedAttribute
     public long getCallTime() {
-        if (this.callCount > 0)
-            return this.accumulatedCallTime / this.callCount;
-        else
-            return 0;
+        return TimeUnit.MICROSECONDS.toMillis(getCallTimeMicros());
     }
 
+    /**
+     * @return the mean call time in microseconds
+     */
+    @ManagedAttribute
+    public long getCallTimeMicros() {
+        long calls = this.callCount.sum();
+        return calls > 0 ? this.accumulatedCallTime.sum() / calls : 0;
+    }
 
-    @Around("within(@org.springframework.stereotype.Repository *)")
+    /**
+     * @return one line per monitored method with its call count and latency percentiles in microseconds
+     */
+    @ManagedAttribute
+    public String[] getMethodStatistics() {
+        return getStatistics().stream()
+            .map(s -> String.format("%s calls=%d errors=%d mean=%dus p50=%dus p99=%dus p999=%dus max=%dus",
+                s.method(), s.calls(), s.errors(), s.meanMicros(), s.p50Micros(), s.p99Micros(), s.p999Micros(),
+                s.maxMicros()))
+            .toArray(String[]::new);
+    }
+
+    /**
+     * @return a snapshot of the statistics of every monitored method, the most time consuming first
+     */
+    public List<CallStatistics> getStatistics() {
+        List<CallStatistics> statistics = new ArrayList<>();
+        for (ConcurrentMap<Method, MethodMonitor> methods : this.monitors.values()) {
+            for (MethodMonitor monitor : methods.values()) {
+                if (monitor.calls.sum() > 0) {
+                    statistics.add(monitor.snapshot());
+                }
+            }
+        }
+        statistics.sort(Comparator.comparingLong(CallStatistics::totalMicros).reversed()
+            .thenComparing(CallStatistics::method));
+        return statistics;
+    }
+
+    @Around("within(@org.springframework.stereotype.Repository *) || this(org.springframework.data.repository.Repository)")
     public Object invoke(ProceedingJoinPoint joinPoint) throws Throwable {
         if (this.enabled) {
-            StopWatch sw = new StopWatch(joinPoint.toShortString());
-
-            sw.start("invoke");
+            long start = System.nanoTime();
+            boolean failed = true;
             try {
-                return joinPoint.proceed();
+                Object result = joinPoint.proceed();
+                failed = false;
+                return result;
             } finally {
-                sw.stop();
-                synchronized (this) {
-                    this.callCount++;
-                    this.accumulatedCallTime += sw.getTotalTimeMillis();
-                }
+                long micros = (System.nanoTime() - start) / 1000;
+                this.callCount.increment();
+                this.accumulatedCallTime.add(micros);
+                monitor(joinPoint).record(micros, failed);
             }
         } else {
             return joinPoint.proceed();
         }
     }
 
+    private MethodMonitor monitor(ProceedingJoinPoint joinPoint) {
+        Class<?> targetClass = joinPoint.getTarget() != null ? joinPoint.getTarget().getClass() : joinPoint.getSignature().getDeclaringType();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        ConcurrentMap<Method, MethodMonitor> methods = this.monitors.get(targetClass);
+        if (methods == null) {
+            methods = this.monitors.computeIfAbsent(targetClass, c -> new ConcurrentHashMap<>());
+        }
+        MethodMonitor monitor = methods.get(method);
+        if (monitor == null) {
+            monitor = methods.computeIfAbsent(method, m -> new MethodMonitor(repositoryName(targetClass) + "." + m.getName()));
+        }
+        return monitor;
+    }
+
+    /**
+     * Spring Data repositories are JDK proxies around a shared implementation: name them after their own interface.
+     */
+    private static String repositoryName(Class<?> targetClass) {
+        if (Proxy.isProxyClass(targetClass) && targetClass.getInterfaces().length > 0) {
+            return targetClass.getInterfaces()[0].getSimpleName();
+        }
+        return ClassUtils.getUserClass(targetClass).getSimpleName();
+    }
+
+    /**
+     * Statistics of a single repository method; latencies are in microseconds.
+     */
+    public record CallStatistics(String method, long calls, long errors, long totalMicros, long meanMicros,
+                                 long p50Micros, long p99Micros, long p999Micros, long maxMicros) {
+    }
+
+    private static final class MethodMonitor {
+
+        private final String name;
+
+        private final LongAdder calls = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final LongAdder totalMicros = new LongAdder();
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        MethodMonitor(String name) {
+            this.name = name;
+        }
+
+        void record(long micros, boolean failed) {
+            this.calls.increment();
+            if (failed) {
+                this.errors.increment();
+            }
+            this.totalMicros.add(micros);
+            this.histogram.record(micros);
+        }
+
+        void reset() {
+            this.calls.reset();
+            this.errors.reset();
+            this.totalMicros.reset();
+            this.histogram.reset();
+        }
+
+        CallStatistics snapshot() {
+            long callCount = this.calls.sum();
+            long total = this.totalMicros.sum();
+            return new CallStatistics(this.name, callCount, this.errors.sum(), total,
+                callCount > 0 ? total / callCount : 0,
+                this.histogram.percentile(50), this.histogram.percentile(99), this.histogram.percentile(99.9),
+                this.histogram.getMax());
+        }
+    }
+
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Hikari metrics tracker of every connection pool of the application: live pool state (connections active and idle,
+ * threads waiting for one), how long connections take to acquire (a {@link LatencyHistogram} in microseconds), how
+ * long they are held and how many are created. Served over JMX and by
+ * {@link org.springframework.samples.petclinic.rest.ConnectionPoolRestController}.
+ * <p/>
+ * A starved pool shows up as acquisitions slower than <code>acquireWarnThreshold</code> (and as timeouts): they are
+ * logged as a warning, at most once per <code>warnInterval</code> and per pool, with the number of slow acquisitions
+ * since the previous warning, so that a saturated pool does not flood the log.
+ */
+@ManagedResource("petclinic:type=ConnectionPools")
+public class ConnectionPoolMonitor implements MetricsTrackerFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPoolMonitor.class);
+
+    private final ConcurrentMap<String, PoolMonitor> pools = new ConcurrentHashMap<>();
+
+    private volatile long acquireWarnThresholdNanos;
+
+    private final long warnIntervalNanos;
+
+    /**
+     * @param acquireWarnThreshold acquisition time above which a warning is logged
+     * @param warnInterval         minimum time between two warnings about the same pool
+     */
+    public ConnectionPoolMonitor(Duration acquireWarnThreshold, Duration warnInterval) {
+        this.acquireWarnThresholdNanos = acquireWarnThreshold.toNanos();
+        this.warnIntervalNanos = warnInterval.toNanos();
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        PoolMonitor monitor = new PoolMonitor(poolName, poolStats);
+        this.pools.put(poolName, monitor);
+        return monitor;
+    }
+
+    @ManagedAttribute
+    public long getAcquireWarnThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.acquireWarnThresholdNanos);
+    }
+
+    @ManagedAttribute
+    public void setAcquireWarnThresholdMillis(long acquireWarnThresholdMillis) {
+        this.acquireWarnThresholdNanos = TimeUnit.MILLISECONDS.toNanos(acquireWarnThresholdMillis);
+    }
+
+    /**
+     * Resets the counters and histograms of every pool; the pool state is live and is not affected.
+     */
+    @ManagedOperation
+    public void reset() {
+        for (PoolMonitor monitor : this.pools.values()) {
+            monitor.reset();
+        }
+    }
+
+    /**
+     * @return one line per pool with its state, acquisition times in microseconds and usage times in milliseconds
+     */
+    @ManagedAttribute
+    public String[] getPoolStatistics() {
+        return getStatistics().stream()
+            .map(s -> String.format("%s active=%d idle=%d pending=%d max=%d acquisitions=%d slow=%d timeouts=%d "
+                    + "acquire p50=%dus p99=%dus p999=%dus max=%dus usage p50=%dms p99=%dms max=%dms created=%d",
+                s.pool(), s.active(), s.idle(), s.pendingThreads(), s.max(), s.acquisitions(), s.slowAcquisitions(),
+                s.timeouts(), s.acquireP50Micros(), s.acquireP99Micros(), s.acquireP999Micros(), s.acquireMaxMicros(),
+                s.usageP50Millis(), s.usageP99Millis(), s.usageMaxMillis(), s.connectionsCreated()))
+            .toArray(String[]::new);
+    }
+
+    /**
+     * @return a snapshot of the statistics of every pool, by pool name
+     */
+    public List<PoolStatistics> getStatistics() {
+        return this.pools.values().stream()
+            .map(PoolMonitor::snapshot)
+            .sorted(Comparator.comparing(PoolStatistics::pool))
+            .toList();
+    }
+
+    /**
+     * Statistics of a single pool. The pool state is refreshed by Hikari at most once per second. Acquisitions
+     * include those that timed out; their times are in microseconds. Usage (from borrowing a connection to giving it
+     * back) and creation times are in milliseconds; the connections created are those opened once the pool has
+     * started, i.e. its growth and the replacement of the connections that reached their maximum lifetime.
+     */
+    public record PoolStatistics(String pool, int active, int idle, int total, int max, int min, int pendingThreads,
+                                 long acquisitions, long slowAcquisitions, long timeouts, long acquireP50Micros,
+                                 long acquireP99Micros, long acquireP999Micros, long acquireMaxMicros,
+                                 long usageP50Millis, long usageP99Millis, long usageMaxMillis,
+                                 long connectionsCreated, long creationP99Millis) {
+    }
+
+    private final class PoolMonitor implements IMetricsTracker {
+
+        private final String name;
+
+        private final PoolStats poolStats;
+
+        private final LongAdder acquisitions = new LongAdder();
+
+        private final LongAdder slowAcquisitions = new LongAdder();
+
+        private final LongAdder timeouts = new LongAdder();
+
+        private final LatencyHistogram acquireMicros = new LatencyHistogram();
+
+        private final LatencyHistogram usageMillis = new LatencyHistogram();
+
+        private final LongAdder created = new LongAdder();
+
+        private final LatencyHistogram creationMillis = new LatencyHistogram();
+
+        private final LongAdder slowSinceWarning = new LongAdder();
+
+        private final LongAdder timeoutsSinceWarning = new LongAdder();
+
+        private final LongAccumulator slowestSinceWarning = new LongAccumulator(Long::max, 0);
+
+        private final AtomicLong nextWarning = new AtomicLong(System.nanoTime());
+
+        private PoolMonitor(String name, PoolStats poolStats) {
+            this.name = name;
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            this.acquisitions.increment();
+            this.acquireMicros.record(elapsedAcquiredNanos / 1000);
+            if (elapsedAcquiredNanos > acquireWarnThresholdNanos) {
+                this.slowAcquisitions.increment();
+                this.slowSinceWarning.increment();
+                this.slowestSinceWarning.accumulate(elapsedAcquiredNanos);
+                warnIfDue();
+            }
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            this.timeouts.increment();
+            this.timeoutsSinceWarning.increment();
+            warnIfDue();
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            this.usageMillis.record(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            this.created.increment();
+            this.creationMillis.record(connectionCreatedMillis);
+        }
+
+        @Override
+        public void close() {
+            pools.remove(this.name, this);
+        }
+
+        /**
+         * Called on the thread that waited for a connection: only the one that moves the next warning time forward
+         * logs, the others just add to the counts of that warning.
+         */
+        private void warnIfDue() {
+            long now = System.nanoTime();
+            long next = this.nextWarning.get();
+            if (now - next < 0 || !this.nextWarning.compareAndSet(next, now + warnIntervalNanos)) {
+                return;
+            }
+            long slow = this.slowSinceWarning.sumThenReset();
+            long timedOut = this.timeoutsSinceWarning.sumThenReset();
+            long slowest = this.slowestSinceWarning.getThenReset();
+            logger.warn("Connection pool {} is starved: {} connection request(s) over {}ms since the last warning"
+                    + " (the longest {}ms), {} timeout(s); active {}, idle {}, waiting threads {}, max {}",
+                this.name, slow, TimeUnit.NANOSECONDS.toMillis(acquireWarnThresholdNanos),
+                TimeUnit.NANOSECONDS.toMillis(slowest), timedOut, this.poolStats.getActiveConnections(),
+                this.poolStats.getIdleConnections(), this.poolStats.getPendingThreads(),
+                this.poolStats.getMaxConnections());
+        }
+
+        private void reset() {
+            this.acquisitions.reset();
+            this.slowAcquisitions.reset();
+            this.timeouts.reset();
+            this.acquireMicros.reset();
+            this.usageMillis.reset();
+            this.created.reset();
+            this.creationMillis.reset();
+        }
+
+        private PoolStatistics snapshot() {
+            return new PoolStatistics(this.name, this.poolStats.getActiveConnections(),
+                this.poolStats.getIdleConnections(), this.poolStats.getTotalConnections(),
+                this.poolStats.getMaxConnections(), this.poolStats.getMinConnections(),
+                this.poolStats.getPendingThreads(), this.acquisitions.sum(), this.slowAcquisitions.sum(),
+                this.timeouts.sum(), this.acquireMicros.percentile(50), this.acquireMicros.percentile(99),
+                this.acquireMicros.percentile(99.9), this.acquireMicros.getMax(), this.usageMillis.percentile(50),
+                this.usageMillis.percentile(99), this.usageMillis.getMax(), this.created.sum(),
+                this.creationMillis.percentile(99));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader of comma separated records (RFC 4180): fields may be enclosed in double quotes, in which case they
+ * can contain commas, line breaks and doubled quotes. Only the current record is held in memory.
+ * <p>
+ * Not thread-safe.
+ */
+public class CsvReader implements Closeable {
+
+    private final BufferedReader reader;
+
+    private final StringBuilder field = new StringBuilder();
+
+    private int lineNumber;
+
+    private int recordLineNumber;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+
+    /**
+     * @return the fields of the next record, or <code>null</code> at the end of the input; blank lines are skipped
+     * @throws IOException if the input cannot be read or ends inside a quoted field
+     */
+    public List<String> next() throws IOException {
+        String line;
+        do {
+            line = this.reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            this.lineNumber++;
+        } while (line.isBlank());
+        this.recordLineNumber = this.lineNumber;
+
+        List<String> fields = new ArrayList<>();
+        this.field.setLength(0);
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                line = this.reader.readLine();
+                if (line == null) {
+                    throw new IOException("Unterminated quoted field starting on line " + this.recordLineNumber);
+                }
+                this.lineNumber++;
+                this.field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    this.field.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    this.field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(this.field.toString());
+                this.field.setLength(0);
+            } else {
+                this.field.append(c);
+            }
+        }
+        fields.add(this.field.toString());
+        return fields;
+    }
+
+    /**
+     * @return the line (from 1) on which the record last returned by {@link #next()} starts
+     */
+    public int getLineNumber() {
+        return this.recordLineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
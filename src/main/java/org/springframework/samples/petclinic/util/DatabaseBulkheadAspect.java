@@ -0,0 +1,154 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Bulkhead around database access: at most <code>maxConcurrent</code> threads may be inside a transactional service
+ * method or a repository at the same time, the others wait (in arrival order) for up to <code>acquireTimeout</code>
+ * milliseconds and then fail with a {@link DatabaseBusyException}.
+ * <p/>
+ * With requests served on virtual threads there is no Tomcat pool left to bound the number of concurrent callers, so
+ * without this every client would queue on (and time out in) the JDBC connection pool while holding its request.
+ * The aspect runs before the transaction interceptor so that a permit is taken before a connection is, and is
+ * re-entrant: nested calls made by a thread that already holds a permit go straight through. Programmatic transactions
+ * are not advised, so their callers {@link #guard} their <code>TransactionTemplate</code> instead.
+ */
+@ManagedResource("petclinic:type=DatabaseBulkhead")
+@Aspect
+public class DatabaseBulkheadAspect implements Ordered {
+
+    private static final ThreadLocal<Boolean> PERMIT_HELD = new ThreadLocal<>();
+
+    private final int maxConcurrent;
+
+    private final long acquireTimeout;
+
+    private final Semaphore permits;
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * @param maxConcurrent  number of threads allowed to use the database at the same time
+     * @param acquireTimeout how long (in milliseconds) a thread waits for a permit before giving up
+     */
+    public DatabaseBulkheadAspect(int maxConcurrent, long acquireTimeout) {
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeout = acquireTimeout;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @ManagedAttribute
+    public int getMaxConcurrent() {
+        return this.maxConcurrent;
+    }
+
+    @ManagedAttribute
+    public int getAvailablePermits() {
+        return this.permits.availablePermits();
+    }
+
+    @ManagedAttribute
+    public int getQueueLength() {
+        return this.permits.getQueueLength();
+    }
+
+    @ManagedAttribute
+    public long getRejectedCount() {
+        return this.rejectedCount.sum();
+    }
+
+    @Around("@within(org.springframework.transaction.annotation.Transactional)"
+        + " || @annotation(org.springframework.transaction.annotation.Transactional)"
+        + " || within(@org.springframework.stereotype.Repository *)"
+        + " || this(org.springframework.data.repository.Repository)")
+    public Object invoke(ProceedingJoinPoint joinPoint) throws Throwable {
+        return withPermit(joinPoint.getSignature().toShortString(), joinPoint::proceed);
+    }
+
+    /**
+     * Wraps the given transactions so that each one takes a permit before the transaction (and its connection) begins.
+     */
+    public TransactionOperations guard(TransactionOperations transactions) {
+        return new TransactionOperations() {
+
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                try {
+                    return withPermit("TransactionOperations.execute(..)", () -> transactions.execute(action));
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new UndeclaredThrowableException(ex);
+                }
+            }
+        };
+    }
+
+    private <T> T withPermit(String caller, Work<T> work) throws Throwable {
+        if (PERMIT_HELD.get() != null) {
+            return work.run();
+        }
+        if (!this.permits.tryAcquire(this.acquireTimeout, TimeUnit.MILLISECONDS)) {
+            this.rejectedCount.increment();
+            throw new DatabaseBusyException("No database permit available within " + this.acquireTimeout
+                + "ms for " + caller + " (" + this.maxConcurrent + " in use)");
+        }
+        PERMIT_HELD.set(Boolean.TRUE);
+        try {
+            return work.run();
+        } finally {
+            PERMIT_HELD.remove();
+            this.permits.release();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Work<T> {
+
+        T run() throws Throwable;
+    }
+
+    /**
+     * Thrown when the bulkhead is saturated; retrying later may succeed.
+     */
+    public static class DatabaseBusyException extends TransientDataAccessResourceException {
+
+        public DatabaseBusyException(String msg) {
+            super(msg);
+        }
+    }
+
+}
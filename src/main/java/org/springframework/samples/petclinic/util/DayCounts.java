@@ -0,0 +1,201 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Counts per day (epoch days, see {@link LocalDate#toEpochDay()}) that add up any range of days in time independent of
+ * how many days have counts: days are kept sparse, in sorted arrays, and their monthly totals in a Fenwick tree. A
+ * range sum reads the days of its first and last month and the tree for the whole months in between, i.e. at most 62
+ * days and two tree paths.
+ * <p>
+ * Memory is proportional to the number of days with a non-zero count plus the number of months between the first and
+ * the last of them. Adding a day that had no count shifts the later days, which is cheap for the few thousand days
+ * of a series and free when days are added in order (as when loading from an ordered query). Not thread-safe.
+ */
+public final class DayCounts {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final int INITIAL_MONTHS = 16;
+
+    private int[] days = new int[INITIAL_CAPACITY];
+
+    private long[] counts = new long[INITIAL_CAPACITY];
+
+    private int size;
+
+    /** Epoch month (<code>year * 12 + month - 1</code>) of the first slot of the tree. */
+    private int firstMonth;
+
+    /** Fenwick tree of the monthly totals, 1-based; <code>null</code> until a count is added. */
+    private long[] months;
+
+    @FunctionalInterface
+    public interface DayConsumer {
+
+        void accept(int day, long count);
+    }
+
+    public void add(int day, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        int index = Arrays.binarySearch(this.days, 0, this.size, day);
+        if (index >= 0) {
+            this.counts[index] += delta;
+            if (this.counts[index] == 0) {
+                remove(index);
+            }
+        } else {
+            insert(-index - 1, day, delta);
+        }
+        addToMonth(month(day), delta);
+    }
+
+    /**
+     * @return the sum of the counts from <code>from</code> to <code>to</code>, both included
+     */
+    public long sum(int from, int to) {
+        if (this.size == 0) {
+            return 0;
+        }
+        int first = Math.max(from, this.days[0]);
+        int last = Math.min(to, this.days[this.size - 1]);
+        if (first > last) {
+            return 0;
+        }
+        int firstMonth = month(first);
+        int lastMonth = month(last);
+        if (lastMonth - firstMonth < 2) {
+            return sumOfDays(first, last);
+        }
+        return sumOfDays(first, firstDay(firstMonth + 1) - 1)
+            + prefixOfMonths(lastMonth - 1) - prefixOfMonths(firstMonth)
+            + sumOfDays(firstDay(lastMonth), last);
+    }
+
+    /**
+     * Passes the days from <code>from</code> to <code>to</code> (both included) that have a non-zero count, in order.
+     */
+    public void forEach(int from, int to, DayConsumer consumer) {
+        for (int i = lowerBound(from); i < this.size && this.days[i] <= to; i++) {
+            consumer.accept(this.days[i], this.counts[i]);
+        }
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    private long sumOfDays(int from, int to) {
+        long sum = 0;
+        for (int i = lowerBound(from); i < this.size && this.days[i] <= to; i++) {
+            sum += this.counts[i];
+        }
+        return sum;
+    }
+
+    private int lowerBound(int day) {
+        int index = Arrays.binarySearch(this.days, 0, this.size, day);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private void insert(int index, int day, long count) {
+        if (this.size == this.days.length) {
+            int capacity = this.size + (this.size >> 1);
+            this.days = Arrays.copyOf(this.days, capacity);
+            this.counts = Arrays.copyOf(this.counts, capacity);
+        }
+        System.arraycopy(this.days, index, this.days, index + 1, this.size - index);
+        System.arraycopy(this.counts, index, this.counts, index + 1, this.size - index);
+        this.days[index] = day;
+        this.counts[index] = count;
+        this.size++;
+    }
+
+    private void remove(int index) {
+        System.arraycopy(this.days, index + 1, this.days, index, this.size - index - 1);
+        System.arraycopy(this.counts, index + 1, this.counts, index, this.size - index - 1);
+        this.size--;
+    }
+
+    private void addToMonth(int month, long delta) {
+        ensureMonth(month);
+        for (int i = month - this.firstMonth + 1; i < this.months.length; i += i & -i) {
+            this.months[i] += delta;
+        }
+    }
+
+    /**
+     * @return the sum of the monthly totals up to <code>month</code>, included
+     */
+    private long prefixOfMonths(int month) {
+        long sum = 0;
+        for (int i = Math.min(month - this.firstMonth + 1, this.months.length - 1); i > 0; i -= i & -i) {
+            sum += this.months[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Widens the tree so that it covers the given month, at least doubling its range, and rebuilds it.
+     */
+    private void ensureMonth(int month) {
+        if (this.months == null) {
+            this.firstMonth = month;
+            this.months = new long[INITIAL_MONTHS + 1];
+            return;
+        }
+        int length = this.months.length - 1;
+        if (month >= this.firstMonth && month < this.firstMonth + length) {
+            return;
+        }
+        long[] totals = new long[length];
+        for (int i = 0; i < length; i++) {
+            totals[i] = prefixOfMonths(this.firstMonth + i) - prefixOfMonths(this.firstMonth + i - 1);
+        }
+        int first = Math.min(this.firstMonth, month);
+        int end = Math.max(this.firstMonth + length, month + 1);
+        int newLength = Math.max(end - first, 2 * length);
+        if (month < this.firstMonth) {
+            first = end - newLength;
+        }
+        long[] tree = new long[newLength + 1];
+        for (int i = 0; i < length; i++) {
+            tree[this.firstMonth - first + i + 1] = totals[i];
+        }
+        for (int i = 1; i <= newLength; i++) {
+            int parent = i + (i & -i);
+            if (parent <= newLength) {
+                tree[parent] += tree[i];
+            }
+        }
+        this.firstMonth = first;
+        this.months = tree;
+    }
+
+    private static int month(int day) {
+        LocalDate date = LocalDate.ofEpochDay(day);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static int firstDay(int month) {
+        return (int) LocalDate.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1, 1).toEpochDay();
+    }
+}
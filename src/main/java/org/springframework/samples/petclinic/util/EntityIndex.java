@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.util.Collection;
+
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+/**
+ * Id-indexed set of entities, the constant time counterpart of {@link EntityUtils#getById}. Used when an object graph
+ * is assembled from several result sets and every row has to be resolved against the entities of another query.
+ * <p>
+ * Keys are the primitive entity ids (open addressing, linear probing), so lookups neither box the id nor allocate.
+ * Not thread-safe; meant to live for the duration of one query.
+ *
+ * @see EntityUtils#getById
+ */
+public final class EntityIndex<T extends BaseEntity> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] ids;
+
+    private Object[] entities;
+
+    private int size;
+
+    public EntityIndex() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * @param expectedSize number of entities the index will hold without resizing
+     */
+    public EntityIndex(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        this.ids = new int[capacity];
+        this.entities = new Object[capacity];
+    }
+
+    /**
+     * Index the given entities by id.
+     *
+     * @param entities the entities to index, all of them with an id
+     * @return a new index
+     */
+    public static <T extends BaseEntity> EntityIndex<T> of(Collection<? extends T> entities) {
+        EntityIndex<T> index = new EntityIndex<>(entities.size());
+        for (T entity : entities) {
+            index.put(entity);
+        }
+        return index;
+    }
+
+    /**
+     * Add the given entity, replacing the one previously indexed with the same id.
+     *
+     * @param entity the entity to add, which must have an id
+     */
+    public void put(T entity) {
+        int id = entity.getId();
+        int mask = this.ids.length - 1;
+        int slot = slot(id, mask);
+        while (this.entities[slot] != null) {
+            if (this.ids[slot] == id) {
+                this.entities[slot] = entity;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        this.ids[slot] = id;
+        this.entities[slot] = entity;
+        if (++this.size * 2 > this.ids.length) {
+            resize();
+        }
+    }
+
+    /**
+     * @param id the entity id to look up
+     * @return the entity with the given id, or {@code null} if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int id) {
+        int mask = this.ids.length - 1;
+        int slot = slot(id, mask);
+        Object entity;
+        while ((entity = this.entities[slot]) != null) {
+            if (this.ids[slot] == id) {
+                return (T) entity;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Look up the entity with the given id, failing the same way as {@link EntityUtils#getById}.
+     *
+     * @param entityClass the entity class to look up
+     * @param id          the entity id to look up
+     * @return the found entity
+     * @throws ObjectRetrievalFailureException if the entity was not found
+     */
+    public T getById(Class<T> entityClass, int id) throws ObjectRetrievalFailureException {
+        T entity = get(id);
+        if (entity == null || !entityClass.isInstance(entity)) {
+            throw new ObjectRetrievalFailureException(entityClass, id);
+        }
+        return entity;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    private void resize() {
+        int[] oldIds = this.ids;
+        Object[] oldEntities = this.entities;
+        this.ids = new int[oldIds.length << 1];
+        this.entities = new Object[oldEntities.length << 1];
+        int mask = this.ids.length - 1;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldEntities[i] != null) {
+                int slot = slot(oldIds[i], mask);
+                while (this.entities[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                this.ids[slot] = oldIds[i];
+                this.entities[slot] = oldEntities[i];
+            }
+        }
+    }
+
+    private static int slot(int id, int mask) {
+        // ids are mostly sequential: spread them so that neighbouring ids do not form long probe runs
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+}
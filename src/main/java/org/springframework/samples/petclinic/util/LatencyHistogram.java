@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Concurrent histogram of non-negative values (latencies in microseconds for {@link CallMonitoringAspect}) with
+ * HdrHistogram-style log-linear buckets: values below {@value #SUB_BUCKETS} are counted exactly, larger ones in 32
+ * buckets per power of two, i.e. with a relative error below 3.2%. Values above 2<sup>{@value #MAX_MAGNITUDE}</sup>
+ * land in the last bucket.
+ * <p>
+ * Recording is a single uncontended atomic increment: counts are striped by thread so that concurrent callers of the
+ * same method do not fight over the same cache line. Reads sum the stripes and are only approximately consistent with
+ * concurrent writes, which is fine for monitoring.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    private static final int MAX_MAGNITUDE = 36;
+
+    private static final int BUCKETS = index((1L << MAX_MAGNITUDE) - 1) + 1;
+
+    private static final int STRIPES = Math.min(8, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < STRIPES; i++) {
+            this.stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    public void record(long value) {
+        long v = Math.max(0, value);
+        int stripe = (int) Thread.currentThread().threadId() & (STRIPES - 1);
+        this.stripes[stripe].incrementAndGet(Math.min(index(v), BUCKETS - 1));
+        this.max.accumulate(v);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest value equivalent to the given percentile of the recorded values, 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        long[] counts = counts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, percentile) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    public void reset() {
+        for (AtomicLongArray stripe : this.stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                stripe.set(i, 0);
+            }
+        }
+        this.max.reset();
+    }
+
+    private long[] counts() {
+        long[] counts = new long[BUCKETS];
+        for (AtomicLongArray stripe : this.stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+        }
+        return counts;
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return (subBucket << shift) + (1L << shift) - 1;
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Loads the results of <code>@Cacheable</code> methods from the primary database, never from a read replica.
+ * <p/>
+ * A cached result is served to every client until it expires. Read from a lagging replica right after a write has
+ * evicted it, it would put the rows from before the write back in the cache for its whole TTL, where the writer
+ * itself would find them despite its {@link ReadYourWrites} window. The cache hits are not affected; only the loads
+ * that the cache interceptor lets through reach the database.
+ */
+@Aspect
+public class PrimaryCacheLoadAspect {
+
+    private final ReadYourWrites readYourWrites;
+
+    public PrimaryCacheLoadAspect(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Around("@annotation(org.springframework.cache.annotation.Cacheable)")
+    public Object invoke(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean nested = this.readYourWrites.beginPrimaryReads();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            this.readYourWrites.endPrimaryReads(nested);
+        }
+    }
+}
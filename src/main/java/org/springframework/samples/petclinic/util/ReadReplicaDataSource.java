@@ -0,0 +1,354 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.StringUtils;
+
+/**
+ * DataSource of the read-only transactions (the <code>readOnlyDataSource</code> of a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} over the primary): hands out connections
+ * of one of the replicas, chosen {@link Selection#ROUND_ROBIN round-robin} or by
+ * {@link Selection#LEAST_CONNECTIONS least connections} in use.
+ * <p/>
+ * A replica that fails to connect is ejected at once and the next one is tried; every <code>checkInterval</code> the
+ * replicas are validated (and their replication lag measured with <code>lagQuery</code>, when there is one, ejecting
+ * those more than <code>maxLag</code> behind), which readmits the ejected ones that are healthy again. A replica whose
+ * pool has no connection to spare within its timeout is busy, not broken: it is skipped but stays in, and if every
+ * replica is busy the read fails with that timeout rather than moving the load spike onto the primary. Reads go to
+ * the primary while no replica is available, while the current thread is within the window of
+ * {@link ReadYourWrites} after a write, and for the results that are to be cached
+ * ({@link ReadYourWrites#isPrimaryReads()}).
+ */
+@ManagedResource("petclinic:type=ReadReplicas")
+public class ReadReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadReplicaDataSource.class);
+
+    public enum Selection {
+
+        ROUND_ROBIN, LEAST_CONNECTIONS
+    }
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final Selection selection;
+
+    private final ReadYourWrites readYourWrites;
+
+    private final String lagQuery;
+
+    private final Duration maxLag;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final LongAdder replicaReads = new LongAdder();
+
+    private final LongAdder stickyReads = new LongAdder();
+
+    private final LongAdder primaryReads = new LongAdder();
+
+    private final LongAdder busyReplicas = new LongAdder();
+
+    private final LongAdder fallbackReads = new LongAdder();
+
+    private final ScheduledExecutorService checker;
+
+    /**
+     * @param primary        DataSource of the reads that no replica serves
+     * @param replicas       DataSources of the replicas, by name
+     * @param lagQuery       query returning how many seconds a replica is behind the primary, or <code>null</code>
+     * @param maxLag         replication lag above which a replica is ejected
+     * @param checkInterval  how often the replicas are validated
+     */
+    public ReadReplicaDataSource(DataSource primary, Map<String, DataSource> replicas, Selection selection,
+                                 ReadYourWrites readYourWrites, String lagQuery, Duration maxLag,
+                                 Duration checkInterval) {
+        this.primary = primary;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.selection = selection;
+        this.readYourWrites = readYourWrites;
+        this.lagQuery = StringUtils.hasText(lagQuery) ? lagQuery : null;
+        this.maxLag = maxLag;
+        this.checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "read-replica-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = checkInterval.toMillis();
+        this.checker.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (this.readYourWrites.isSticky()) {
+            this.stickyReads.increment();
+            return this.primary.getConnection();
+        }
+        if (this.readYourWrites.isPrimaryReads()) {
+            this.primaryReads.increment();
+            return this.primary.getConnection();
+        }
+        SQLException busy = null;
+        for (Replica replica : candidates()) {
+            try {
+                Connection connection = replica.open();
+                this.replicaReads.increment();
+                return connection;
+            } catch (SQLException ex) {
+                if (isPoolExhausted(ex)) {
+                    this.busyReplicas.increment();
+                    busy = ex;
+                } else {
+                    replica.eject("cannot connect: " + ex.getMessage());
+                }
+            }
+        }
+        if (busy != null) {
+            throw busy;
+        }
+        this.fallbackReads.increment();
+        return this.primary.getConnection();
+    }
+
+    /**
+     * The replica pools hold their own credentials.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Read replicas only give connections of their own user");
+    }
+
+    /**
+     * Validates every replica, ejecting the unhealthy ones and readmitting the healthy ones.
+     */
+    public void check() {
+        for (Replica replica : this.replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(5)) {
+                    replica.eject("connection is not valid");
+                } else if (this.lagQuery != null && lag(connection) > this.maxLag.toSeconds()) {
+                    replica.eject("more than " + this.maxLag.toSeconds() + "s behind the primary");
+                } else {
+                    replica.admit();
+                }
+            } catch (SQLException | RuntimeException ex) {
+                replica.eject("check failed: " + ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        this.checker.shutdownNow();
+        for (Replica replica : this.replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ex) {
+                    logger.warn("Cannot close read replica {}", replica.name, ex);
+                }
+            }
+        }
+    }
+
+    @ManagedAttribute
+    public String getSelection() {
+        return this.selection.name();
+    }
+
+    /**
+     * @return the state of each replica: name, whether it is up and its connections in use
+     */
+    @ManagedAttribute
+    public List<String> getReplicas() {
+        return this.replicas.stream()
+            .map(replica -> replica.name + (replica.healthy.get() ? " up, " : " ejected, ") + replica.inUse.get() + " in use")
+            .toList();
+    }
+
+    @ManagedAttribute
+    public long getReplicaReads() {
+        return this.replicaReads.sum();
+    }
+
+    @ManagedAttribute
+    public long getStickyReads() {
+        return this.stickyReads.sum();
+    }
+
+    @ManagedAttribute
+    public long getFallbackReads() {
+        return this.fallbackReads.sum();
+    }
+
+    /**
+     * @return the reads sent to the primary because their result is to be cached
+     */
+    @ManagedAttribute
+    public long getPrimaryReads() {
+        return this.primaryReads.sum();
+    }
+
+    /**
+     * @return how many times a replica was skipped because its pool had no connection to spare
+     */
+    @ManagedAttribute
+    public long getBusyReplicas() {
+        return this.busyReplicas.sum();
+    }
+
+    /**
+     * @return the healthy replicas, in the order in which they are to be tried
+     */
+    private List<Replica> candidates() {
+        List<Replica> healthy = new ArrayList<>(this.replicas.size());
+        for (Replica replica : this.replicas) {
+            if (replica.healthy.get()) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.size() > 1) {
+            // rotated in both cases, so that replicas with as many connections in use take turns
+            int first = Math.floorMod(this.next.getAndIncrement(), healthy.size());
+            List<Replica> rotated = new ArrayList<>(healthy.subList(first, healthy.size()));
+            rotated.addAll(healthy.subList(0, first));
+            healthy = rotated;
+            if (this.selection == Selection.LEAST_CONNECTIONS) {
+                healthy.sort(Comparator.comparingInt(replica -> replica.inUse.get()));
+            }
+        }
+        return healthy;
+    }
+
+    /**
+     * Hikari reports an exhausted pool with a {@link SQLTransientConnectionException} whose cause is the last failure
+     * to open a connection, if any: without one the database is reachable and the pool merely saturated.
+     */
+    private static boolean isPoolExhausted(SQLException ex) {
+        return ex instanceof SQLTransientConnectionException && ex.getCause() == null;
+    }
+
+    private long lag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(this.lagQuery)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private final AtomicBoolean healthy = new AtomicBoolean(true);
+
+        private final AtomicInteger inUse = new AtomicInteger();
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * @return a connection that counts as in use until it is closed
+         */
+        private Connection open() throws SQLException {
+            Connection connection = this.dataSource.getConnection();
+            this.inUse.incrementAndGet();
+            return (Connection) Proxy.newProxyInstance(ReadReplicaDataSource.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new InUseHandler(connection, this.inUse));
+        }
+
+        private void eject(String reason) {
+            if (this.healthy.compareAndSet(true, false)) {
+                logger.warn("Read replica {} ejected, {}", this.name, reason);
+            }
+        }
+
+        private void admit() {
+            if (this.healthy.compareAndSet(false, true)) {
+                logger.info("Read replica {} is healthy again", this.name);
+            }
+        }
+    }
+
+    private static final class InUseHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        private final AtomicInteger inUse;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private InUseHandler(Connection target, AtomicInteger inUse) {
+            this.target = target;
+            this.inUse = inUse;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    if (this.closed.compareAndSet(false, true)) {
+                        this.inUse.decrementAndGet();
+                    }
+                    break;
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(this.target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        }
+    }
+}
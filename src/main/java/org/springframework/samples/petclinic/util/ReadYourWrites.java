@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.LongConsumer;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Remembers when the current thread last wrote to the primary database, so that its reads go to the primary too
+ * during <code>window</code> milliseconds (see {@link ReadReplicaDataSource}): replicas lag behind the primary, and
+ * a client reading right after a write must see it.
+ * <p/>
+ * A thread counts as having written when it takes a primary connection within a read-write transaction (see
+ * {@link #trackWrites(DataSource)}). For HTTP clients the time of the last write travels between requests (and
+ * application instances) in a cookie: the request filter passes it to {@link #begin(long, LongConsumer)} along with
+ * a callback that sets the cookie again on the next write, and calls {@link #end()} once the request is served. Writes
+ * made outside of <code>begin</code> and <code>end</code> (an import writer, a scheduled task) are not remembered, so
+ * that no state is left behind on pooled threads; a background task that reads its own writes calls them itself.
+ * <p/>
+ * Reads whose result outlives the client that asked for them also go to the primary, between
+ * {@link #beginPrimaryReads()} and {@link #endPrimaryReads(boolean)}: the results of <code>@Cacheable</code> methods
+ * (see {@link PrimaryCacheLoadAspect}) are served to every client, including one that has just written, for as long
+ * as they stay in the cache.
+ */
+public class ReadYourWrites {
+
+    private final ThreadLocal<Context> contexts = new ThreadLocal<>();
+
+    private final ThreadLocal<Boolean> primaryReads = new ThreadLocal<>();
+
+    private final long window;
+
+    /**
+     * @param window how long (in milliseconds) the reads of a thread go to the primary after it wrote
+     */
+    public ReadYourWrites(long window) {
+        this.window = window;
+    }
+
+    public long getWindow() {
+        return this.window;
+    }
+
+    /**
+     * Starts serving a client whose last write happened at <code>lastWrite</code> (epoch milliseconds, 0 if unknown).
+     *
+     * @param onWrite called with the time of each write made for this client until {@link #end()}
+     */
+    public void begin(long lastWrite, LongConsumer onWrite) {
+        // a time in the future (a forged cookie) would keep the client on the primary until then
+        this.contexts.set(new Context(Math.min(lastWrite, System.currentTimeMillis()), onWrite));
+    }
+
+    public void end() {
+        this.contexts.remove();
+    }
+
+    public void written() {
+        long now = System.currentTimeMillis();
+        Context context = this.contexts.get();
+        if (context == null) {
+            return;
+        }
+        context.lastWrite = now;
+        if (context.onWrite != null) {
+            context.onWrite.accept(now);
+        }
+    }
+
+    /**
+     * @return whether the current thread wrote less than <code>window</code> milliseconds ago
+     */
+    public boolean isSticky() {
+        Context context = this.contexts.get();
+        return context != null && System.currentTimeMillis() - context.lastWrite < this.window;
+    }
+
+    /**
+     * Sends the reads of the current thread to the primary until {@link #endPrimaryReads(boolean)}.
+     *
+     * @return whether they already went there, to be passed to <code>endPrimaryReads</code>
+     */
+    public boolean beginPrimaryReads() {
+        if (this.primaryReads.get() != null) {
+            return true;
+        }
+        this.primaryReads.set(Boolean.TRUE);
+        return false;
+    }
+
+    public void endPrimaryReads(boolean nested) {
+        if (!nested) {
+            this.primaryReads.remove();
+        }
+    }
+
+    /**
+     * @return whether the reads of the current thread are to go to the primary, between
+     * {@link #beginPrimaryReads()} and {@link #endPrimaryReads(boolean)}
+     */
+    public boolean isPrimaryReads() {
+        return this.primaryReads.get() != null;
+    }
+
+    /**
+     * @return the given primary DataSource, recording a write whenever a connection is taken from it within a
+     * transaction (read-only transactions go to the replicas, or to the primary through {@link ReadReplicaDataSource}
+     * without being recorded)
+     */
+    public DataSource trackWrites(DataSource primary) {
+        return new DelegatingDataSource(primary) {
+
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                    written();
+                }
+                return connection;
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                Connection connection = super.getConnection(username, password);
+                if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                    written();
+                }
+                return connection;
+            }
+        };
+    }
+
+    private static final class Context {
+
+        private long lastWrite;
+
+        private final LongConsumer onWrite;
+
+        private Context(long lastWrite, LongConsumer onWrite) {
+            this.lastWrite = lastWrite;
+            this.onWrite = onWrite;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Change counters of the resources served with an ETag (owners, pet types, specialties, vets), kept up to date by the
+ * writes of the service layer: a response computed at a given version can be revalidated later without reading it
+ * again, as long as the version has not moved.
+ * <p/>
+ * A write counts once its transaction has completed, so that a read overlapping it (and still seeing the data before
+ * it) is taken at the version before it too. A resource has a version as a whole, moved by writes that may affect all
+ * of its items, and a version per item, moved by writes to that item only; item versions are kept in
+ * {@value #STRIPES} stripes, so that a write to an item may also move the version of a few others (which are then
+ * just read again), in constant memory whatever the number of items.
+ */
+public class ResourceVersions {
+
+    private static final int STRIPES = 1024;
+
+    private final ConcurrentMap<String, Counters> resources = new ConcurrentHashMap<>();
+
+    /**
+     * @return the version of the whole resource
+     */
+    public long version(String resource) {
+        return counters(resource).all.get();
+    }
+
+    /**
+     * @return the version of an item of the resource, which also moves with the version of the whole resource
+     */
+    public long version(String resource, int id) {
+        Counters counters = counters(resource);
+        return counters.all.get() + counters.items.get(stripe(id));
+    }
+
+    /**
+     * Records a write that may affect every item of the resource.
+     */
+    public void changed(String resource) {
+        Counters counters = counters(resource);
+        afterCompletion(counters.all::incrementAndGet);
+    }
+
+    /**
+     * Records a write to a single item of the resource.
+     */
+    public void changed(String resource, int id) {
+        Counters counters = counters(resource);
+        afterCompletion(() -> counters.items.incrementAndGet(stripe(id)));
+    }
+
+    private Counters counters(String resource) {
+        Counters counters = this.resources.get(resource);
+        return counters != null ? counters : this.resources.computeIfAbsent(resource, name -> new Counters());
+    }
+
+    private static int stripe(int id) {
+        return Math.floorMod(id, STRIPES);
+    }
+
+    private static void afterCompletion(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // after a rollback too: the version moves for nothing, which only costs a read
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                @Override
+                public void afterCompletion(int status) {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private static final class Counters {
+
+        private final AtomicLong all = new AtomicLong();
+
+        private final AtomicLongArray items = new AtomicLongArray(STRIPES);
+    }
+}
@@ -0,0 +1,5 @@
+-- Visits of a period (visit_date) and of a pet in a period (pet_id, visit_date); the second index also serves the
+-- visits of a pet, so the one of initDB.sql on pet_id alone is dropped (the foreign key keeps its own).
+CREATE INDEX visits_visit_date ON visits (visit_date);
+CREATE INDEX visits_pet_id_visit_date ON visits (pet_id, visit_date);
+DROP INDEX visits_pet_id IF EXISTS;
@@ -0,0 +1,6 @@
+-- InnoDB creates an index for a foreign key that has none, named after the column: these named indexes replace the
+-- implicit ones of initDB.sql, so that the schema no longer depends on it (as in db/hsqldb/initDB.sql).
+CREATE INDEX visits_pet_id ON visits (pet_id);
+CREATE INDEX pets_owner_id ON pets (owner_id);
+CREATE INDEX pets_type_id ON pets (type_id);
+CREATE INDEX vet_specialties_specialty_id ON vet_specialties (specialty_id);
@@ -0,0 +1,5 @@
+-- Visits of a period (visit_date) and of a pet in a period (pet_id, visit_date); the second index also serves the
+-- foreign key and the visits of a pet, so the one of V2 on pet_id alone is dropped.
+CREATE INDEX visits_visit_date ON visits (visit_date);
+CREATE INDEX visits_pet_id_visit_date ON visits (pet_id, visit_date);
+DROP INDEX visits_pet_id ON visits;
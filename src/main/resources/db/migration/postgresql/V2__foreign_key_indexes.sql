@@ -0,0 +1,7 @@
+-- PostgreSQL does not index foreign key columns by itself: without these indexes the visits of a pet, the pets of an
+-- owner or of a type, the vets of a specialty and the roles of a user are found by reading the whole table.
+CREATE INDEX IF NOT EXISTS idx_visits_pet_id ON visits (pet_id);
+CREATE INDEX IF NOT EXISTS idx_pets_owner_id ON pets (owner_id);
+CREATE INDEX IF NOT EXISTS idx_pets_type_id ON pets (type_id);
+CREATE INDEX IF NOT EXISTS idx_vet_specialties_specialty_id ON vet_specialties (specialty_id);
+CREATE INDEX IF NOT EXISTS idx_roles_username ON roles (username);
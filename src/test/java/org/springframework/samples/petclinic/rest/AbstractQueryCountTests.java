@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Counts the SQL statements each read endpoint runs against the sample data, through the real {@link
+ * org.springframework.samples.petclinic.service.ClinicService}. Associations are lazy, so these counts are what the
+ * fetch plans of the repositories (named entity graphs on the entities) load in one go; a missing plan shows up as one
+ * extra statement per owner, pet or vet, or as a <code>LazyInitializationException</code> while serializing.
+ * <p>
+ * The application caches and the Hibernate second-level cache are cleared before each request so that the
+ * repositories always reach the database, except where a test checks what the second-level cache saves.
+ */
+@WithMockUser(roles = {"OWNER_ADMIN", "VET_ADMIN"})
+public abstract class AbstractQueryCountTests {
+
+    @Autowired
+    private OwnerRestController ownerRestController;
+
+    @Autowired
+    private PetRestController petRestController;
+
+    @Autowired
+    private VisitRestController visitRestController;
+
+    @Autowired
+    private VetRestController vetRestController;
+
+    @Autowired
+    private PetTypeRestController petTypeRestController;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private SessionFactory sessionFactory;
+
+    private Statistics statistics;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void initStatistics() {
+        this.mockMvc = MockMvcBuilders
+            .standaloneSetup(ownerRestController, petRestController, visitRestController, vetRestController,
+                petTypeRestController)
+            .setControllerAdvice(new ExceptionControllerAdvice())
+            .build();
+        this.sessionFactory = this.entityManagerFactory.unwrap(SessionFactory.class);
+        this.statistics = this.sessionFactory.getStatistics();
+        this.statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    public void ownerDetailShouldUseOneStatement() throws Exception {
+        assertThat(statementsFor("/api/owners/3")).isEqualTo(1);
+    }
+
+    @Test
+    public void ownerListShouldUseOneStatement() throws Exception {
+        assertThat(statementsFor("/api/owners")).isEqualTo(1);
+        assertThat(statementsFor("/api/owners/lastname/Davis")).isEqualTo(1);
+    }
+
+    @Test
+    public void ownerPageShouldSelectIdsThenOwners() throws Exception {
+        assertThat(statementsFor("/api/owners?limit=4&after=2")).isEqualTo(2);
+    }
+
+    @Test
+    public void petDetailShouldUseOneStatement() throws Exception {
+        assertThat(statementsFor("/api/pets/7")).isEqualTo(1);
+    }
+
+    @Test
+    public void petListShouldUseOneStatement() throws Exception {
+        assertThat(statementsFor("/api/pets")).isEqualTo(1);
+        assertThat(statementsFor("/api/pets?limit=5")).isEqualTo(2);
+    }
+
+    @Test
+    public void visitListShouldUseOneStatement() throws Exception {
+        assertThat(statementsFor("/api/visits")).isEqualTo(1);
+        assertThat(statementsFor("/api/visits?limit=2")).isEqualTo(1);
+        assertThat(statementsFor("/api/visits/1")).isEqualTo(1);
+    }
+
+    @Test
+    public void vetListShouldUseOneStatement() throws Exception {
+        assertThat(statementsFor("/api/vets")).isEqualTo(1);
+        assertThat(statementsFor("/api/vets/2")).isEqualTo(1);
+    }
+
+    @Test
+    public void referenceDataShouldComeFromTheSecondLevelCache() throws Exception {
+        for (String uri : new String[] {"/api/vets", "/api/vets/2", "/api/pets/pettypes", "/api/pettypes/1"}) {
+            assertThat(statementsFor(uri)).as(uri).isEqualTo(1);
+            assertThat(statementsFromSecondLevelCacheFor(uri)).as(uri).isZero();
+        }
+    }
+
+    private long statementsFor(String uri) throws Exception {
+        this.sessionFactory.getCache().evictAllRegions();
+        return statementsFromSecondLevelCacheFor(uri);
+    }
+
+    private long statementsFromSecondLevelCacheFor(String uri) throws Exception {
+        this.cacheManager.getCacheNames().forEach(name -> this.cacheManager.getCache(name).clear());
+        this.statistics.clear();
+        this.mockMvc.perform(get(uri).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+        return this.statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+@SpringBootTest
+public class ConnectionPoolRestControllerTests {
+
+    @Autowired
+    private ConnectionPoolRestController connectionPoolRestController;
+
+    @Autowired
+    private ClinicService clinicService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void initConnectionPools() {
+        this.mockMvc = MockMvcBuilders.standaloneSetup(connectionPoolRestController)
+            .setControllerAdvice(new ExceptionControllerAdvice())
+            .build();
+    }
+
+    @Test
+    public void testGetPoolStatistics() throws Exception {
+        this.mockMvc.perform(delete("/api/monitoring/pools"))
+            .andExpect(status().isNoContent());
+        this.clinicService.findOwnerByLastName("Davis");
+        this.mockMvc.perform(get("/api/monitoring/pools").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].pool").exists())
+            .andExpect(jsonPath("$[0].max").value(10))
+            .andExpect(jsonPath("$[0].acquisitions").value(greaterThanOrEqualTo(1)))
+            .andExpect(jsonPath("$[0].pendingThreads").value(0))
+            .andExpect(jsonPath("$[0].acquireP99Micros").exists());
+    }
+}
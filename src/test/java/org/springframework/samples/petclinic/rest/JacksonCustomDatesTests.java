@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Visit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class JacksonCustomDatesTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void shouldParseLikeSimpleDateFormat() throws Exception {
+        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy/MM/dd");
+        assertThat(JacksonCustomDates.parse("2013/01/03")).isEqualTo(simpleDateFormat.parse("2013/01/03"));
+        assertThat(JacksonCustomDates.parse("2013/1/3")).isEqualTo(simpleDateFormat.parse("2013/1/3"));
+        assertThat(JacksonCustomDates.parse(null)).isNull();
+        assertThatThrownBy(() -> JacksonCustomDates.parse("03-01-2013")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> JacksonCustomDates.parse("2013/13/01")).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void shouldSerializeUtilAndSqlDates() throws Exception {
+        Owner owner = new Owner();
+        owner.setId(1);
+        Pet pet = new Pet();
+        pet.setId(2);
+        pet.setName("Leo");
+        pet.setBirthDate(java.sql.Date.valueOf("2010-09-07"));
+        PetType petType = new PetType();
+        petType.setId(1);
+        petType.setName("cat");
+        pet.setType(petType);
+        owner.addPet(pet);
+        Visit visit = new Visit();
+        visit.setId(3);
+        visit.setDate(new SimpleDateFormat("yyyy/MM/dd").parse("2013/01/03"));
+        pet.addVisit(visit);
+
+        JsonNode json = this.mapper.readTree(this.mapper.writeValueAsString(owner));
+        assertThat(json.at("/pets/0/birthDate").asText()).isEqualTo("2010/09/07");
+        assertThat(json.at("/pets/0/visits/0/date").asText()).isEqualTo("2013/01/03");
+
+        Visit parsed = this.mapper.readValue(this.mapper.writeValueAsString(visit), Visit.class);
+        assertThat(parsed.getDate()).isEqualTo(visit.getDate());
+        assertThat(parsed.getPet().getBirthDate()).isEqualTo(new Date(pet.getBirthDate().getTime()));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class JacksonCustomDeserializerTests {
+
+    private static final String PET = "{\"id\":7,\"name\":\"Samantha\",\"birthDate\":\"2012/09/04\","
+        + "\"type\":{\"id\":1,\"name\":\"cat\"},"
+        + "\"owner\":{\"id\":6,\"firstName\":\"Jean\",\"lastName\":\"Coleman\",\"address\":\"105 N. Lake St.\","
+        + "\"city\":\"Monona\",\"telephone\":\"6085552654\",\"state\":\"WI\",\"zipCode\":\"53716\",\"pets\":[]},"
+        + "\"visits\":[]}";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void shouldReadNestedObjectsInAnyFieldOrder() throws Exception {
+        Visit visit = this.mapper.readValue(
+            "{\"pet\":" + PET + ",\"description\":\"rabies shot\",\"unknown\":[1,{\"a\":2}],\"date\":\"2013/01/01\",\"id\":1}",
+            Visit.class);
+
+        assertThat(visit.getId()).isEqualTo(1);
+        assertThat(visit.getDescription()).isEqualTo("rabies shot");
+        assertThat(visit.getDate()).isEqualTo(JacksonCustomDates.parse("2013/01/01"));
+        assertThat(visit.getPet().getId()).isEqualTo(7);
+        assertThat(visit.getPet().getName()).isEqualTo("Samantha");
+        assertThat(visit.getPet().getType().getName()).isEqualTo("cat");
+        assertThat(visit.getPet().getOwner().getLastName()).isEqualTo("Coleman");
+        assertThat(visit.getPet().getOwner().getZipCode()).isEqualTo("53716");
+    }
+
+    @Test
+    public void shouldResolveRepeatedPetsAndOwnersById() throws Exception {
+        String otherPet = PET.replace("\"id\":7,\"name\":\"Samantha\"", "\"id\":8,\"name\":\"Max\"");
+        List<Visit> visits = this.mapper.readValue("["
+                + "{\"id\":0,\"date\":\"2013/01/01\",\"description\":\"a\",\"pet\":" + PET + "},"
+                + "{\"id\":0,\"date\":\"2013/01/02\",\"description\":\"b\",\"pet\":" + PET + "},"
+                + "{\"id\":0,\"date\":\"2013/01/03\",\"description\":\"c\",\"pet\":" + otherPet + "}]",
+            new TypeReference<List<Visit>>() {
+            });
+
+        assertThat(visits).hasSize(3);
+        assertThat(visits.get(0).getId()).isNull();
+        assertThat(visits.get(2).getDescription()).isEqualTo("c");
+        Pet samantha = visits.get(0).getPet();
+        assertThat(visits.get(1).getPet()).isSameAs(samantha);
+        assertThat(visits.get(2).getPet().getName()).isEqualTo("Max");
+        assertThat(visits.get(2).getPet().getOwner()).isSameAs(samantha.getOwner());
+        assertThat(visits.get(2).getPet().getType()).isSameAs(samantha.getType());
+
+        Visit next = this.mapper.readValue("{\"date\":\"2013/01/04\",\"pet\":" + PET + "}", Visit.class);
+        assertThat(next.getPet()).isNotSameAs(samantha);
+    }
+}
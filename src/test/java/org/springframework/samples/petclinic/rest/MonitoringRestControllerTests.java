@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+@SpringBootTest
+public class MonitoringRestControllerTests {
+
+    @Autowired
+    private MonitoringRestController monitoringRestController;
+
+    @Autowired
+    private ClinicService clinicService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void initMonitoring() {
+        this.mockMvc = MockMvcBuilders.standaloneSetup(monitoringRestController)
+            .setControllerAdvice(new ExceptionControllerAdvice())
+            .build();
+    }
+
+    @Test
+    public void testGetCallStatistics() throws Exception {
+        this.mockMvc.perform(delete("/api/monitoring/calls"))
+            .andExpect(status().isNoContent());
+        this.clinicService.findOwnerByLastName("Davis");
+        this.mockMvc.perform(get("/api/monitoring/calls").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].method").value(startsWith("SpringDataOwnerRepository.")))
+            .andExpect(jsonPath("$[0].calls").value(1))
+            .andExpect(jsonPath("$[0].p99Micros").exists())
+            .andExpect(jsonPath("$[*].method").value(hasItem("SpringDataOwnerRepository.findByLastName")));
+    }
+}
@@ -18,15 +18,25 @@
 
 package org.springframework.samples.petclinic.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -38,12 +48,20 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.config.CacheConfig;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.service.OwnerImportResult;
+import org.springframework.samples.petclinic.service.OwnerImportService;
+import org.springframework.samples.petclinic.service.OwnerSearchService;
+import org.springframework.samples.petclinic.util.ResourceVersions;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.FileCopyUtils;
 
 @SpringBootTest
 public class OwnerRestControllerTests {
@@ -54,9 +72,18 @@ public class OwnerRestControllerTests {
     @MockBean
     private ClinicService clinicService;
 
+    @MockBean
+    private OwnerImportService ownerImportService;
+
+    @MockBean
+    private OwnerSearchService ownerSearchService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ResourceVersions resourceVersions;
+
     private MockMvc mockMvc;
 
     private List<Owner> owners;
@@ -127,6 +154,46 @@ public class OwnerRestControllerTests {
             .andExpect(jsonPath("$.firstName").value("George"));
     }
 
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testGetOwnerNotModified() throws Exception {
+        Owner owner = owners.get(0);
+        given(this.clinicService.findOwnerById(1)).willReturn(owner);
+
+        String etag = this.mockMvc.perform(get("/api/owners/1")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        this.mockMvc.perform(get("/api/owners/1")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().string(""));
+        verify(this.clinicService, times(1)).findOwnerById(1);
+
+        // a write to the owner moves its version: read again, and tagged again since it changed
+        owner.setCity("Monona");
+        this.resourceVersions.changed(CacheConfig.OWNERS, 1);
+        String changed = this.mockMvc.perform(get("/api/owners/1")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.city").value("Monona"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(etag);
+        verify(this.clinicService, times(2)).findOwnerById(1);
+
+        // moved but unchanged: read again, still not modified
+        this.resourceVersions.changed(CacheConfig.OWNERS);
+        this.mockMvc.perform(get("/api/owners/1")
+                .header(HttpHeaders.IF_NONE_MATCH, changed)
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotModified());
+        verify(this.clinicService, times(3)).findOwnerById(1);
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     public void testGetOwnerNotFound() throws Exception {
@@ -195,6 +262,31 @@ public class OwnerRestControllerTests {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testGetOwnersPageWithNextCursor() throws Exception {
+        given(this.clinicService.findOwnersAfter(1, 2)).willReturn(owners.subList(1, 3));
+
+        this.mockMvc.perform(get("/api/owners?after=1&limit=2")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Next-Cursor", "3"))
+            .andExpect(jsonPath("$.[0].id").value(2))
+            .andExpect(jsonPath("$.[1].id").value(3));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testGetOwnersLastPage() throws Exception {
+        given(this.clinicService.findOwnersAfter(3, 2)).willReturn(owners.subList(3, 4));
+
+        this.mockMvc.perform(get("/api/owners?after=3&limit=2")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Next-Cursor"))
+            .andExpect(jsonPath("$.[0].id").value(4));
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     public void testCreateOwnerSuccess() throws Exception {
@@ -229,9 +321,12 @@ public class OwnerRestControllerTests {
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     public void testUpdateOwnerSuccess() throws Exception {
-        given(this.clinicService.findOwnerById(1)).willReturn(owners.get(0));
+        Owner cachedOwner = owners.get(0);
+        Owner ownerForUpdate = objectMapper.readValue(objectMapper.writeValueAsString(cachedOwner), Owner.class);
+        given(this.clinicService.findOwnerById(1)).willReturn(cachedOwner);
+        given(this.clinicService.findOwnerByIdForUpdate(1)).willReturn(ownerForUpdate);
 
-        Owner newOwner = owners.get(0);
+        Owner newOwner = objectMapper.readValue(objectMapper.writeValueAsString(cachedOwner), Owner.class);
         newOwner.setFirstName("George I");
 
         String newOwnerAsJSON = objectMapper.writeValueAsString(newOwner);
@@ -243,13 +338,11 @@ public class OwnerRestControllerTests {
             .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
             .andExpect(status().isNoContent());
 
-        this.mockMvc.perform(get("/api/owners/1")
-                .accept(MediaType.APPLICATION_JSON)
-                .contentType(MediaType.APPLICATION_JSON))
-            .andExpect(status().isOk())
-            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
-            .andExpect(jsonPath("$.id").value(1))
-            .andExpect(jsonPath("$.firstName").value("George I"));
+        // the update is applied to an uncached copy: concurrent readers never see the cached owner half updated
+        verify(this.clinicService).saveOwner(ownerForUpdate);
+        verify(this.clinicService, never()).findOwnerById(1);
+        assertThat(ownerForUpdate.getFirstName()).isEqualTo("George I");
+        assertThat(cachedOwner.getFirstName()).isEqualTo("George");
     }
 
     @Test
@@ -296,4 +389,80 @@ public class OwnerRestControllerTests {
                 .contentType(MediaType.APPLICATION_JSON))
             .andExpect(status().isNotFound());
     }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testImportOwnersFromCsv() throws Exception {
+        String csv = "first_name,last_name,address,city,state,zip_code,telephone\n" +
+            "Zoë,Müller,1 Main St.,Madison,Wisconsin,53703,6085551234\n";
+        OwnerImportResult result = mock(OwnerImportResult.class);
+        given(result.getOwners()).willReturn(1);
+        given(result.getErrors()).willReturn(List.of(new OwnerImportResult.Error(3, "zipCode: Invalid zip code")));
+        given(this.ownerImportService.importOwners(any(Reader.class))).willAnswer(invocation -> {
+            assertThat(FileCopyUtils.copyToString(invocation.<Reader>getArgument(0))).isEqualTo(csv);
+            return result;
+        });
+
+        this.mockMvc.perform(post("/api/owners/import")
+                .content(csv.getBytes(StandardCharsets.UTF_8))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType("text/csv"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.owners").value(1))
+            .andExpect(jsonPath("$.errors[0].line").value(3))
+            .andExpect(jsonPath("$.errors[0].message").value("zipCode: Invalid zip code"));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testSearchOwnersSuccess() throws Exception {
+        given(this.clinicService.findOwnerSummariesByLastName("Fra")).willReturn(List.of(
+            new OwnerSummary(1, "George", "Franklin", "110 W. Liberty St.", "Madison", "6085551023", List.of("Leo"))));
+
+        this.mockMvc.perform(get("/api/owners/search?lastName=Fra")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$[0].id").value(1))
+            .andExpect(jsonPath("$[0].lastName").value("Franklin"))
+            .andExpect(jsonPath("$[0].pets[0]").value("Leo"))
+            .andExpect(jsonPath("$[0].state").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testSearchOwnersNotFound() throws Exception {
+        given(this.clinicService.findOwnerSummariesByLastName("Zzz")).willReturn(List.of());
+
+        this.mockMvc.perform(get("/api/owners/search?lastName=Zzz")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testSearchOwnersByTextSuccess() throws Exception {
+        given(this.ownerSearchService.search("madison leo", OwnerRestController.MAX_SEARCH_LIMIT)).willReturn(List.of(
+            new OwnerSummary(1, "George", "Franklin", "110 W. Liberty St.", "Madison", "6085551023", List.of("Leo"))));
+
+        this.mockMvc.perform(get("/api/owners/search").param("q", "madison leo").param("limit", "1000")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$[0].id").value(1))
+            .andExpect(jsonPath("$[0].city").value("Madison"))
+            .andExpect(jsonPath("$[0].pets[0]").value("Leo"));
+        verify(this.clinicService, never()).findOwnerSummariesByLastName(anyString());
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testSearchOwnersByTextNotFound() throws Exception {
+        given(this.ownerSearchService.search("zzz", 20)).willReturn(List.of());
+
+        this.mockMvc.perform(get("/api/owners/search?q=zzz")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound());
+    }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.samples.petclinic.util.ReadYourWrites;
+
+public class ReadYourWritesFilterTests {
+
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(5_000);
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(this.readYourWrites);
+
+    @Test
+    public void shouldSetTheCookieOnWrite() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean[] sticky = new boolean[2];
+
+        this.filter.doFilter(new MockHttpServletRequest("POST", "/api/visits"), response, new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                sticky[0] = readYourWrites.isSticky();
+                readYourWrites.written();
+                sticky[1] = readYourWrites.isSticky();
+            }
+        });
+
+        assertThat(sticky).containsExactly(false, true);
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.COOKIE);
+        assertThat(cookie).isNotNull();
+        assertThat(Long.parseLong(cookie.getValue())).isCloseTo(System.currentTimeMillis(), within(5_000L));
+        assertThat(cookie.getMaxAge()).isEqualTo(5);
+        assertThat(this.readYourWrites.isSticky()).isFalse();
+    }
+
+    @Test
+    public void shouldStayOnThePrimaryWithinTheWindowOfTheCookie() throws Exception {
+        boolean[] sticky = new boolean[1];
+        MockHttpServletRequest recent = new MockHttpServletRequest("GET", "/api/visits");
+        recent.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(System.currentTimeMillis() - 1_000)));
+        this.filter.doFilter(recent, new MockHttpServletResponse(), (request, response) -> sticky[0] = this.readYourWrites.isSticky());
+        assertThat(sticky[0]).isTrue();
+
+        MockHttpServletRequest old = new MockHttpServletRequest("GET", "/api/visits");
+        old.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(System.currentTimeMillis() - 10_000)));
+        this.filter.doFilter(old, new MockHttpServletResponse(), (request, response) -> sticky[0] = this.readYourWrites.isSticky());
+        assertThat(sticky[0]).isFalse();
+
+        MockHttpServletRequest forged = new MockHttpServletRequest("GET", "/api/visits");
+        forged.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, "not a time"));
+        this.filter.doFilter(forged, new MockHttpServletResponse(), (request, response) -> sticky[0] = this.readYourWrites.isSticky());
+        assertThat(sticky[0]).isFalse();
+    }
+}
@@ -18,6 +18,8 @@
 package org.springframework.samples.petclinic.rest;
 
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -32,6 +34,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.service.ClinicService;
@@ -128,6 +131,27 @@ public class VetRestControllerTests {
             .andExpect(jsonPath("$.[1].firstName").value("Helen"));
     }
 
+    @Test
+    @WithMockUser(roles = "VET_ADMIN")
+    public void testGetAllVetsNotModified() throws Exception {
+        given(this.clinicService.findAllVets()).willReturn(vets);
+
+        String etag = this.mockMvc.perform(get("/api/vets")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        this.mockMvc.perform(get("/api/vets")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0123\", " + etag)
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotModified());
+        this.mockMvc.perform(get("/api/vets")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0123\"")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, etag));
+        verify(this.clinicService, times(2)).findAllVets();
+    }
+
     @Test
     @WithMockUser(roles = "VET_ADMIN")
     public void testGetAllVetsNotFound() throws Exception {
@@ -16,15 +16,20 @@
 
 package org.springframework.samples.petclinic.rest;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -43,6 +48,8 @@ import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.service.VisitImportResult;
+import org.springframework.samples.petclinic.service.VisitImportService;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -56,6 +63,9 @@ public class VisitRestControllerTests {
     @MockBean
     private ClinicService clinicService;
 
+    @MockBean
+    private VisitImportService visitImportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -156,6 +166,55 @@ public class VisitRestControllerTests {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testGetVisitsByDateRange() throws Exception {
+        given(this.clinicService.findVisitsByDateRange(LocalDate.of(2013, 1, 1), 0, LocalDate.of(2013, 12, 31),
+            KeysetPage.DEFAULT_LIMIT)).willReturn(visits);
+        given(this.clinicService.findVisitsByPetIdAndDateRange(8, LocalDate.of(2013, 1, 1), 0, LocalDate.of(2013, 1, 31),
+            KeysetPage.DEFAULT_LIMIT)).willReturn(visits.subList(1, 2));
+
+        this.mockMvc.perform(get("/api/visits?from=2013/01/01&to=2013/12/31")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(KeysetPage.NEXT_CURSOR_HEADER))
+            .andExpect(jsonPath("$.[0].id").value(2))
+            .andExpect(jsonPath("$.[1].id").value(3));
+        this.mockMvc.perform(get("/api/visits?petId=8&from=2013/01/01&to=2013/01/31")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(3));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testGetVisitsByDateRangePage() throws Exception {
+        Visit last = visits.get(1);
+        last.setDate(java.sql.Date.valueOf(LocalDate.of(2013, 1, 3)));
+        given(this.clinicService.findVisitsByDateRange(LocalDate.of(2013, 1, 2), 2, LocalDate.of(2013, 12, 31), 2))
+            .willReturn(visits);
+
+        this.mockMvc.perform(get("/api/visits?from=2013/01/01&to=2013/12/31&limit=2&after=2013-01-02,2")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string(KeysetPage.NEXT_CURSOR_HEADER, "2013-01-03,3"))
+            .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testGetVisitsByDateRangeBadRequest() throws Exception {
+        this.mockMvc.perform(get("/api/visits?from=2013/01/01").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/api/visits?from=2013/02/01&to=2013/01/01").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/api/visits?from=2013/01/01&to=2013/01/31&after=3").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/api/visits?after=2013-01-02,2").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     public void testCreateVisitSuccess() throws Exception {
@@ -171,6 +230,30 @@ public class VisitRestControllerTests {
             .andExpect(status().isCreated());
     }
 
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testCreateVisitsInBulk() throws Exception {
+        VisitImportResult result = mock(VisitImportResult.class);
+        given(result.getCreated()).willReturn(1);
+        given(result.getFailed()).willReturn(1);
+        given(result.getItems()).willReturn(List.of(
+            new VisitImportResult.Item(0, VisitImportResult.Status.CREATED, 42, null),
+            new VisitImportResult.Item(1, VisitImportResult.Status.INVALID, null, "description: may not be empty")));
+        given(this.visitImportService.importVisits(any(InputStream.class))).willReturn(result);
+
+        this.mockMvc.perform(post("/api/visits/bulk")
+                .content("{\"description\":\"a\",\"pet\":{\"id\":7}}\n{\"description\":\"\",\"pet\":{\"id\":7}}\n")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_NDJSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.created").value(1))
+            .andExpect(jsonPath("$.failed").value(1))
+            .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+            .andExpect(jsonPath("$.items[0].id").value(42))
+            .andExpect(jsonPath("$.items[1].error").value("description: may not be empty"));
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     public void testCreateVisitError() throws Exception {
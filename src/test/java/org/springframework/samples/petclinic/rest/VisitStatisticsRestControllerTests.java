@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.service.VisitStatistics;
+import org.springframework.samples.petclinic.service.VisitStatistics.Group;
+import org.springframework.samples.petclinic.service.VisitStatistics.Grouping;
+import org.springframework.samples.petclinic.service.VisitStatisticsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+@SpringBootTest
+public class VisitStatisticsRestControllerTests {
+
+    @Autowired
+    private VisitStatisticsRestController visitStatisticsRestController;
+
+    @MockBean
+    private VisitStatisticsService visitStatisticsService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void initVisitStatistics() {
+        this.mockMvc = MockMvcBuilders.standaloneSetup(visitStatisticsRestController)
+            .setControllerAdvice(new ExceptionControllerAdvice())
+            .build();
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testCountVisitsByPetType() throws Exception {
+        LocalDate from = LocalDate.of(2013, 1, 1);
+        LocalDate to = LocalDate.of(2013, 1, 31);
+        given(this.visitStatisticsService.countVisits(Grouping.PET_TYPE, from, to)).willReturn(new VisitStatistics(
+            Grouping.PET_TYPE, from, to, 3, List.of(new Group("cat", 2), new Group("dog", 1))));
+        this.mockMvc.perform(get("/api/stats/visits?groupBy=petType&from=2013/01/01&to=2013/01/31")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.groupBy").value("petType"))
+            .andExpect(jsonPath("$.from").value("2013/01/01"))
+            .andExpect(jsonPath("$.total").value(3))
+            .andExpect(jsonPath("$.groups[0].key").value("cat"))
+            .andExpect(jsonPath("$.groups[0].visits").value(2))
+            .andExpect(jsonPath("$.groups[1].key").value("dog"));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testCountVisitsByDayWithoutRange() throws Exception {
+        given(this.visitStatisticsService.countVisits(Grouping.DAY, null, null)).willReturn(new VisitStatistics(
+            Grouping.DAY, null, null, 0, List.of()));
+        this.mockMvc.perform(get("/api/stats/visits").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.groupBy").value("day"))
+            .andExpect(jsonPath("$.total").value(0));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    public void testCountVisitsBadRequest() throws Exception {
+        this.mockMvc.perform(get("/api/stats/visits?groupBy=specialty").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/api/stats/visits?from=2013/02/01&to=2013/01/01").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        verifyNoInteractions(this.visitStatisticsService);
+    }
+}
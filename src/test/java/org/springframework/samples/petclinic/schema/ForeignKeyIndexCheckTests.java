@@ -0,0 +1,88 @@
+package org.springframework.samples.petclinic.schema;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.samples.petclinic.schema.ForeignKeyIndexCheck.ForeignKey;
+
+/**
+ * Migrates private in-memory databases the way the application does at startup, then checks their foreign keys.
+ */
+public class ForeignKeyIndexCheckTests {
+
+    private EmbeddedDatabase database;
+
+    @AfterEach
+    public void shutdown() {
+        if (this.database != null) {
+            this.database.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldMigrateAnEmptyDatabaseWithEveryForeignKeyIndexed() {
+        this.database = new EmbeddedDatabaseBuilder()
+            .generateUniqueName(true)
+            .setType(EmbeddedDatabaseType.HSQL)
+            .build();
+
+        Flyway flyway = flyway();
+        flyway.migrate();
+
+        assertThat(flyway.info().applied()).extracting(MigrationInfo::getVersion)
+            .containsExactly(InitialSchemaMigration.VERSION, MigrationVersion.fromVersion("3"));
+        List<ForeignKey> foreignKeys = new ForeignKeyIndexCheck(this.database).findForeignKeys();
+        assertThat(foreignKeys).extracting(ForeignKey::toString).containsExactlyInAnyOrder(
+            "pets(owner_id) -> owners", "pets(type_id) -> types", "visits(pet_id) -> pets",
+            "vet_specialties(vet_id) -> vets", "vet_specialties(specialty_id) -> specialties",
+            "roles(username) -> users");
+        assertThat(foreignKeys).allMatch(ForeignKey::indexed);
+    }
+
+    @Test
+    public void shouldBaselineADatabaseCreatedFromTheInitScript() {
+        this.database = new EmbeddedDatabaseBuilder()
+            .generateUniqueName(true)
+            .setType(EmbeddedDatabaseType.HSQL)
+            .addScripts("db/hsqldb/initDB.sql", "db/hsqldb/populateDB.sql")
+            .build();
+
+        Flyway flyway = flyway();
+        flyway.migrate();
+
+        MigrationInfo[] applied = flyway.info().applied();
+        assertThat(applied).extracting(MigrationInfo::getVersion)
+            .containsExactly(InitialSchemaMigration.VERSION, MigrationVersion.fromVersion("3"));
+        assertThat(applied[0].getType().isBaseline()).isTrue();
+    }
+
+    @Test
+    public void shouldMatchForeignKeysWithTheLeadingColumnsOfAnIndex() {
+        List<List<String>> indexes = List.of(List.of("id"), List.of("role", "username"), List.of("vet_id", "specialty_id"));
+
+        assertThat(ForeignKeyIndexCheck.isIndexed(List.of("vet_id"), indexes)).isTrue();
+        assertThat(ForeignKeyIndexCheck.isIndexed(List.of("username", "role"), indexes)).isTrue();
+        assertThat(ForeignKeyIndexCheck.isIndexed(List.of("specialty_id"), indexes)).isFalse();
+        assertThat(ForeignKeyIndexCheck.isIndexed(List.of("username"), indexes)).isFalse();
+        assertThat(ForeignKeyIndexCheck.isIndexed(List.of("owner_id"), List.of())).isFalse();
+    }
+
+    private Flyway flyway() {
+        return Flyway.configure()
+            .dataSource(this.database)
+            .locations("classpath:db/migration/hsqldb")
+            .javaMigrations(new InitialSchemaMigration())
+            .baselineOnMigrate(true)
+            .baselineVersion("1")
+            .load();
+    }
+}
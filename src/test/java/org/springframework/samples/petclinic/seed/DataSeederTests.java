@@ -0,0 +1,77 @@
+package org.springframework.samples.petclinic.seed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Runs the seeder against a private in-memory database so that the shared test data stays untouched.
+ */
+public class DataSeederTests {
+
+    private EmbeddedDatabase database;
+
+    @AfterEach
+    public void shutdown() {
+        this.database.shutdown();
+    }
+
+    @Test
+    public void shouldAppendSyntheticDataAfterExistingRows() {
+        this.database = new EmbeddedDatabaseBuilder()
+            .generateUniqueName(true)
+            .setType(EmbeddedDatabaseType.HSQL)
+            .addScripts("db/hsqldb/initDB.sql", "db/hsqldb/populateDB.sql")
+            .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(this.database);
+        int owners = count(jdbcTemplate, "owners");
+        int pets = count(jdbcTemplate, "pets");
+        int visits = count(jdbcTemplate, "visits");
+        int vets = count(jdbcTemplate, "vets");
+
+        long seeded = seeder().seed(new SeedPlan(25, 2, 3, 4, 3, 5, 7, 3));
+
+        assertThat(seeded).isEqualTo(150);
+        assertThat(count(jdbcTemplate, "owners")).isEqualTo(owners + 25);
+        assertThat(count(jdbcTemplate, "pets")).isEqualTo(pets + 50);
+        assertThat(count(jdbcTemplate, "visits")).isEqualTo(visits + 150);
+        assertThat(count(jdbcTemplate, "vets")).isEqualTo(vets + 4);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM pets p LEFT JOIN owners o ON o.id = p.owner_id WHERE o.id IS NULL", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM visits v LEFT JOIN pets p ON p.id = v.pet_id WHERE p.id IS NULL", Integer.class)).isZero();
+
+        // identity sequences continue after the seeded ids
+        jdbcTemplate.update("INSERT INTO owners (first_name, last_name, address, city, telephone) VALUES ('a', 'b', 'c', 'd', '1')");
+        assertThat(jdbcTemplate.queryForObject("SELECT MAX(id) FROM owners", Integer.class)).isEqualTo(owners + 26);
+    }
+
+    @Test
+    public void shouldCreateMissingSchemaFromInitScript() {
+        this.database = new EmbeddedDatabaseBuilder()
+            .generateUniqueName(true)
+            .setType(EmbeddedDatabaseType.HSQL)
+            .build();
+
+        seeder().seed(new SeedPlan(3, 1, 1, 0, 0, 2, 1000, 1));
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(this.database);
+        assertThat(count(jdbcTemplate, "owners")).isEqualTo(3);
+        assertThat(count(jdbcTemplate, "types")).isEqualTo(2);
+    }
+
+    private DataSeeder seeder() {
+        return new DataSeeder(this.database, new DataSourceTransactionManager(this.database), NamePools.load());
+    }
+
+    private static int count(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+}
@@ -36,28 +36,85 @@
 package org.springframework.samples.petclinic.service.clinicService;
 
 import static org.assertj.core.api.Assertions.assertThat;
-
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+
+import javax.sql.DataSource;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.config.CacheConfig;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.service.OwnerImportResult;
+import org.springframework.samples.petclinic.service.OwnerImportService;
+import org.springframework.samples.petclinic.service.OwnerSearchService;
+import org.springframework.samples.petclinic.service.VisitImportResult;
+import org.springframework.samples.petclinic.service.VisitImportResult.Status;
+import org.springframework.samples.petclinic.service.VisitImportService;
+import org.springframework.samples.petclinic.service.VisitStatistics;
+import org.springframework.samples.petclinic.service.VisitStatistics.Group;
+import org.springframework.samples.petclinic.service.VisitStatistics.Grouping;
+import org.springframework.samples.petclinic.service.VisitStatisticsService;
 import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.ResourceVersions;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 public abstract class AbstractClinicServiceTests {
 
     @Autowired
     protected ClinicService clinicService;
 
+    @Autowired
+    protected VisitImportService visitImportService;
+
+    @Autowired
+    protected OwnerImportService ownerImportService;
+
+    @Autowired
+    protected OwnerSearchService ownerSearchService;
+
+    @Autowired
+    protected VisitStatisticsService visitStatisticsService;
+
+    @Autowired
+    protected ResourceVersions resourceVersions;
+
+    @Autowired
+    protected PlatformTransactionManager transactionManager;
+
+    @Autowired
+    protected CacheManager cacheManager;
+
+    @Autowired
+    protected DataSource dataSource;
+
+    @Value("${petclinic.visits.bulk.chunk-size:1000}")
+    protected int visitChunkSize;
+
     @BeforeEach
     public void init() {
         // Nenhuma inicialização necessária: usamos o ClinicService real do contexto de teste.
@@ -73,6 +130,118 @@ public abstract class AbstractClinicServiceTests {
         assertThat(owners.isEmpty()).isTrue();
     }
 
+    @Test
+    public void shouldFindOwnerSummariesByLastName() {
+        Collection<OwnerSummary> summaries = this.clinicService.findOwnerSummariesByLastName("Davis");
+        Collection<Owner> owners = this.clinicService.findOwnerByLastName("Davis");
+
+        assertThat(summaries).extracting(OwnerSummary::firstName).containsExactly("Betty", "Harold");
+        for (OwnerSummary summary : summaries) {
+            Owner owner = EntityUtils.getById(owners, Owner.class, summary.id());
+            assertThat(summary.lastName()).isEqualTo("Davis");
+            assertThat(summary.address()).isEqualTo(owner.getAddress());
+            assertThat(summary.telephone()).isEqualTo(owner.getTelephone());
+            assertThat(summary.pets()).containsExactlyElementsOf(owner.getPets().stream().map(Pet::getName).toList());
+        }
+
+        assertThat(this.clinicService.findOwnerSummariesByLastName("Daviss")).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    public void shouldFindOwnerSummaryWithoutPets() {
+        Owner owner = new Owner();
+        owner.setFirstName("Sam");
+        owner.setLastName("Schultz");
+        owner.setAddress("4, Evans Street");
+        owner.setCity("Wollongong");
+        owner.setState("Wisconsin");
+        owner.setZipCode("53703");
+        owner.setTelephone("4444444444");
+        this.clinicService.saveOwner(owner);
+
+        Collection<OwnerSummary> summaries = this.clinicService.findOwnerSummariesByLastName("Schultz");
+
+        assertThat(summaries).containsExactly(new OwnerSummary(owner.getId(), "Sam", "Schultz", "4, Evans Street",
+            "Wollongong", "4444444444", List.of()));
+    }
+
+    @Test
+    public void shouldSearchOwnersByText() {
+        this.ownerSearchService.awaitIndexing();
+        assertThat(this.ownerSearchService.search("george franklin", 10)).extracting(OwnerSummary::id).containsExactly(1);
+        assertThat(this.ownerSearchService.search("Franklim", 10)).extracting(OwnerSummary::lastName).containsExactly("Franklin");
+        assertThat(this.ownerSearchService.search("fran", 10)).extracting(OwnerSummary::lastName).contains("Franklin");
+        assertThat(this.ownerSearchService.search("608555102", 10)).extracting(OwnerSummary::id).containsExactly(1);
+        assertThat(this.ownerSearchService.search("MADISON", 100)).extracting(OwnerSummary::city).containsOnly("Madison")
+            .hasSizeGreaterThan(1);
+        assertThat(this.ownerSearchService.search("leo", 10)).singleElement()
+            .isEqualTo(new OwnerSummary(1, "George", "Franklin", "110 W. Liberty St.", "Madison", "6085551023", List.of("Leo")));
+        assertThat(this.ownerSearchService.search("madison", 2)).hasSize(2);
+        assertThat(this.ownerSearchService.search("franklin zzzz", 10)).isEmpty();
+        assertThat(this.ownerSearchService.search(" ,. ", 10)).isEmpty();
+    }
+
+    @Test
+    public void shouldKeepTheSearchIndexUpToDate() {
+        Owner owner = new Owner();
+        owner.setFirstName("Zuleika");
+        owner.setLastName("Quackenbush");
+        owner.setAddress("12 Ringling Ave.");
+        owner.setCity("Baraboo");
+        owner.setState("Wisconsin");
+        owner.setZipCode("53913");
+        owner.setTelephone("6083561234");
+        this.clinicService.saveOwner(owner);
+        try {
+            this.ownerSearchService.awaitIndexing();
+            assertThat(this.ownerSearchService.search("quackenbush baraboo", 10)).extracting(OwnerSummary::id)
+                .containsExactly(owner.getId());
+
+            Pet pet = new Pet();
+            pet.setName("Wobbles");
+            pet.setType(this.clinicService.findPetTypeById(2));
+            pet.setBirthDate(new Date());
+            owner.addPet(pet);
+            this.clinicService.savePet(pet);
+            this.ownerSearchService.awaitIndexing();
+            assertThat(this.ownerSearchService.search("wobbles", 10)).singleElement()
+                .satisfies(summary -> assertThat(summary.pets()).containsExactly("Wobbles"));
+
+            owner = this.clinicService.findOwnerById(owner.getId());
+            owner.setLastName("Quist");
+            this.clinicService.saveOwner(owner);
+            this.ownerSearchService.awaitIndexing();
+            assertThat(this.ownerSearchService.search("quackenbush", 10)).isEmpty();
+            assertThat(this.ownerSearchService.search("zuleika quist", 10)).hasSize(1);
+
+            this.clinicService.deletePet(this.clinicService.findPetById(pet.getId()));
+            this.ownerSearchService.awaitIndexing();
+            assertThat(this.ownerSearchService.search("wobbles", 10)).isEmpty();
+        } finally {
+            this.clinicService.deleteOwner(this.clinicService.findOwnerById(owner.getId()));
+        }
+        this.ownerSearchService.awaitIndexing();
+        assertThat(this.ownerSearchService.search("zuleika", 10)).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    public void shouldNotIndexRolledBackOwners() {
+        Owner owner = new Owner();
+        owner.setFirstName("Zuleika");
+        owner.setLastName("Quackenbush");
+        owner.setAddress("12 Ringling Ave.");
+        owner.setCity("Baraboo");
+        owner.setState("Wisconsin");
+        owner.setZipCode("53913");
+        owner.setTelephone("6083561234");
+        this.clinicService.saveOwner(owner);
+
+        // indexado só depois do commit, que aqui nunca acontece
+        assertThat(this.ownerSearchService.search("quackenbush", 10)).isEmpty();
+    }
+
     @Test
     public void shouldFindSingleOwnerWithPet() {
         Owner owner = this.clinicService.findOwnerById(1);
@@ -237,6 +406,18 @@ public abstract class AbstractClinicServiceTests {
         assertThat(visit3.getPet().getName()).isEqualTo("Max");
     }
 
+    @Test
+    public void shouldShareVisitPetOwnerAndType() {
+        Collection<Visit> visits = this.clinicService.findAllVisits();
+        Visit visit2 = EntityUtils.getById(visits, Visit.class, 2);
+        Visit visit3 = EntityUtils.getById(visits, Visit.class, 3);
+        assertThat(visit3.getPet()).isSameAs(visit2.getPet());
+        assertThat(visit3.getPet().getType().getName()).isEqualTo("cat");
+        assertThat(visit3.getPet().getOwner().getLastName()).isEqualTo("Coleman");
+        Visit visit1 = EntityUtils.getById(visits, Visit.class, 1);
+        assertThat(visit1.getPet().getOwner()).isSameAs(visit3.getPet().getOwner());
+    }
+
     @Test
     @Transactional
     public void shouldInsertVisit() {
@@ -257,6 +438,148 @@ public abstract class AbstractClinicServiceTests {
         assertThat(visits.size()).isEqualTo(found + 1);
     }
 
+    @Test
+    @Transactional
+    public void shouldImportVisitsInBulk() throws Exception {
+        int found = this.clinicService.findVisitsByPetId(7).size();
+        String ndjson = """
+            {"date":"2024/01/15","description":"rabies shot","pet":{"id":7,"name":"Samantha"}}
+            {"date":"2024/01/16","description":"","pet":{"id":7}}
+            {"date":"2024/13/01","description":"bad date","pet":{"id":7}}
+            {"date":"2024/01/17","description":"booster","pet":{"id":7}}
+            {"id":1,"date":"2013/01/01","description":"rabies shot (updated)","pet":{"id":7}}
+            """;
+
+        VisitImportResult result = this.visitImportService.importVisits(
+            new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getItems()).extracting(VisitImportResult.Item::status).containsExactly(
+            Status.CREATED, Status.INVALID, Status.INVALID, Status.CREATED, Status.UPDATED);
+        assertThat(result.getItems().get(0).id()).isNotNull();
+        assertThat(result.getItems().get(1).error()).startsWith("description:");
+        assertThat(this.clinicService.findVisitsByPetId(7)).hasSize(found + 2);
+        assertThat(this.clinicService.findVisitById(1).getDescription()).isEqualTo("rabies shot (updated)");
+    }
+
+    @Test
+    @Transactional
+    public void shouldClearCachedOwnersOfTheChunksSavedBeforeAnImportFails() {
+        Cache owners = this.cacheManager.getCache(CacheConfig.OWNERS);
+        // cached as by a read committed before the import (a put made within this test's transaction is deferred)
+        owners.putIfAbsent(6, this.clinicService.findOwnerById(6));
+        assertThat(owners.get(6)).isNotNull();
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < this.visitChunkSize; i++) {
+            ndjson.append("{\"date\":\"2024/03/01\",\"description\":\"chunk ").append(i).append("\",\"pet\":{\"id\":8}}\n");
+        }
+        // the client goes away once a whole chunk has been sent
+        InputStream broken = new SequenceInputStream(
+            new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)), new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("Connection reset");
+                }
+            });
+
+        assertThatExceptionOfType(IOException.class).isThrownBy(() -> this.visitImportService.importVisits(broken));
+        assertThat(owners.get(6)).isNull();
+    }
+
+    @Test
+    public void shouldReportOnlyTheVisitsThatCannotBeSaved() throws Exception {
+        String json = """
+            [{"date":"2024/02/01","description":"checkup","pet":{"id":8}},
+             {"date":"2024/02/01","description":"unknown pet","pet":{"id":9999}}]
+            """;
+
+        VisitImportResult result = this.visitImportService.importVisits(
+            new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        try {
+            assertThat(result.getItems()).extracting(VisitImportResult.Item::status)
+                .containsExactly(Status.CREATED, Status.FAILED);
+            assertThat(result.getItems().get(1).id()).isNull();
+            assertThat(result.getItems().get(1).error()).isNotBlank();
+        } finally {
+            Integer id = result.getItems().get(0).id();
+            if (id != null) {
+                this.clinicService.deleteVisit(this.clinicService.findVisitById(id));
+            }
+        }
+    }
+
+    @Test
+    public void shouldReportUpdatesOfVisitsThatDoNotExistAsNotFound() throws Exception {
+        int found = this.clinicService.findVisitsByPetId(8).size();
+        String json = """
+            [{"date":"2024/02/02","description":"checkup","pet":{"id":8}},
+             {"id":9999,"date":"2024/02/02","description":"no such visit","pet":{"id":8}}]
+            """;
+
+        VisitImportResult result = this.visitImportService.importVisits(
+            new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        try {
+            assertThat(result.getItems()).extracting(VisitImportResult.Item::status)
+                .containsExactly(Status.CREATED, Status.NOT_FOUND);
+            assertThat(result.getUpdated()).isZero();
+            assertThat(result.getFailed()).isEqualTo(1);
+            assertThat(result.getItems().get(1).id()).isNull();
+            assertThat(this.clinicService.findVisitsByPetId(8)).hasSize(found + 1);
+        } finally {
+            Integer id = result.getItems().get(0).id();
+            if (id != null) {
+                this.clinicService.deleteVisit(this.clinicService.findVisitById(id));
+            }
+        }
+    }
+
+    @Test
+    public void shouldImportOwnersAndPetsFromCsv() throws Exception {
+        String csv = """
+            first_name,last_name,address,city,state,zip_code,telephone,pet_name,pet_birth_date,pet_type
+            Ana,Importada,1 Main St.,Madison,Wisconsin,53703,6085551234,Rex,2020/01/02,dog
+            Ana,Importada,1 Main St.,Madison,Wisconsin,53703,6085551234,Mia,2021/3/4,Cat
+            Bruno,Importada,"2 Oak St., Apt 3",Madison,Wisconsin,53704,6085551235,,,
+            Carla,Importada,3 Elm St.,Madison,Wisconsin,ABCDE,6085551236,,,
+            Davi,Importada,4 Pine St.,Madison,Wisconsin,53705,6085551237,Zeca,2020/01/02,dragon
+            """;
+
+        OwnerImportResult result = this.ownerImportService.importOwners(new StringReader(csv));
+
+        Collection<Owner> imported = this.clinicService.findOwnerByLastName("Importada");
+        try {
+            assertThat(result.getOwners()).isEqualTo(2);
+            assertThat(result.getPets()).isEqualTo(2);
+            assertThat(result.getRejected()).isEqualTo(2);
+            assertThat(result.getErrors()).extracting(OwnerImportResult.Error::line).containsExactly(5, 6);
+            assertThat(result.getErrors().get(0).message()).contains("zipCode");
+            assertThat(result.getErrors().get(1).message()).contains("dragon");
+
+            assertThat(imported).extracting(Owner::getFirstName).containsExactlyInAnyOrder("Ana", "Bruno");
+            Owner ana = imported.stream().filter(owner -> owner.getFirstName().equals("Ana")).findFirst().orElseThrow();
+            assertThat(ana.getPets()).extracting(Pet::getName).containsExactly("Mia", "Rex");
+            assertThat(ana.getPets().get(1).getType().getName()).isEqualTo("dog");
+        } finally {
+            for (Owner owner : imported) {
+                this.clinicService.deleteOwner(owner);
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotImportOwnersWithoutTheRequiredColumns() throws Exception {
+        OwnerImportResult result = this.ownerImportService.importOwners(
+            new StringReader("first_name,last_name,address,city\nAna,Importada,1 Main St.,Madison\n"));
+
+        assertThat(result.getOwners()).isZero();
+        assertThat(result.getErrors()).hasSize(1);
+        assertThat(result.getErrors().get(0).line()).isEqualTo(1);
+        assertThat(result.getErrors().get(0).message()).contains("state", "zip_code", "telephone");
+    }
+
     @Test
     @Transactional
     public void shouldUpdateVisit() {
@@ -282,6 +605,95 @@ public abstract class AbstractClinicServiceTests {
         assertThat(visit).isNull();
     }
 
+    @Test
+    public void shouldKeepVisitStatisticsInStepWithTheWrites() {
+        // visits in 2031 only, so that the counts do not depend on the other tests
+        LocalDate from = LocalDate.of(2031, 1, 1);
+        LocalDate to = LocalDate.of(2031, 12, 31);
+        Owner owner = new Owner();
+        owner.setFirstName("Stella");
+        owner.setLastName("Statistics");
+        owner.setAddress("1 Count St.");
+        owner.setCity("Tallyville");
+        owner.setState("Wisconsin");
+        owner.setZipCode("53558");
+        owner.setTelephone("6085550000");
+        this.clinicService.saveOwner(owner);
+        try {
+            Pet pet = new Pet();
+            pet.setName("Abacus");
+            pet.setBirthDate(new Date());
+            pet.setType(this.clinicService.findPetTypeById(2));
+            owner.addPet(pet);
+            this.clinicService.savePet(pet);
+
+            Visit first = newVisit(pet, LocalDate.of(2031, 3, 5));
+            Visit second = newVisit(pet, LocalDate.of(2031, 3, 5));
+            this.clinicService.saveVisit(first);
+            this.clinicService.saveVisit(second);
+            assertThat(groups(Grouping.DAY, from, to)).containsExactly(new Group("2031/03/05", 2));
+            assertThat(groups(Grouping.PET_TYPE, from, to)).containsExactly(new Group("dog", 2));
+            assertThat(groups(Grouping.CITY, from, to)).containsExactly(new Group("Tallyville", 2));
+
+            Owner moved = this.clinicService.findOwnerById(owner.getId());
+            moved.setCity("Sumburg");
+            this.clinicService.saveOwner(moved);
+            assertThat(groups(Grouping.CITY, from, to)).containsExactly(new Group("Sumburg", 2));
+
+            Pet retyped = this.clinicService.findPetById(pet.getId());
+            retyped.setType(this.clinicService.findPetTypeById(1));
+            this.clinicService.savePet(retyped);
+            assertThat(groups(Grouping.PET_TYPE, from, to)).containsExactly(new Group("cat", 2));
+
+            Visit rescheduled = this.clinicService.findVisitById(second.getId());
+            rescheduled.setDate(java.sql.Date.valueOf(LocalDate.of(2031, 3, 6)));
+            this.clinicService.saveVisit(rescheduled);
+            assertThat(groups(Grouping.DAY, from, to))
+                .containsExactly(new Group("2031/03/05", 1), new Group("2031/03/06", 1));
+            assertThat(this.visitStatisticsService.countVisits(Grouping.DAY, from, LocalDate.of(2031, 3, 5)).total())
+                .isEqualTo(1);
+
+            this.clinicService.deleteVisit(this.clinicService.findVisitById(first.getId()));
+            assertThat(groups(Grouping.DAY, from, to)).containsExactly(new Group("2031/03/06", 1));
+        } finally {
+            this.clinicService.deleteOwner(this.clinicService.findOwnerById(owner.getId()));
+        }
+        VisitStatistics statistics = this.visitStatisticsService.countVisits(Grouping.CITY, from, to);
+        assertThat(statistics.total()).isZero();
+        assertThat(statistics.groups()).isEmpty();
+    }
+
+    @Test
+    public void shouldCorrectVisitStatisticsOnRebuild() {
+        // a write the statistics were not told about, as a concurrent pet move may leave behind
+        LocalDate from = LocalDate.of(2032, 1, 1);
+        LocalDate to = LocalDate.of(2032, 12, 31);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+        jdbcTemplate.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (7, ?, 'behind the back')",
+            java.sql.Date.valueOf(LocalDate.of(2032, 6, 1)));
+        try {
+            assertThat(this.visitStatisticsService.countVisits(Grouping.DAY, from, to).total()).isZero();
+            this.visitStatisticsService.rebuild();
+            assertThat(groups(Grouping.CITY, from, to)).containsExactly(new Group("Monona", 1));
+        } finally {
+            jdbcTemplate.update("DELETE FROM visits WHERE description = 'behind the back'");
+            this.visitStatisticsService.rebuild();
+        }
+        assertThat(this.visitStatisticsService.countVisits(Grouping.DAY, from, to).total()).isZero();
+    }
+
+    private List<Group> groups(Grouping groupBy, LocalDate from, LocalDate to) {
+        return this.visitStatisticsService.countVisits(groupBy, from, to).groups();
+    }
+
+    private static Visit newVisit(Pet pet, LocalDate date) {
+        Visit visit = new Visit();
+        visit.setPet(pet);
+        visit.setDate(java.sql.Date.valueOf(date));
+        visit.setDescription("statistics");
+        return visit;
+    }
+
     @Test
     public void shouldFindVetById() {
         Vet vet = this.clinicService.findVetById(1);
@@ -340,6 +752,112 @@ public abstract class AbstractClinicServiceTests {
         assertThat(owner3.getFirstName()).isEqualTo("Eduardo");
     }
 
+    @Test
+    public void shouldFindAllOwnersWithPetsAndVisits() {
+        Collection<Owner> owners = this.clinicService.findAllOwners();
+        Owner owner6 = EntityUtils.getById(owners, Owner.class, 6);
+        assertThat(owner6.getPets().size()).isEqualTo(2);
+        Pet max = owner6.getPet("Max");
+        assertThat(max.getType().getName()).isEqualTo("cat");
+        assertThat(max.getOwner()).isSameAs(owner6);
+        assertThat(max.getVisits().size()).isEqualTo(2);
+        assertThat(max.getVisits().get(0).getPet()).isSameAs(max);
+    }
+
+    @Test
+    public void shouldFindOwnersPageAfterId() {
+        Collection<Owner> page = this.clinicService.findOwnersAfter(2, 3);
+        assertThat(page).extracting(Owner::getId).containsExactly(3, 4, 5);
+        Owner owner3 = EntityUtils.getById(page, Owner.class, 3);
+        assertThat(owner3.getPets().size()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldFindPetsPageAfterId() {
+        Collection<Pet> page = this.clinicService.findPetsAfter(6, 2);
+        assertThat(page).extracting(Pet::getId).containsExactly(7, 8);
+        Pet pet7 = EntityUtils.getById(page, Pet.class, 7);
+        assertThat(pet7.getOwner().getFirstName()).isEqualTo("Jean");
+        assertThat(pet7.getType().getName()).isEqualTo("cat");
+    }
+
+    @Test
+    public void shouldFindVisitsPageAfterId() {
+        Collection<Visit> page = this.clinicService.findVisitsAfter(1, 10);
+        assertThat(page).extracting(Visit::getId).containsExactly(2, 3, 4);
+        Visit visit2 = EntityUtils.getById(page, Visit.class, 2);
+        assertThat(visit2.getPet().getName()).isEqualTo("Max");
+    }
+
+    @Test
+    public void shouldFindVisitsByDateRange() {
+        Collection<Visit> visits = this.clinicService.findVisitsByDateRange(LocalDate.of(2013, 1, 2), 0, LocalDate.of(2013, 1, 3), 10);
+        assertThat(visits).extracting(Visit::getId).containsExactly(2, 3);
+        Visit visit2 = EntityUtils.getById(visits, Visit.class, 2);
+        assertThat(visit2.getPet().getName()).isEqualTo("Max");
+        assertThat(visit2.getPet().getOwner().getLastName()).isEqualTo("Coleman");
+
+        visits = this.clinicService.findVisitsByDateRange(LocalDate.of(2012, 12, 1), 0, LocalDate.of(2012, 12, 31), 10);
+        assertThat(visits).isEmpty();
+    }
+
+    @Test
+    public void shouldPageVisitsByDateRangeOnDateThenId() {
+        // visits 1 to 4 are on 2013/01/01, 02, 03 and 04
+        Collection<Visit> page = this.clinicService.findVisitsByDateRange(LocalDate.of(2013, 1, 1), 0, LocalDate.of(2013, 1, 4), 2);
+        assertThat(page).extracting(Visit::getId).containsExactly(1, 2);
+
+        page = this.clinicService.findVisitsByDateRange(LocalDate.of(2013, 1, 2), 2, LocalDate.of(2013, 1, 4), 2);
+        assertThat(page).extracting(Visit::getId).containsExactly(3, 4);
+
+        page = this.clinicService.findVisitsByPetIdAndDateRange(7, LocalDate.of(2013, 1, 1), 1, LocalDate.of(2013, 1, 4), 2);
+        assertThat(page).extracting(Visit::getId).containsExactly(4);
+    }
+
+    @Test
+    public void shouldFindVisitsOfAPetByDateRange() {
+        Collection<Visit> visits = this.clinicService.findVisitsByPetIdAndDateRange(7, LocalDate.of(2013, 1, 1), 0, LocalDate.of(2013, 1, 4), 10);
+        assertThat(visits).extracting(Visit::getId).containsExactly(1, 4);
+        assertThat(visits.iterator().next().getPet().getType().getName()).isEqualTo("cat");
+
+        visits = this.clinicService.findVisitsByPetIdAndDateRange(7, LocalDate.of(2013, 1, 2), 0, LocalDate.of(2013, 1, 3), 10);
+        assertThat(visits).isEmpty();
+    }
+
+    @Test
+    public void shouldCacheOwnerById() {
+        Owner owner = this.clinicService.findOwnerById(2);
+        assertThat(this.clinicService.findOwnerById(2)).isSameAs(owner);
+    }
+
+    @Test
+    @Transactional
+    public void shouldEvictCachedOwnerOnSave() {
+        Owner owner = this.clinicService.findOwnerById(3);
+        owner.setCity("Madison");
+        this.clinicService.saveOwner(owner);
+
+        Owner reloaded = this.clinicService.findOwnerById(3);
+        assertThat(reloaded.getCity()).isEqualTo("Madison");
+    }
+
+    @Test
+    public void shouldEvictOwnerCachedByAConcurrentReadOnceTheWriteHasCommitted() {
+        Owner owner = this.clinicService.findOwnerById(4);
+        Cache owners = this.cacheManager.getCache(CacheConfig.OWNERS);
+        @SuppressWarnings("unchecked")
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeOwners =
+            (com.github.benmanes.caffeine.cache.Cache<Object, Object>) owners.getNativeCache();
+
+        new TransactionTemplate(this.transactionManager).executeWithoutResult(status -> {
+            this.clinicService.saveOwner(owner);
+            // a read on another thread caches the row as it was before this write commits
+            nativeOwners.put(4, owner);
+            assertThat(owners.get(4)).isNotNull();
+        });
+        assertThat(owners.get(4)).isNull();
+    }
+
     @Test
     @Transactional
     public void shouldDeleteOwner() {
@@ -409,6 +927,19 @@ public abstract class AbstractClinicServiceTests {
         assertThat(petType).isNull();
     }
 
+    @Test
+    @Transactional
+    public void shouldDeletePetTypeWithItsPetsAndVisits() {
+        int visits = this.clinicService.findAllVisits().size();
+        PetType cat = this.clinicService.findPetTypeById(1);
+        this.clinicService.deletePetType(cat);
+
+        // cats 7 and 8 had all four visits
+        assertThat(this.clinicService.findAllVisits()).hasSize(visits - 4);
+        assertThat(this.clinicService.findAllPets())
+            .noneMatch(pet -> pet.getId() == 1 || pet.getId() == 7 || pet.getId() == 8 || pet.getId() == 13);
+    }
+
     @Test
     public void shouldFindSpecialtyById() {
         Specialty specialty = this.clinicService.findSpecialtyById(1);
@@ -440,6 +971,68 @@ public abstract class AbstractClinicServiceTests {
         assertThat(specialties.size()).isEqualTo(found + 1);
     }
 
+    @Test
+    public void shouldMoveResourceVersionsOnceTheWriteHasCompleted() {
+        long owner1 = this.resourceVersions.version(CacheConfig.OWNERS, 1);
+        long owner2 = this.resourceVersions.version(CacheConfig.OWNERS, 2);
+        long vets = this.resourceVersions.version(CacheConfig.VETS);
+        TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            this.clinicService.saveOwner(this.clinicService.findOwnerById(1));
+            assertThat(this.resourceVersions.version(CacheConfig.OWNERS, 1)).isEqualTo(owner1);
+            status.setRollbackOnly();
+        });
+        assertThat(this.resourceVersions.version(CacheConfig.OWNERS, 1)).isGreaterThan(owner1);
+        assertThat(this.resourceVersions.version(CacheConfig.OWNERS, 2)).isEqualTo(owner2);
+        assertThat(this.resourceVersions.version(CacheConfig.VETS)).isEqualTo(vets);
+
+        long specialties = this.resourceVersions.version(CacheConfig.SPECIALTIES);
+        transaction.executeWithoutResult(status -> {
+            this.clinicService.saveSpecialty(this.clinicService.findSpecialtyById(1));
+            status.setRollbackOnly();
+        });
+        assertThat(this.resourceVersions.version(CacheConfig.SPECIALTIES)).isGreaterThan(specialties);
+        // vets are served with their specialties
+        assertThat(this.resourceVersions.version(CacheConfig.VETS)).isGreaterThan(vets);
+    }
+
+    @Test
+    public void shouldMoveOnlyTheOwnersAPetOrVisitWriteTouches() {
+        Cache owners = this.cacheManager.getCache(CacheConfig.OWNERS);
+        this.clinicService.findOwnerById(2);
+        this.clinicService.findOwnerById(3);
+        long owner2 = this.resourceVersions.version(CacheConfig.OWNERS, 2);
+        long owner3 = this.resourceVersions.version(CacheConfig.OWNERS, 3);
+        long owner6 = this.resourceVersions.version(CacheConfig.OWNERS, 6);
+        TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            Visit visit = new Visit();
+            visit.setPet(this.clinicService.findPetById(8));
+            visit.setDate(new Date());
+            visit.setDescription("new visit");
+            this.clinicService.saveVisit(visit);
+            status.setRollbackOnly();
+        });
+        assertThat(this.resourceVersions.version(CacheConfig.OWNERS, 6)).isGreaterThan(owner6);
+        assertThat(this.resourceVersions.version(CacheConfig.OWNERS, 3)).isEqualTo(owner3);
+        assertThat(owners.get(3)).isNotNull();
+
+        owner6 = this.resourceVersions.version(CacheConfig.OWNERS, 6);
+        transaction.executeWithoutResult(status -> {
+            Pet pet = this.clinicService.findPetById(8);
+            pet.setOwner(this.clinicService.findOwnerByIdForUpdate(3));
+            this.clinicService.savePet(pet);
+            status.setRollbackOnly();
+        });
+        assertThat(this.resourceVersions.version(CacheConfig.OWNERS, 6)).isGreaterThan(owner6);
+        assertThat(this.resourceVersions.version(CacheConfig.OWNERS, 3)).isGreaterThan(owner3);
+        assertThat(owners.get(3)).isNull();
+        assertThat(this.resourceVersions.version(CacheConfig.OWNERS, 2)).isEqualTo(owner2);
+        assertThat(owners.get(2)).isNotNull();
+    }
+
     @Test
     @Transactional
     public void shouldUpdateSpecialty() {
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service.clinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.ReadReplicaDataSource;
+import org.springframework.samples.petclinic.util.ReadYourWrites;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * <p> Integration test of the read replica routing, with a second in-memory HSQLDB database standing in for the
+ * replica: it holds the sample data, except that George Franklin is called "Replica" there. </p>
+ */
+@SpringBootTest(properties = {
+    "petclinic.read-replicas.enabled=true",
+    "petclinic.read-replicas.sticky-window=1s"
+})
+@ActiveProfiles({"spring-data-jpa", "hsqldb"})
+public class ClinicServiceReadReplicaTests {
+
+    private static EmbeddedDatabase replica;
+
+    @Autowired
+    private ClinicService clinicService;
+
+    @Autowired
+    private ReadReplicaDataSource readReplicaDataSource;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @DynamicPropertySource
+    static void replica(DynamicPropertyRegistry registry) {
+        replica = new EmbeddedDatabaseBuilder()
+            .setName("petclinic-replica")
+            .setType(EmbeddedDatabaseType.HSQL)
+            .addScripts("db/hsqldb/initDB.sql", "db/hsqldb/populateDB.sql")
+            .build();
+        new JdbcTemplate(replica).update("UPDATE owners SET first_name = 'Replica' WHERE last_name = 'Franklin'");
+        registry.add("petclinic.read-replicas.urls", () -> "jdbc:hsqldb:mem:petclinic-replica");
+    }
+
+    @AfterAll
+    static void shutdown() {
+        replica.shutdown();
+    }
+
+    @Test
+    public void shouldLoadTheCachesFromThePrimary() {
+        assertThat(this.clinicService.findOwnerById(1).getFirstName()).isEqualTo("George");
+        assertThat(this.readReplicaDataSource.getPrimaryReads()).isPositive();
+    }
+
+    @Test
+    public void shouldReadFromTheReplicaExceptRightAfterAWrite() throws Exception {
+        // as the request filter does for an HTTP client
+        this.readYourWrites.begin(0, null);
+        try {
+            readYourOwnWrites();
+        } finally {
+            this.readYourWrites.end();
+        }
+    }
+
+    private void readYourOwnWrites() throws Exception {
+        assertThat(firstNameOfFranklin()).isEqualTo("Replica");
+        assertThat(this.readReplicaDataSource.getReplicaReads()).isPositive();
+
+        Owner owner = new Owner();
+        owner.setFirstName("Rita");
+        owner.setLastName("Replicated");
+        owner.setAddress("1 Primary St.");
+        owner.setCity("Madison");
+        owner.setState("Wisconsin");
+        owner.setZipCode("53558");
+        owner.setTelephone("6085550001");
+        this.clinicService.saveOwner(owner);
+        try {
+            // within the window: the primary, which has the new owner
+            assertThat(firstNameOfFranklin()).isEqualTo("George");
+            assertThat(this.clinicService.findOwnerByLastName("Replicated")).hasSize(1);
+
+            Thread.sleep(1100);
+            assertThat(firstNameOfFranklin()).isEqualTo("Replica");
+            assertThat(this.clinicService.findOwnerByLastName("Replicated")).isEmpty();
+        } finally {
+            this.clinicService.deleteOwner(owner);
+        }
+    }
+
+    private String firstNameOfFranklin() {
+        Collection<Owner> owners = this.clinicService.findOwnerByLastName("Franklin");
+        assertThat(owners).hasSize(1);
+        return owners.iterator().next().getFirstName();
+    }
+}
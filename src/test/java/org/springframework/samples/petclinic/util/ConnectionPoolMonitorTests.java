@@ -0,0 +1,120 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.util.ConnectionPoolMonitor.PoolStatistics;
+
+public class ConnectionPoolMonitorTests {
+
+    private ConnectionPoolMonitor monitor;
+
+    private HikariDataSource dataSource;
+
+    @BeforeEach
+    public void createPool() {
+        this.monitor = new ConnectionPoolMonitor(Duration.ofMillis(50), Duration.ofSeconds(10));
+        this.dataSource = new HikariDataSource();
+        this.dataSource.setJdbcUrl("jdbc:hsqldb:mem:pool-monitor");
+        this.dataSource.setUsername("sa");
+        this.dataSource.setPoolName("monitored");
+        this.dataSource.setMaximumPoolSize(1);
+        this.dataSource.setConnectionTimeout(250);
+        this.dataSource.setMetricsTrackerFactory(this.monitor);
+    }
+
+    @AfterEach
+    public void closePool() {
+        this.dataSource.close();
+    }
+
+    @Test
+    public void shouldRecordAcquisitionsAndUsage() throws SQLException {
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = this.dataSource.getConnection()) {
+                assertThat(connection.isValid(1)).isTrue();
+            }
+        }
+
+        PoolStatistics statistics = statistics();
+        assertThat(statistics.pool()).isEqualTo("monitored");
+        assertThat(statistics.max()).isEqualTo(1);
+        assertThat(statistics.acquisitions()).isEqualTo(3);
+        assertThat(statistics.slowAcquisitions()).isZero();
+        assertThat(statistics.timeouts()).isZero();
+        assertThat(statistics.acquireP99Micros()).isLessThanOrEqualTo(statistics.acquireMaxMicros());
+        assertThat(this.monitor.getPoolStatistics()).singleElement().asString().startsWith("monitored active=");
+    }
+
+    @Test
+    public void shouldCountSlowAcquisitionsAndTimeouts() throws Exception {
+        Connection held = this.dataSource.getConnection();
+        assertThatExceptionOfType(SQLTransientConnectionException.class)
+            .isThrownBy(() -> this.dataSource.getConnection());
+
+        CompletableFuture<Void> release = CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(150);
+                held.close();
+            } catch (InterruptedException | SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        try (Connection connection = this.dataSource.getConnection()) {
+            assertThat(connection.isValid(1)).isTrue();
+        }
+        release.join();
+
+        PoolStatistics statistics = statistics();
+        // the request that timed out counts as a (slow) acquisition too
+        assertThat(statistics.timeouts()).isEqualTo(1);
+        assertThat(statistics.acquisitions()).isEqualTo(3);
+        assertThat(statistics.slowAcquisitions()).isEqualTo(2);
+        assertThat(statistics.acquireMaxMicros()).isGreaterThanOrEqualTo(100_000);
+        assertThat(statistics.usageMaxMillis()).isGreaterThanOrEqualTo(150);
+
+        this.monitor.reset();
+        assertThat(statistics().acquisitions()).isZero();
+        assertThat(statistics().timeouts()).isZero();
+    }
+
+    @Test
+    public void shouldForgetClosedPools() throws SQLException {
+        this.dataSource.getConnection().close();
+        assertThat(this.monitor.getStatistics()).hasSize(1);
+
+        this.dataSource.close();
+        assertThat(this.monitor.getStatistics()).isEmpty();
+    }
+
+    private PoolStatistics statistics() {
+        assertThat(this.monitor.getStatistics()).hasSize(1);
+        return this.monitor.getStatistics().get(0);
+    }
+}
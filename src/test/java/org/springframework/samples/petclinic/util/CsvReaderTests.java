@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+public class CsvReaderTests {
+
+    @Test
+    public void shouldSplitPlainAndQuotedFields() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,b,,c\n\"d, e\",\"say \"\"hi\"\"\",f\n"));
+
+        assertThat(csv.next()).containsExactly("a", "b", "", "c");
+        assertThat(csv.getLineNumber()).isEqualTo(1);
+        assertThat(csv.next()).containsExactly("d, e", "say \"hi\"", "f");
+        assertThat(csv.getLineNumber()).isEqualTo(2);
+        assertThat(csv.next()).isNull();
+    }
+
+    @Test
+    public void shouldReadLineBreaksInQuotedFieldsAndSkipBlankLines() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("\"1 Main St.\r\nApt 2\",x\r\n\r\ny,z"));
+
+        assertThat(csv.next()).containsExactly("1 Main St.\nApt 2", "x");
+        assertThat(csv.getLineNumber()).isEqualTo(1);
+        assertThat(csv.next()).containsExactly("y", "z");
+        assertThat(csv.getLineNumber()).isEqualTo(4);
+        assertThat(csv.next()).isNull();
+    }
+
+    @Test
+    public void shouldRejectUnterminatedQuotedField() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("ok\n\"never closed,\nstill open"));
+
+        assertThat(csv.next()).containsExactly("ok");
+        assertThatThrownBy(csv::next).isInstanceOf(IOException.class).hasMessageContaining("line 2");
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.samples.petclinic.util.DatabaseBulkheadAspect.DatabaseBusyException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+public class DatabaseBulkheadAspectTests {
+
+    @Test
+    public void shouldBoundConcurrentCallers() throws Exception {
+        DatabaseBulkheadAspect bulkhead = new DatabaseBulkheadAspect(2, 10_000);
+        SlowRepository target = new SlowRepository();
+        SlowRepository repository = proxy(target, bulkhead);
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            calls.add(executor.submit(() -> repository.query(5)));
+        }
+        for (Future<?> call : calls) {
+            call.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(target.maxActive.get()).isEqualTo(2);
+        assertThat(bulkhead.getAvailablePermits()).isEqualTo(2);
+        assertThat(bulkhead.getRejectedCount()).isZero();
+    }
+
+    @Test
+    public void shouldRejectCallersThatCannotGetAPermitInTime() throws Exception {
+        DatabaseBulkheadAspect bulkhead = new DatabaseBulkheadAspect(1, 50);
+        SlowRepository target = new SlowRepository();
+        SlowRepository repository = proxy(target, bulkhead);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> holder = executor.submit(() -> repository.query(1_000));
+        assertThat(target.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> repository.query(0)).isInstanceOf(DatabaseBusyException.class);
+        assertThat(bulkhead.getRejectedCount()).isEqualTo(1);
+        holder.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldLetNestedCallsThroughWithTheOuterPermit() {
+        DatabaseBulkheadAspect bulkhead = new DatabaseBulkheadAspect(1, 50);
+        SlowRepository inner = proxy(new SlowRepository(), bulkhead);
+        OuterRepository outer = proxy(new OuterRepository(inner), bulkhead);
+
+        assertThat(outer.queryTwice()).isEqualTo(2);
+        assertThat(bulkhead.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldTakeThePermitBeforeAGuardedTransactionBegins() {
+        DatabaseBulkheadAspect bulkhead = new DatabaseBulkheadAspect(1, 50);
+        SlowRepository repository = proxy(new SlowRepository(), bulkhead);
+        AtomicInteger permitsWhenBegun = new AtomicInteger(-1);
+        TransactionOperations transactions = bulkhead.guard(new TransactionOperations() {
+
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                // where a transaction manager would take its connection
+                permitsWhenBegun.set(bulkhead.getAvailablePermits());
+                return action.doInTransaction(null);
+            }
+        });
+
+        Integer result = transactions.execute(status -> repository.query(0));
+
+        assertThat(result).isEqualTo(1);
+        assertThat(permitsWhenBegun.get()).isZero();
+        assertThat(bulkhead.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(T target, DatabaseBulkheadAspect bulkhead) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(bulkhead);
+        return (T) factory.getProxy();
+    }
+
+    @Repository
+    public static class SlowRepository {
+
+        final AtomicInteger active = new AtomicInteger();
+
+        final AtomicInteger maxActive = new AtomicInteger();
+
+        final CountDownLatch started = new CountDownLatch(1);
+
+        public int query(long millis) {
+            this.maxActive.accumulateAndGet(this.active.incrementAndGet(), Math::max);
+            this.started.countDown();
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                this.active.decrementAndGet();
+            }
+            return 1;
+        }
+    }
+
+    @Repository
+    public static class OuterRepository {
+
+        private final SlowRepository inner;
+
+        public OuterRepository(SlowRepository inner) {
+            this.inner = inner;
+        }
+
+        public int queryTwice() {
+            return this.inner.query(0) + this.inner.query(0);
+        }
+    }
+}
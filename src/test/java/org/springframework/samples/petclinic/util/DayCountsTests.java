@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class DayCountsTests {
+
+    private static final int JAN_1 = day(2013, 1, 1);
+
+    @Test
+    public void shouldSumRangesWithinAndAcrossMonths() {
+        DayCounts counts = new DayCounts();
+        counts.add(day(2013, 1, 1), 1);
+        counts.add(day(2013, 1, 31), 2);
+        counts.add(day(2013, 2, 1), 4);
+        counts.add(day(2013, 6, 15), 8);
+        counts.add(day(2014, 1, 1), 16);
+
+        assertThat(counts.sum(Integer.MIN_VALUE, Integer.MAX_VALUE)).isEqualTo(31);
+        assertThat(counts.sum(day(2013, 1, 1), day(2013, 1, 1))).isEqualTo(1);
+        assertThat(counts.sum(day(2013, 1, 2), day(2013, 2, 1))).isEqualTo(6);
+        assertThat(counts.sum(day(2013, 1, 31), day(2013, 12, 31))).isEqualTo(14);
+        assertThat(counts.sum(day(2013, 6, 16), day(2013, 12, 31))).isZero();
+        assertThat(counts.sum(day(2014, 1, 1), day(2013, 1, 1))).isZero();
+    }
+
+    @Test
+    public void shouldDropDaysThatCountZero() {
+        DayCounts counts = new DayCounts();
+        counts.add(JAN_1, 3);
+        counts.add(JAN_1 + 40, 1);
+        counts.add(JAN_1, -3);
+
+        List<Integer> days = new ArrayList<>();
+        counts.forEach(Integer.MIN_VALUE, Integer.MAX_VALUE, (day, count) -> days.add(day));
+        assertThat(days).containsExactly(JAN_1 + 40);
+
+        counts.add(JAN_1 + 40, -1);
+        assertThat(counts.isEmpty()).isTrue();
+        assertThat(counts.sum(Integer.MIN_VALUE, Integer.MAX_VALUE)).isZero();
+    }
+
+    @Test
+    public void shouldMatchABruteForceSumWhateverTheOrderOfTheDays() {
+        Random random = new Random(42);
+        int span = 20 * 366;
+        long[] expected = new long[span];
+        DayCounts counts = new DayCounts();
+        // days in random order, so that the monthly tree grows both ways
+        for (int i = 0; i < 20_000; i++) {
+            int offset = random.nextInt(span);
+            long delta = random.nextInt(5) - 1;
+            expected[offset] += delta;
+            counts.add(JAN_1 - span / 2 + offset, delta);
+        }
+        for (int i = 0; i < 2_000; i++) {
+            int from = random.nextInt(span);
+            int to = from + random.nextInt(span - from);
+            long sum = 0;
+            for (int offset = from; offset <= to; offset++) {
+                sum += expected[offset];
+            }
+            assertThat(counts.sum(JAN_1 - span / 2 + from, JAN_1 - span / 2 + to)).isEqualTo(sum);
+        }
+    }
+
+    private static int day(int year, int month, int dayOfMonth) {
+        return (int) LocalDate.of(year, month, dayOfMonth).toEpochDay();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.Owner;
+
+public class EntityIndexTests {
+
+    @Test
+    public void shouldFindEveryIndexedEntityAfterResizing() {
+        List<Owner> owners = new ArrayList<>();
+        for (int id = 1; id <= 5000; id++) {
+            owners.add(owner(id));
+        }
+        EntityIndex<Owner> index = new EntityIndex<>();
+        owners.forEach(index::put);
+
+        assertThat(index.size()).isEqualTo(5000);
+        for (Owner owner : owners) {
+            assertThat(index.get(owner.getId())).isSameAs(owner);
+        }
+        assertThat(index.get(0)).isNull();
+        assertThat(index.get(5001)).isNull();
+    }
+
+    @Test
+    public void shouldReplaceEntityWithSameId() {
+        EntityIndex<Owner> index = EntityIndex.of(List.of(owner(7)));
+        Owner replacement = owner(7);
+        index.put(replacement);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.getById(Owner.class, 7)).isSameAs(replacement);
+    }
+
+    @Test
+    public void shouldFailLikeEntityUtilsWhenNotFound() {
+        EntityIndex<Owner> index = EntityIndex.of(List.of(owner(1), owner(-3)));
+        assertThat(index.getById(Owner.class, -3).getId()).isEqualTo(-3);
+        assertThatThrownBy(() -> index.getById(Owner.class, 2))
+            .isInstanceOf(ObjectRetrievalFailureException.class);
+    }
+
+    private static Owner owner(int id) {
+        Owner owner = new Owner();
+        owner.setId(id);
+        return owner;
+    }
+}
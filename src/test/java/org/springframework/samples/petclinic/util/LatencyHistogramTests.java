@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTests {
+
+    @Test
+    public void shouldMapEveryValueToABucketCoveringIt() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            int index = LatencyHistogram.index(value);
+            assertThat(LatencyHistogram.highestEquivalentValue(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                assertThat(LatencyHistogram.highestEquivalentValue(index - 1)).isLessThan(value);
+            }
+        }
+    }
+
+    @Test
+    public void shouldReportPercentilesWithinThreePercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+        assertThat((double) histogram.percentile(50)).isCloseTo(50_000, within(1_600.0));
+        assertThat((double) histogram.percentile(99)).isCloseTo(99_000, within(3_200.0));
+        assertThat((double) histogram.percentile(99.9)).isCloseTo(99_900, within(3_200.0));
+        assertThat(histogram.percentile(100)).isEqualTo(100_000);
+        assertThat(histogram.getMax()).isEqualTo(100_000);
+    }
+
+    @Test
+    public void shouldCountConcurrentRecordings() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(10);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        histogram.record(1_000);
+
+        assertThat(histogram.percentile(99.99)).isEqualTo(10);
+        assertThat(histogram.percentile(100)).isEqualTo(1_000);
+
+        histogram.reset();
+        assertThat(histogram.percentile(50)).isZero();
+        assertThat(histogram.getMax()).isZero();
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.samples.petclinic.util.ReadReplicaDataSource.Selection;
+
+public class ReadReplicaDataSourceTests {
+
+    private final List<EmbeddedDatabase> databases = new ArrayList<>();
+
+    private EmbeddedDatabase primary;
+
+    private FlakyDataSource replica1;
+
+    private FlakyDataSource replica2;
+
+    private ReadYourWrites readYourWrites;
+
+    private ReadReplicaDataSource dataSource;
+
+    @BeforeEach
+    public void createDatabases() {
+        this.primary = database("primary");
+        this.replica1 = new FlakyDataSource(database("replica1"));
+        this.replica2 = new FlakyDataSource(database("replica2"));
+        this.readYourWrites = new ReadYourWrites(60_000);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        this.readYourWrites.end();
+        if (this.dataSource != null) {
+            this.dataSource.close();
+        }
+        this.databases.forEach(EmbeddedDatabase::shutdown);
+    }
+
+    @Test
+    public void shouldTakeTurnsRoundRobin() throws SQLException {
+        this.dataSource = replicas(Selection.ROUND_ROBIN);
+
+        assertThat(List.of(read(), read(), read(), read())).containsExactly("replica1", "replica2", "replica1", "replica2");
+        assertThat(this.dataSource.getReplicaReads()).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldPickTheReplicaWithTheLeastConnectionsInUse() throws SQLException {
+        this.dataSource = replicas(Selection.LEAST_CONNECTIONS);
+
+        try (Connection held = this.dataSource.getConnection()) {
+            String busy = database(held);
+            String idle = busy.equals("replica1") ? "replica2" : "replica1";
+            assertThat(List.of(read(), read(), read())).containsOnly(idle);
+        }
+        assertThat(this.dataSource.getReplicas()).containsExactly("replica-1 up, 0 in use", "replica-2 up, 0 in use");
+    }
+
+    @Test
+    public void shouldEjectAReplicaThatFailsUntilItIsHealthyAgain() throws SQLException {
+        this.dataSource = replicas(Selection.ROUND_ROBIN);
+        this.replica1.down = true;
+
+        assertThat(List.of(read(), read(), read())).containsOnly("replica2");
+        assertThat(this.dataSource.getReplicas()).first().isEqualTo("replica-1 ejected, 0 in use");
+
+        this.dataSource.check();
+        assertThat(this.dataSource.getReplicas()).first().isEqualTo("replica-1 ejected, 0 in use");
+
+        this.replica1.down = false;
+        this.dataSource.check();
+        assertThat(List.of(read(), read())).containsExactlyInAnyOrder("replica1", "replica2");
+    }
+
+    @Test
+    public void shouldFallBackToThePrimaryWithoutHealthyReplicas() throws SQLException {
+        this.dataSource = replicas(Selection.ROUND_ROBIN);
+        this.replica1.down = true;
+        this.replica2.down = true;
+
+        assertThat(read()).isEqualTo("primary");
+        assertThat(read()).isEqualTo("primary");
+        assertThat(this.dataSource.getFallbackReads()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldReadFromThePrimaryWithinTheWindowAfterAWrite() throws SQLException {
+        this.dataSource = replicas(Selection.ROUND_ROBIN);
+
+        this.readYourWrites.begin(0, null);
+        this.readYourWrites.written();
+        assertThat(read()).isEqualTo("primary");
+        assertThat(this.dataSource.getStickyReads()).isEqualTo(1);
+
+        this.readYourWrites.begin(System.currentTimeMillis() - 60_000, null);
+        assertThat(read()).startsWith("replica");
+    }
+
+    @Test
+    public void shouldNotRememberWritesOutsideOfAClientContext() throws SQLException {
+        this.dataSource = replicas(Selection.ROUND_ROBIN);
+
+        this.readYourWrites.written();
+        assertThat(this.readYourWrites.isSticky()).isFalse();
+        assertThat(read()).startsWith("replica");
+    }
+
+    @Test
+    public void shouldReadResultsToBeCachedFromThePrimary() throws SQLException {
+        this.dataSource = replicas(Selection.ROUND_ROBIN);
+
+        boolean nested = this.readYourWrites.beginPrimaryReads();
+        try {
+            assertThat(this.readYourWrites.beginPrimaryReads()).isTrue();
+            this.readYourWrites.endPrimaryReads(true);
+            assertThat(read()).isEqualTo("primary");
+        } finally {
+            this.readYourWrites.endPrimaryReads(nested);
+        }
+        assertThat(this.dataSource.getPrimaryReads()).isEqualTo(1);
+        assertThat(read()).startsWith("replica");
+    }
+
+    @Test
+    public void shouldSkipButNotEjectABusyReplica() throws SQLException {
+        this.dataSource = replicas(Selection.ROUND_ROBIN);
+        this.replica1.busy = true;
+
+        assertThat(List.of(read(), read())).containsOnly("replica2");
+        assertThat(this.dataSource.getReplicas()).first().isEqualTo("replica-1 up, 0 in use");
+        assertThat(this.dataSource.getBusyReplicas()).isPositive();
+
+        this.replica2.busy = true;
+        assertThatExceptionOfType(SQLTransientConnectionException.class).isThrownBy(this::read);
+        assertThat(this.dataSource.getFallbackReads()).isZero();
+
+        this.replica1.busy = false;
+        this.replica2.busy = false;
+        assertThat(List.of(read(), read())).containsExactlyInAnyOrder("replica1", "replica2");
+    }
+
+    private ReadReplicaDataSource replicas(Selection selection) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", this.replica1);
+        replicas.put("replica-2", this.replica2);
+        return new ReadReplicaDataSource(this.primary, replicas, selection, this.readYourWrites, null,
+            Duration.ofSeconds(30), Duration.ofHours(1));
+    }
+
+    private String read() throws SQLException {
+        try (Connection connection = this.dataSource.getConnection()) {
+            return database(connection);
+        }
+    }
+
+    private static String database(Connection connection) throws SQLException {
+        String url = connection.getMetaData().getURL();
+        return url.substring(url.lastIndexOf(':') + 1);
+    }
+
+    private EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setName(name)
+            .setType(EmbeddedDatabaseType.HSQL)
+            .build();
+        this.databases.add(database);
+        return database;
+    }
+
+    private static class FlakyDataSource extends DelegatingDataSource {
+
+        private volatile boolean down;
+
+        private volatile boolean busy;
+
+        FlakyDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (this.down) {
+                throw new SQLException("Connection refused");
+            }
+            if (this.busy) {
+                // as Hikari when the pool is saturated but the database reachable
+                throw new SQLTransientConnectionException("Connection is not available, request timed out");
+            }
+            return super.getConnection();
+        }
+    }
+}
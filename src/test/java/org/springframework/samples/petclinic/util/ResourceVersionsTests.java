@@ -0,0 +1,73 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ResourceVersionsTests {
+
+    private final ResourceVersions versions = new ResourceVersions();
+
+    @Test
+    public void shouldMoveTheVersionOfAnItemOnly() {
+        long owner1 = this.versions.version("owners", 1);
+        long owner2 = this.versions.version("owners", 2);
+
+        this.versions.changed("owners", 1);
+
+        assertThat(this.versions.version("owners", 1)).isGreaterThan(owner1);
+        assertThat(this.versions.version("owners", 2)).isEqualTo(owner2);
+        assertThat(this.versions.version("owners")).isZero();
+    }
+
+    @Test
+    public void shouldMoveTheVersionOfEveryItemWithTheWholeResource() {
+        long owner1 = this.versions.version("owners", 1);
+        long owner2 = this.versions.version("owners", 2);
+        long vets = this.versions.version("vets");
+
+        this.versions.changed("owners");
+
+        assertThat(this.versions.version("owners", 1)).isGreaterThan(owner1);
+        assertThat(this.versions.version("owners", 2)).isGreaterThan(owner2);
+        assertThat(this.versions.version("vets")).isEqualTo(vets);
+    }
+
+    @Test
+    public void shouldMoveTheVersionOnceTheTransactionHasCompleted() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            this.versions.changed("vets");
+            this.versions.changed("owners", 1);
+            assertThat(this.versions.version("vets")).isZero();
+            assertThat(this.versions.version("owners", 1)).isZero();
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(this.versions.version("vets")).isEqualTo(1);
+        assertThat(this.versions.version("owners", 1)).isEqualTo(1);
+    }
+}